@@ -0,0 +1,106 @@
+package dev.array21.harotorch.nms;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the two ways particle packets have been created and sent: looking up the constructor and the send method through reflection for every packet,
+ * as /torch aoe did before the {@link PacketBridge}, and invoking MethodHandles resolved once, as the PacketBridge does.<br>
+ * NMS is not available outside of a server, so a stand-in packet and connection with the same shapes are used. What is measured is the cost of the call path, not of the packet itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PacketBridgeBenchmark {
+	
+	private static final Class<?>[] PACKET_PARAMETERS = new Class<?>[] { FakeParticleParam.class, boolean.class, double.class, double.class, double.class, float.class, float.class, float.class, float.class, int.class };
+	
+	private final FakeConnection connection = new FakeConnection();
+	private final FakeParticleParam particle = new FakeParticleParam();
+	
+	/**
+	 * Held in instance fields like in the PacketBridge, so the JIT can't treat them as constants
+	 */
+	private MethodHandle packetConstructor;
+	private MethodHandle sendPacket;
+	
+	@Setup
+	public void setup() throws ReflectiveOperationException {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		
+		this.packetConstructor = lookup.unreflectConstructor(FakeParticlePacket.class.getConstructor(PACKET_PARAMETERS))
+				.asType(MethodType.methodType(Object.class, Object.class, boolean.class, double.class, double.class, double.class, float.class, float.class, float.class, float.class, int.class));
+		this.sendPacket = lookup.unreflect(FakeConnection.class.getMethod("sendPacket", FakePacket.class))
+				.asType(MethodType.methodType(void.class, Object.class, Object.class));
+	}
+	
+	@Benchmark
+	public int reflective() throws ReflectiveOperationException {
+		Constructor<?> constructor = FakeParticlePacket.class.getConstructor(PACKET_PARAMETERS);
+		Object packet = constructor.newInstance(new Object[] { this.particle, false, 1d, 2d, 3d, 0f, 0f, 0f, 0.005f, 10 });
+		
+		Method send = this.connection.getClass().getMethod("sendPacket", FakePacket.class);
+		send.invoke(this.connection, new Object[] { packet });
+		
+		return this.connection.sent;
+	}
+	
+	@Benchmark
+	public int methodHandles() throws Throwable {
+		Object packet = (Object) this.packetConstructor.invokeExact((Object) this.particle, false, 1d, 2d, 3d, 0f, 0f, 0f, 0.005f, 10);
+		this.sendPacket.invokeExact((Object) this.connection, packet);
+		
+		return this.connection.sent;
+	}
+	
+	public interface FakePacket {}
+	
+	public static class FakeParticleParam {}
+	
+	public static class FakeParticlePacket implements FakePacket {
+		private final FakeParticleParam particle;
+		private final boolean force;
+		private final double x, y, z;
+		private final float offsetX, offsetY, offsetZ, extra;
+		private final int count;
+		
+		public FakeParticlePacket(FakeParticleParam particle, boolean force, double x, double y, double z, float offsetX, float offsetY, float offsetZ, float extra, int count) {
+			this.particle = particle;
+			this.force = force;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+			this.offsetZ = offsetZ;
+			this.extra = extra;
+			this.count = count;
+		}
+	}
+	
+	public static class FakeConnection {
+		private int sent = 0;
+		
+		public void sendPacket(FakePacket packet) {
+			this.sent++;
+		}
+	}
+}
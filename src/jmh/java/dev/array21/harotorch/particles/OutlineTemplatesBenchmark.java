@@ -0,0 +1,60 @@
+package dev.array21.harotorch.particles;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building the circular outline of one Torch by sampling 360 angles with cos and sin, as /torch aoe did before {@link OutlineTemplates},
+ * with translating the cached midpoint circle template. Both write block coordinates into an array, the old code created a Location per point on top of that.<br>
+ * This only measures the time to build an outline. The amount of packets per Torch is the amount of points, see the returned arrays:
+ * sampling always gives 360 points, the template gives one per block on the outline. That is 44 at radius 8, 180 at radius 32, 364 at radius 64 and 724 at radius 128,
+ * so the template sends fewer packets only below radius 64, and about twice as many at radius 128.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OutlineTemplatesBenchmark {
+	
+	@Param({ "8", "32", "128" })
+	public int radius;
+	
+	private final int torchX = 1000;
+	private final int torchZ = -2000;
+	
+	@Benchmark
+	public int[] sampledAngles() {
+		int[] result = new int[360 * 2];
+		for(int i = 0; i < 360; i++) {
+			double rad = i * ((2 * Math.PI) / 360);
+			result[i * 2] = (int) (this.torchX + (this.radius * Math.cos(rad)));
+			result[i * 2 + 1] = (int) (this.torchZ + (this.radius * Math.sin(rad)));
+		}
+		
+		return result;
+	}
+	
+	@Benchmark
+	public int[] cachedTemplate() {
+		int[] template = OutlineTemplates.getCircle(this.radius);
+		int[] result = new int[template.length];
+		for(int i = 0; i < template.length; i += 2) {
+			result[i] = this.torchX + template[i];
+			result[i + 1] = this.torchZ + template[i + 1];
+		}
+		
+		return result;
+	}
+}
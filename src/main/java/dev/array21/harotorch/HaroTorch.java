@@ -1,20 +1,37 @@
 package dev.array21.harotorch;
 
+import java.io.IOException;
+
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
-import org.bukkit.Particle;
-import org.bukkit.World;
-import org.bukkit.entity.Player;
+import org.bukkit.inventory.ShapedRecipe;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import net.md_5.bungee.api.ChatColor;
+import dev.array21.harotorch.api.HaroTorchService;
+import dev.array21.harotorch.api.TorchService;
 import dev.array21.harotorch.commands.TorchCommandExecutor;
 import dev.array21.harotorch.commands.TorchCommandTabCompleter;
 import dev.array21.harotorch.config.ConfigHandler;
 import dev.array21.harotorch.config.ConfigManifest;
+import dev.array21.harotorch.config.ConfigManifest.ProtectionIndicatorMode;
 import dev.array21.harotorch.events.*;
+import dev.array21.harotorch.annotations.Nullable;
+import dev.array21.harotorch.highlight.DisplayEntityBridge;
+import dev.array21.harotorch.highlight.HighlightSessionManager;
 import dev.array21.harotorch.lang.LangHandler;
+import dev.array21.harotorch.metrics.MetricsServer;
+import dev.array21.harotorch.nms.PacketBridge;
+import dev.array21.harotorch.nms.PacketBridgeException;
+import dev.array21.harotorch.particles.AmbientParticleTask;
+import dev.array21.harotorch.particles.AoeOutlineCache;
+import dev.array21.harotorch.particles.PacketScheduler;
+import dev.array21.harotorch.particles.ParticleThrottle;
+import dev.array21.harotorch.particles.TerrainSampler;
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.scheduler.TaskScheduler;
+import dev.array21.harotorch.scheduler.WorkerPool;
+import dev.array21.harotorch.torch.NearbyTorchCache;
 import dev.array21.harotorch.torch.Recipe;
 import dev.array21.harotorch.torch.TorchHandler;
 import dev.array21.harotorch.update.UpdateChecker;
@@ -24,13 +41,26 @@ public class HaroTorch extends JavaPlugin {
 	private static HaroTorch INSTANCE;
 	
 	private ConfigHandler configHandler;
+	private ParticleThrottle particleThrottle;
+	private PacketBridge packetBridge;
+	private AoeOutlineCache aoeOutlineCache;
+	private final TerrainSampler terrainSampler = new TerrainSampler();
+	private PacketScheduler packetScheduler;
+	private HighlightSessionManager highlightSessionManager;
+	private DisplayEntityBridge displayEntityBridge;
+	private WorkerPool workerPool;
+	private TaskScheduler taskScheduler;
+	private SpawnFilter spawnFilter;
+	private NearbyTorchCache nearbyTorchCache;
+	private ProtectionIndicator protectionIndicator;
+	private MetricsServer metricsServer;
 	
-	public static double RANGE;
-	public static final String NMS_VERSION = Bukkit.getServer().getClass().getPackage().getName().substring(23);
+	public static final String NMS_VERSION = getNmsVersion();
 	
 	@Override
 	public void onEnable() {
 		INSTANCE = this;
+		this.taskScheduler = TaskScheduler.create(this);
 		
 		new Thread(new Runnable() {
 			@Override
@@ -49,20 +79,54 @@ public class HaroTorch extends JavaPlugin {
 		
 		HaroTorch.logInfo(LangHandler.activeLang.getLangMessages().get("welcome"));
 		
-		RANGE = Math.pow(manifest.torchRange, 2);
+		//NMS packets
+		try {
+			this.packetBridge = new PacketBridge();
+		} catch(PacketBridgeException e) {
+			HaroTorch.logWarn("NMS version " + NMS_VERSION + " is not supported, /torch highlight and /torch aoe will be unavailable: " + e.getMessage());
+		}
+		
+		this.workerPool = new WorkerPool();
+		Profiler.setEnabled(manifest.isProfilerEnabled());
 		
 		//TorchHandler
 		TorchHandler torchHandler = new TorchHandler(this);
 		torchHandler.setup();
 		
+		this.aoeOutlineCache = new AoeOutlineCache();
+		TorchHandler.registerListener(this.aoeOutlineCache);
+		
+		this.highlightSessionManager = new HighlightSessionManager(this);
+		TorchHandler.registerListener(this.highlightSessionManager);
+		
+		this.nearbyTorchCache = new NearbyTorchCache(manifest.torchHighlightRange);
+		TorchHandler.registerListener(this.nearbyTorchCache);
+		
+		// Display outlines are sent as packets, like the highlight
+		if(this.packetBridge != null) {
+			try {
+				this.displayEntityBridge = new DisplayEntityBridge();
+			} catch(ReflectiveOperationException e) {
+				HaroTorch.logInfo("Display entities are not supported by this server version, /torch aoe display will use particles instead.");
+			}
+		}
+		
 		//Torch Recipe
 		Recipe recipe = new Recipe(this);
 		this.getServer().addRecipe(recipe.getTorchRecipe());
+		for(ShapedRecipe tierRecipe : recipe.getTierRecipes()) {
+			this.getServer().addRecipe(tierRecipe);
+		}
 		
 		//Minecraft events
 		Bukkit.getPluginManager().registerEvents(new BlockBreakEventListener(this), this);
 		Bukkit.getPluginManager().registerEvents(new BlockPlaceEventListener(this), this);
-		Bukkit.getPluginManager().registerEvents(new CreatureSpawnEventListener(this), this);
+		this.spawnFilter = new SpawnFilter(this);
+		this.taskScheduler.runTimer(this.spawnFilter::onTick, 1L, 1L);
+		Bukkit.getPluginManager().registerEvents(new CreatureSpawnEventListener(this.spawnFilter), this);
+		if(PreCreatureSpawnEventListener.register(this, this.spawnFilter)) {
+			HaroTorch.logInfo("Using Paper's PreCreatureSpawnEvent to block spawns before they happen.");
+		}
 		Bukkit.getPluginManager().registerEvents(new BlockFromToEventListener(), this);
 		Bukkit.getPluginManager().registerEvents(new BlockExplodeEventListener(), this);
 		Bukkit.getPluginManager().registerEvents(new EntityExplodeEventListener(), this);
@@ -72,39 +136,88 @@ public class HaroTorch extends JavaPlugin {
 		Bukkit.getPluginManager().registerEvents(new BlockPhysicsEventListener(this), this);
 		Bukkit.getPluginManager().registerEvents(new BlockBurnEventListener(), this);
 		Bukkit.getPluginManager().registerEvents(new BlockFadeEventListener(), this);
+		Bukkit.getPluginManager().registerEvents(new PlayerQuitEventListener(this), this);
+		Bukkit.getPluginManager().registerEvents(new PlayerChangedWorldEventListener(this), this);
+		Bukkit.getPluginManager().registerEvents(new WorldUnloadEventListener(this), this);
+		
+		ProtectionIndicatorMode indicatorMode = manifest.getProtectionIndicator();
+		if(indicatorMode != ProtectionIndicatorMode.NONE) {
+			this.protectionIndicator = new ProtectionIndicator(this, indicatorMode);
+			Bukkit.getPluginManager().registerEvents(new PlayerMoveEventListener(this.protectionIndicator), this);
+		}
 
+		//API for other plugins
+		this.getServer().getServicesManager().register(TorchService.class, new HaroTorchService(this), this, ServicePriority.Normal);
+		
 		//Commands
 		this.getCommand("torch").setExecutor(new TorchCommandExecutor(this));
 		this.getCommand("torch").setTabCompleter(new TorchCommandTabCompleter());
 		
 		//Scheduler for particles
+		this.particleThrottle = new ParticleThrottle(this);
+		this.taskScheduler.runTimer(this.particleThrottle, 1L, 1L);
+		
+		this.packetScheduler = new PacketScheduler(this);
+		this.taskScheduler.runTimer(this.packetScheduler, 1L, 1L);
+		
 		if(manifest.enableTorchParticles) {
-			new BukkitRunnable() {
-				
-				@Override
-				public void run() {
-					
-					for(Player p : Bukkit.getOnlinePlayers()) {		
-						for(Location l : TorchHandler.getTorchLocationsNearPlayer(p, 32)) {
-														
-							final World w = l.getWorld();
-							final double x = l.getBlockX() + 0.5D;
-							final double y = l.getBlockY() + 0.5D;
-							final double z = l.getBlockZ() + 0.5D;
-							
-							w.spawnParticle(Particle.DRAGON_BREATH, x, y, z, 2, 0D, 0D, 0D, 0.005);
-						}
-					}
-				}
-			}.runTaskTimer(this, 60L, 20L);
+			this.taskScheduler.runTimer(new AmbientParticleTask(this), 60L, 1L);
+		}
+		
+		//Metrics for Prometheus
+		int metricsPort = manifest.getMetricsPort();
+		if(metricsPort != 0) {
+			try {
+				this.metricsServer = new MetricsServer(this, manifest.getMetricsBindAddress(), metricsPort);
+				HaroTorch.logInfo("Serving metrics on http://" + this.metricsServer.getAddress() + "/metrics");
+			} catch(IOException | IllegalArgumentException e) {
+				HaroTorch.logWarn("Failed to start the metrics server on " + manifest.getMetricsBindAddress() + ":" + metricsPort + ": " + e.getMessage());
+			}
 		}
 	}
 	
 	@Override
 	public void onDisable() {
+		this.getServer().getServicesManager().unregisterAll(this);
+		
+		if(this.metricsServer != null) {
+			this.metricsServer.stop();
+		}
+		
+		if(this.highlightSessionManager != null) {
+			this.highlightSessionManager.clear();
+		}
+		
+		if(this.aoeOutlineCache != null) {
+			this.aoeOutlineCache.clear();
+		}
+		
+		if(this.protectionIndicator != null) {
+			this.protectionIndicator.clear();
+		}
+		
+		if(this.spawnFilter != null) {
+			this.spawnFilter.clear();
+		}
+		
+		this.terrainSampler.clear();
+		
+		if(this.workerPool != null) {
+			this.workerPool.shutdown();
+		}
+		
 		HaroTorch.logInfo("Thank you for using HaroTorch. Have a good day!");
 	}
 	
+	/**
+	 * Get the version part of the CraftBukkit package, e.g. v1_17_R1. Servers which no longer relocate CraftBukkit have no version in the package
+	 * @return The version, or an empty String if the package is not versioned
+	 */
+	private static String getNmsVersion() {
+		String pkg = Bukkit.getServer().getClass().getPackage().getName();
+		return (pkg.length() > 23) ? pkg.substring(23) : "";
+	}
+	
 	public static void logInfo(Object log) {
 		INSTANCE.getLogger().info(log.toString());
 	}
@@ -121,4 +234,74 @@ public class HaroTorch extends JavaPlugin {
 		return this.configHandler.getManifest();
 	}
 	
+	public ParticleThrottle getParticleThrottle() {
+		return this.particleThrottle;
+	}
+	
+	/**
+	 * Get the NMS packet bridge
+	 * @return Returns the PacketBridge, or null when the running server version is not supported
+	 */
+	@Nullable
+	public PacketBridge getPacketBridge() {
+		return this.packetBridge;
+	}
+	
+	public AoeOutlineCache getAoeOutlineCache() {
+		return this.aoeOutlineCache;
+	}
+	
+	public TerrainSampler getTerrainSampler() {
+		return this.terrainSampler;
+	}
+	
+	public PacketScheduler getPacketScheduler() {
+		return this.packetScheduler;
+	}
+	
+	public HighlightSessionManager getHighlightSessionManager() {
+		return this.highlightSessionManager;
+	}
+	
+	@Nullable
+	public DisplayEntityBridge getDisplayEntityBridge() {
+		return this.displayEntityBridge;
+	}
+	
+	public WorkerPool getWorkerPool() {
+		return this.workerPool;
+	}
+	
+	/**
+	 * Get the scheduler to run tasks on the main thread, or on the right region thread on Folia
+	 * @return The TaskScheduler
+	 */
+	public TaskScheduler getTaskScheduler() {
+		return this.taskScheduler;
+	}
+	
+	public SpawnFilter getSpawnFilter() {
+		return this.spawnFilter;
+	}
+	
+	public NearbyTorchCache getNearbyTorchCache() {
+		return this.nearbyTorchCache;
+	}
+	
+	/**
+	 * @return The ProtectionIndicator, or null when it is disabled in the config
+	 */
+	@Nullable
+	public ProtectionIndicator getProtectionIndicator() {
+		return this.protectionIndicator;
+	}
+	
+	/**
+	 * @return The MetricsServer, or null when it is disabled in the config or failed to start
+	 */
+	@Nullable
+	public MetricsServer getMetricsServer() {
+		return this.metricsServer;
+	}
+	
 }
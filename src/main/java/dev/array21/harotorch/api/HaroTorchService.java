@@ -0,0 +1,165 @@
+package dev.array21.harotorch.api;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.annotations.Nullable;
+import dev.array21.harotorch.events.SpawnFilter;
+import dev.array21.harotorch.torch.Torch;
+import dev.array21.harotorch.torch.TorchChange;
+import dev.array21.harotorch.torch.TorchHandler;
+import dev.array21.harotorch.torch.TorchSnapshot;
+
+/**
+ * The {@link TorchService} registered by HaroTorch
+ */
+public class HaroTorchService implements TorchService {
+	
+	private final HaroTorch plugin;
+	
+	public HaroTorchService(HaroTorch plugin) {
+		this.plugin = plugin;
+	}
+	
+	@Override
+	public boolean isProtected(Location location) {
+		World world = location.getWorld();
+		if(world == null) {
+			return false;
+		}
+		
+		return isProtected(world, location.getBlockX(), location.getBlockY(), location.getBlockZ());
+	}
+	
+	@Override
+	public boolean isProtected(World world, int x, int y, int z) {
+		return this.plugin.getSpawnFilter().isBlockCovered(TorchHandler.getSnapshot(), world.getName(), x, y, z);
+	}
+	
+	@Override
+	public BitSet isProtected(World world, long[] packedPositions) {
+		BitSet result = new BitSet(packedPositions.length);
+		isProtected(world, packedPositions, 0, packedPositions.length, result);
+		return result;
+	}
+	
+	@Override
+	public void isProtected(World world, long[] packedPositions, int offset, int length, BitSet out) {
+		final TorchSnapshot snapshot = TorchHandler.getSnapshot();
+		final String worldName = world.getName();
+		// One List per call, reused for every chunk. Not kept per thread, as the threads of the server would hold on to it after the plugin is disabled
+		final List<Torch> covering = new ArrayList<>();
+		final SpawnFilter filter = this.plugin.getSpawnFilter();
+		
+		// A chunk never spans two coverage cells, so the Torches which may reach into a chunk are looked up once for every run of positions in it
+		long lastChunk = 0;
+		boolean haveChunk = false;
+		
+		for(int i = offset; i < offset + length; i++) {
+			long packed = packedPositions[i];
+			int x = TorchChange.unpackX(packed);
+			int y = TorchChange.unpackY(packed);
+			int z = TorchChange.unpackZ(packed);
+			
+			long chunk = (((long) (x >> 4)) << 32) | ((z >> 4) & 0xFFFFFFFFL);
+			if(!haveChunk || chunk != lastChunk) {
+				covering.clear();
+				snapshot.getCovering(worldName, x & ~15, z & ~15, covering);
+				lastChunk = chunk;
+				haveChunk = true;
+			}
+			
+			out.set(i, !covering.isEmpty() && covers(filter, covering, x, y, z));
+		}
+	}
+	
+	@Override
+	@Nullable
+	public Torch getTorch(Location location) {
+		return TorchHandler.getTorch(location);
+	}
+	
+	@Override
+	public List<Torch> getTorchesNear(Location location, int radius) {
+		World world = location.getWorld();
+		if(world == null) {
+			return new ArrayList<>();
+		}
+		
+		return TorchHandler.getTorchesNear(world.getName(), location.getX(), location.getY(), location.getZ(), radius);
+	}
+	
+	@Override
+	public List<Torch> getTorchesCovering(Location location) {
+		World world = location.getWorld();
+		if(world == null) {
+			return new ArrayList<>();
+		}
+		
+		List<Torch> result = new ArrayList<>();
+		SpawnFilter filter = this.plugin.getSpawnFilter();
+		for(Torch t : getCovering(TorchHandler.getSnapshot(), world.getName(), location.getBlockX(), location.getBlockZ())) {
+			if(filter.isBlockCoveredBy(t, location.getBlockX(), location.getBlockY(), location.getBlockZ())) {
+				result.add(t);
+			}
+		}
+		
+		return result;
+	}
+	
+	@Override
+	public List<Torch> getTorchesOwnedBy(UUID owner) {
+		TorchSnapshot snapshot = TorchHandler.getSnapshot();
+		if(snapshot.getTorchCount(owner) == null) {
+			return new ArrayList<>();
+		}
+		
+		List<Torch> result = new ArrayList<>();
+		for(Torch t : snapshot.getTorches()) {
+			if(t.getTorchOwner().equals(owner)) {
+				result.add(t);
+			}
+		}
+		
+		return result;
+	}
+	
+	@Override
+	public int getTorchCount(UUID owner) {
+		Integer count = TorchHandler.getSnapshot().getTorchCount(owner);
+		return (count != null) ? count : 0;
+	}
+	
+	@Override
+	public long getEpoch() {
+		return TorchHandler.getSnapshot().getEpoch();
+	}
+	
+	@Override
+	@Nullable
+	public List<TorchChange> getChangesSince(long epoch) {
+		return TorchHandler.getJournal().getChangesSince(epoch);
+	}
+	
+	private static List<Torch> getCovering(TorchSnapshot snapshot, String worldName, int x, int z) {
+		List<Torch> result = new ArrayList<>();
+		snapshot.getCovering(worldName, x, z, result);
+		return result;
+	}
+	
+	private static boolean covers(SpawnFilter filter, List<Torch> candidates, int x, int y, int z) {
+		for(Torch t : candidates) {
+			if(filter.isBlockCoveredBy(t, x, y, z)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+}
@@ -0,0 +1,110 @@
+package dev.array21.harotorch.api;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import dev.array21.harotorch.annotations.Nullable;
+import dev.array21.harotorch.torch.Torch;
+import dev.array21.harotorch.torch.TorchChange;
+import dev.array21.harotorch.torch.TorchJournal;
+
+/**
+ * The API other plugins can use to query HaroTorches. Registered with Bukkit's ServicesManager while HaroTorch is enabled:
+ * <pre>
+ * TorchService torches = Bukkit.getServicesManager().load(TorchService.class);
+ * </pre>
+ * Every method reads from the current snapshot of the Torch registry, so they can be called from any thread.
+ * Coverage uses the same check as spawn blocking: the range of every Torch, and the configured shape and Y limits.
+ * Like spawns, a Location is judged by the block it is in.
+ */
+public interface TorchService {
+	
+	/**
+	 * Check if a Location is protected by a Torch
+	 * @param location The Location
+	 * @return True if a Torch covers the Location
+	 */
+	public boolean isProtected(Location location);
+	
+	/**
+	 * Check if a block is protected by a Torch
+	 * @param world The World
+	 * @param x The block X coordinate
+	 * @param y The block Y coordinate
+	 * @param z The block Z coordinate
+	 * @return True if a Torch covers the block
+	 */
+	public boolean isProtected(World world, int x, int y, int z);
+	
+	/**
+	 * Check which of many blocks are protected by a Torch. Positions which are next to each other in the array and in the same chunk share their lookup,
+	 * so sorting the positions by chunk makes this faster.
+	 * @param world The World of all positions
+	 * @param packedPositions The block positions, packed with {@link TorchChange#pack(int, int, int)}
+	 * @return A BitSet with bit i set if the i-th position is protected
+	 */
+	public BitSet isProtected(World world, long[] packedPositions);
+	
+	/**
+	 * Check which of many blocks are protected by a Torch, without allocating a result. See {@link #isProtected(World, long[])}
+	 * @param world The World of all positions
+	 * @param packedPositions The block positions, packed with {@link TorchChange#pack(int, int, int)}
+	 * @param offset The index of the first position to check
+	 * @param length The amount of positions to check
+	 * @param out Bit offset + i is set or cleared for the i-th checked position
+	 */
+	public void isProtected(World world, long[] packedPositions, int offset, int length, BitSet out);
+	
+	/**
+	 * Get the Torch at a Location
+	 * @param location The Location
+	 * @return The Torch, or null if there is none
+	 */
+	@Nullable
+	public Torch getTorch(Location location);
+	
+	/**
+	 * Get the Torches within a radius of a Location, using the configured shape
+	 * @param location The Location
+	 * @param radius The radius in blocks
+	 * @return The Torches. The List may be modified by the caller
+	 */
+	public List<Torch> getTorchesNear(Location location, int radius);
+	
+	/**
+	 * Get the Torches which cover a Location
+	 * @param location The Location
+	 * @return The Torches. The List may be modified by the caller
+	 */
+	public List<Torch> getTorchesCovering(Location location);
+	
+	/**
+	 * Get the Torches owned by a Player
+	 * @param owner The UUID of the Player
+	 * @return The Torches. The List may be modified by the caller
+	 */
+	public List<Torch> getTorchesOwnedBy(UUID owner);
+	
+	/**
+	 * @param owner The UUID of the Player
+	 * @return The amount of Torches owned by the Player
+	 */
+	public int getTorchCount(UUID owner);
+	
+	/**
+	 * @return The epoch of the Torch registry. It increases with every change
+	 */
+	public long getEpoch();
+	
+	/**
+	 * Get the changes made to the Torch registry after an epoch, oldest first. See {@link TorchJournal}
+	 * @param epoch The epoch the caller is up to date with
+	 * @return The changes. Null if some of them are no longer kept, in which case the caller has to rebuild
+	 */
+	@Nullable
+	public List<TorchChange> getChangesSince(long epoch);
+}
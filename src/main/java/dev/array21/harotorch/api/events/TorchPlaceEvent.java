@@ -0,0 +1,59 @@
+package dev.array21.harotorch.api.events;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import dev.array21.harotorch.torch.Torch;
+
+/**
+ * Called when a Player places a HaroTorch, after HaroTorch's own checks passed and before the Torch is registered.
+ * Cancelling it cancels placing the block
+ */
+public class TorchPlaceEvent extends Event implements Cancellable {
+	
+	private static final HandlerList HANDLERS = new HandlerList();
+	
+	private final Player player;
+	private final Torch torch;
+	private boolean cancelled = false;
+	
+	public TorchPlaceEvent(Player player, Torch torch) {
+		this.player = player;
+		this.torch = torch;
+	}
+	
+	/**
+	 * @return The Player placing the Torch
+	 */
+	public Player getPlayer() {
+		return this.player;
+	}
+	
+	/**
+	 * @return The Torch which will be registered
+	 */
+	public Torch getTorch() {
+		return this.torch;
+	}
+	
+	@Override
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+	
+	@Override
+	public void setCancelled(boolean cancel) {
+		this.cancelled = cancel;
+	}
+	
+	@Override
+	public HandlerList getHandlers() {
+		return HANDLERS;
+	}
+	
+	public static HandlerList getHandlerList() {
+		return HANDLERS;
+	}
+}
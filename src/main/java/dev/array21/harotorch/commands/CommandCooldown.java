@@ -6,11 +6,11 @@ import net.md_5.bungee.api.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
-import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 public class CommandCooldown {
-    public static boolean checkCommandCooldown(HaroTorch plugin, CommandSender sender, HashMap<UUID, Long> lastCommandTimestamps) {
+    public static boolean checkCommandCooldown(HaroTorch plugin, CommandSender sender, Map<UUID, Long> lastCommandTimestamps) {
         Integer commandCooldown = plugin.getConfigManifest().commandCooldown;
         if(commandCooldown != null && commandCooldown > 0) {
             Long lastCommandUseTimestamp = lastCommandTimestamps.get(((Player) sender).getUniqueId());
@@ -10,6 +10,9 @@ import dev.array21.harotorch.commands.torchSubCmds.GiveExecutor;
 import dev.array21.harotorch.commands.torchSubCmds.HelpExecutor;
 import dev.array21.harotorch.commands.torchSubCmds.HighlightAreaOfEffectExecutor;
 import dev.array21.harotorch.commands.torchSubCmds.HighlightExecutor;
+import dev.array21.harotorch.commands.torchSubCmds.ProfileExecutor;
+import dev.array21.harotorch.commands.torchSubCmds.StatusExecutor;
+import dev.array21.harotorch.commands.torchSubCmds.TraceExecutor;
 import dev.array21.harotorch.commands.torchSubCmds.VersionExecutor;
 import dev.array21.harotorch.lang.LangHandler;
 
@@ -27,6 +30,9 @@ public class TorchCommandExecutor implements CommandExecutor {
 		subCommands.put("give", new GiveExecutor());
 		subCommands.put("highlight", new HighlightExecutor());
 		subCommands.put("aoe", new HighlightAreaOfEffectExecutor());
+		subCommands.put("status", new StatusExecutor());
+		subCommands.put("profile", new ProfileExecutor());
+		subCommands.put("trace", new TraceExecutor());
 		this.subcommands = subCommands;
 	}
 	
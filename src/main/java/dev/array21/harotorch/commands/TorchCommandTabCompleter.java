@@ -7,6 +7,9 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 
+import dev.array21.harotorch.config.ConfigManifest.TorchTier;
+import dev.array21.harotorch.torch.TorchHandler;
+
 public class TorchCommandTabCompleter implements TabCompleter {
 
 	@Override
@@ -19,6 +22,50 @@ public class TorchCommandTabCompleter implements TabCompleter {
 			if(sender.hasPermission("harotorch.give")) result.add("give");
 			if(sender.hasPermission("harotorch.version")) result.add("version");
 			if(sender.hasPermission("harotorch.aoe")) result.add("aoe");
+			if(sender.hasPermission("harotorch.status")) result.add("status");
+			if(sender.hasPermission("harotorch.profile")) result.add("profile");
+			if(sender.hasPermission("harotorch.trace")) result.add("trace");
+			
+			return result;
+		}
+		
+		if(args.length == 2 && args[0].equals("aoe") && sender.hasPermission("harotorch.aoe")) {
+			List<String> result = new ArrayList<>();
+			result.add("individual");
+			result.add("union");
+			result.add("display");
+			
+			return result;
+		}
+		
+		if(args.length == 2 && args[0].equals("profile") && sender.hasPermission("harotorch.profile")) {
+			List<String> result = new ArrayList<>();
+			result.add("on");
+			result.add("off");
+			result.add("reset");
+			result.add("dump");
+			
+			return result;
+		}
+		
+		if(args.length == 2 && args[0].equals("trace") && sender.hasPermission("harotorch.trace")) {
+			List<String> result = new ArrayList<>();
+			result.add("on");
+			result.add("world");
+			result.add("area");
+			result.add("off");
+			result.add("sample");
+			result.add("clear");
+			result.add("dump");
+			
+			return result;
+		}
+		
+		if(args.length == 3 && args[0].equals("give") && sender.hasPermission("harotorch.give")) {
+			List<String> result = new ArrayList<>();
+			for(TorchTier tier : TorchHandler.getTiers()) {
+				result.add(tier.getName());
+			}
 			
 			return result;
 		}
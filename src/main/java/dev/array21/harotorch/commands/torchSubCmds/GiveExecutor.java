@@ -6,6 +6,7 @@ import org.bukkit.entity.Player;
 import net.md_5.bungee.api.ChatColor;
 import dev.array21.harotorch.HaroTorch;
 import dev.array21.harotorch.commands.SubCommand;
+import dev.array21.harotorch.config.ConfigManifest.TorchTier;
 import dev.array21.harotorch.lang.LangHandler;
 import dev.array21.harotorch.torch.TorchHandler;
 
@@ -39,7 +40,18 @@ public class GiveExecutor implements SubCommand {
 			return true;
 		}
 		
-		((Player) sender).getInventory().addItem(TorchHandler.getTorch(count));
+		if(args.length < 3) {
+			((Player) sender).getInventory().addItem(TorchHandler.getTorch(count));
+			return true;
+		}
+		
+		TorchTier tier = TorchHandler.getTier(args[2]);
+		if(tier == null) {
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("unknownTier").replaceAll("%TIER%", ChatColor.RED + args[2] + ChatColor.GOLD));
+			return true;
+		}
+		
+		((Player) sender).getInventory().addItem(TorchHandler.getTorch(count, tier));
 		
 		return true;
 	}
@@ -18,6 +18,18 @@ public class HelpExecutor implements SubCommand {
 		sender.sendMessage("- " + ChatColor.GOLD + "/torch version " + ChatColor.WHITE + LangHandler.activeLang.getLangMessages().get("helpVersion"));
 		sender.sendMessage("- " + ChatColor.GOLD + "/torch aoe " + ChatColor.WHITE + LangHandler.activeLang.getLangMessages().get("helpAoe"));
 		
+		if(sender.hasPermission("harotorch.status")) {
+			sender.sendMessage("- " + ChatColor.GOLD + "/torch status " + ChatColor.WHITE + LangHandler.activeLang.getLangMessages().get("helpStatus"));
+		}
+		
+		if(sender.hasPermission("harotorch.profile")) {
+			sender.sendMessage("- " + ChatColor.GOLD + "/torch profile " + ChatColor.WHITE + LangHandler.activeLang.getLangMessages().get("helpProfile"));
+		}
+		
+		if(sender.hasPermission("harotorch.trace")) {
+			sender.sendMessage("- " + ChatColor.GOLD + "/torch trace " + ChatColor.WHITE + LangHandler.activeLang.getLangMessages().get("helpTrace"));
+		}
+		
 		return true;
 	}
 }
@@ -1,16 +1,21 @@
 package dev.array21.harotorch.commands.torchSubCmds;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import dev.array21.harotorch.commands.CommandCooldown;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Color;
 import org.bukkit.Location;
 import org.bukkit.Particle;
@@ -19,349 +24,371 @@ import org.bukkit.Particle.DustOptions;
 import org.bukkit.World.Environment;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 
-
-import dev.array21.bukkitreflectionlib.ReflectionUtil;
 import net.md_5.bungee.api.ChatColor;
 import dev.array21.harotorch.HaroTorch;
 import dev.array21.harotorch.commands.SubCommand;
+import dev.array21.harotorch.config.ConfigManifest.AoeMode;
 import dev.array21.harotorch.config.ConfigManifest.TorchRangeShape;
+import dev.array21.harotorch.highlight.DisplayEntityBridge;
 import dev.array21.harotorch.lang.LangHandler;
+import dev.array21.harotorch.nms.PacketBridge;
+import dev.array21.harotorch.nms.PacketBridgeException;
+import dev.array21.harotorch.particles.AoeOutline;
+import dev.array21.harotorch.particles.AoeOutlineCache;
+import dev.array21.harotorch.particles.AoeViewCuller;
+import dev.array21.harotorch.particles.CoverageUnion;
+import dev.array21.harotorch.particles.OutlineTemplates;
+import dev.array21.harotorch.particles.ParticleThrottle;
+import dev.array21.harotorch.particles.TerrainSampler;
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
+import dev.array21.harotorch.scheduler.TaskHandle;
+import dev.array21.harotorch.torch.Torch;
 import dev.array21.harotorch.torch.TorchHandler;
 
-// ReflectionUtil.getNmsClass(String) is deprecated, kept for backwards compatibility with MC:1.16 and older.
-@SuppressWarnings("deprecation")
 public class HighlightAreaOfEffectExecutor implements SubCommand {
 
-	private static final ExecutorService POOL = Executors.newFixedThreadPool(3);
-	private final static HashMap<UUID, Long> lastCommandTimestamps = new HashMap<>();
-
-	private static Class<?> packetPlayOutWorldParticleClass;
-	private static Class<?> packetPlayOutWorldParticleInterfaceClass;
-	private static Class<?> craftPlayerClass;
-	private static Class<?> craftParticleClass;
-	private static Class<?> particleParamClass;
-
-	static {
-		try {
-			if(ReflectionUtil.isUseNewSpigotPackaging()) {
-				packetPlayOutWorldParticleClass = ReflectionUtil.getMinecraftClass("network.protocol.game.PacketPlayOutWorldParticles");
-			} else {
-				packetPlayOutWorldParticleClass = ReflectionUtil.getNmsClass("PacketPlayOutWorldParticles");
-			}
-
-			packetPlayOutWorldParticleInterfaceClass = packetPlayOutWorldParticleClass.getInterfaces()[0];
-
-			craftPlayerClass = ReflectionUtil.getBukkitClass("entity.CraftPlayer");
-			craftParticleClass = ReflectionUtil.getBukkitClass("CraftParticle");
-
-			if(ReflectionUtil.isUseNewSpigotPackaging()) {
-				particleParamClass = ReflectionUtil.getMinecraftClass("core.particles.ParticleParam");
-			} else {
-				particleParamClass = ReflectionUtil.getNmsClass("ParticleParam");
-			}
-		} catch(Exception e) {
-			e.printStackTrace();
-		}
-	}
+	private final static ConcurrentHashMap<UUID, Long> lastCommandTimestamps = new ConcurrentHashMap<>();
 	
 	public boolean run(HaroTorch plugin, CommandSender sender, String[] args) {
 
+		final PacketBridge bridge = plugin.getPacketBridge();
+		if(bridge == null) {
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.RED + LangHandler.activeLang.getLangMessages().get("highlightVersionNotSupported").replaceAll("%NMS_VERSION%", HaroTorch.NMS_VERSION));
+			return true;
+		}
+		
+		AoeMode mode = plugin.getConfigManifest().getTorchAoeMode();
+		if(args.length > 1) {
+			mode = AoeMode.fromString(args[1]);
+			if(mode == null) {
+				sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("aoeInvalidMode").replaceAll("%MODE%", ChatColor.RED + args[1] + ChatColor.GOLD));
+				return true;
+			}
+		}
+		
 		if (CommandCooldown.checkCommandCooldown(plugin, sender, lastCommandTimestamps)) return true;
 
+		// Display entities stay visible on their own, so nothing has to be refreshed. Without them, fall back to particles
+		if(mode == AoeMode.DISPLAY) {
+			DisplayEntityBridge displayBridge = plugin.getDisplayEntityBridge();
+			if(displayBridge != null && plugin.getHighlightSessionManager().startDisplaySession((Player) sender, displayBridge, plugin.getConfigManifest().torchHighlightRange, 30L * 20L, () -> {
+				sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("endingAoe"));
+			})) {
+				String msg = LangHandler.activeLang.getLangMessages().get("startingAoe").replaceAll("%SECONDS%", ChatColor.RED + String.valueOf(plugin.getConfigManifest().torchHighlightTime) + ChatColor.GOLD);
+				sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + msg);
+				return true;
+			}
+			
+			mode = AoeMode.INDIVIDUAL;
+		}
+		
 		String msg = LangHandler.activeLang.getLangMessages().get("startingAoe").replaceAll("%SECONDS%", ChatColor.RED + String.valueOf(plugin.getConfigManifest().torchHighlightTime) + ChatColor.GOLD);
 		sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + msg);
 		
-		List<Location> nearbyTorches = TorchHandler.getTorchLocationsNearPlayer((Player) sender, plugin.getConfigManifest().torchHighlightRange);
+		List<Torch> nearbyTorches = TorchHandler.getTorchesNearPlayer((Player) sender, plugin.getConfigManifest().torchHighlightRange);
 		
-		List<Future<TorchParticleObject>> torchParticlesFut;
-		if(plugin.getConfigManifest().getTorchRangeShape() == TorchRangeShape.CIRCLE) {
-			torchParticlesFut = getParticlesCircular(nearbyTorches, plugin);
-		} else {
-			torchParticlesFut = getParticlesSquare(nearbyTorches, plugin);
-		}
+		final TorchRangeShape shape = plugin.getConfigManifest().getTorchRangeShape();
+		final int height = plugin.getConfigManifest().torchAoeParticleHeight;
 		
-		List<TorchParticleObject> torchParticles = new ArrayList<>();
-		torchParticlesFut.forEach(fut -> {
-			try {
-				torchParticles.add(fut.get());
-			} catch(ExecutionException | InterruptedException e) {
-				HaroTorch.logWarn("Failed to compute AOE Particles: " + e.getMessage());
-				e.printStackTrace(System.err);
+		final List<Future<AoeOutline>> pending = new ArrayList<>();
+		try {
+			if(mode == AoeMode.UNION) {
+				pending.add(getUnionOutline(plugin, bridge, (Player) sender, nearbyTorches, shape, height));
+			} else {
+				pending.addAll(getIndividualOutlines(plugin, bridge, nearbyTorches, shape, height));
 			}
-		});
+		} catch(RejectedExecutionException e) {
+			// Outlines which were submitted before the pool filled up are still shown
+			HaroTorch.logWarn("Not all AOE outlines could be computed: " + e.getMessage());
+		}
 		
-		final BukkitTask particle = new BukkitRunnable() {
+		final List<AoeOutline> outlines = new ArrayList<>();
+		final ParticleThrottle throttle = plugin.getParticleThrottle();
+		final AoeViewCuller culler = new AoeViewCuller(plugin.getConfigManifest().getTorchAoeViewDistance());
+		final TaskHandle particle = plugin.getTaskScheduler().runTimerFor((Player) sender, new Runnable() {
+			
+			private int refreshes = 0;
+			
 			@Override
 			public void run() {
-				for(TorchParticleObject torchParticle : torchParticles) {
-				
-					final Location torchLoc = torchParticle.getTorch();
-					
-					List<Object> particlePackets = new ArrayList<>();
-					particlePackets.add(getParticlePacket(torchLoc.getX() + 0.5d, torchLoc.getY() + 1.5d, torchLoc.getZ() + 0.5d, 0f, 0f, 0f, 0.005f, 10, false, new Particle.DustOptions(torchParticle.getTorchParticleColor(), 1)));
-					
-					for(Location l : torchParticle.getCircleLocations()) {	
-						
-						for(int i = 0; i < plugin.getConfigManifest().torchAoeParticleHeight; i++) {
-							particlePackets.add(getParticlePacket(l.getX() + 0.5d, l.getY() + 0.5d + i, l.getZ() + 0.5d, 0f, 0f, 0f, 0.005f, 5, false, new Particle.DustOptions(torchParticle.getTorchParticleColor(), 1)));
-						}
-						
-						if(torchLoc.getWorld().getEnvironment() == Environment.NETHER) {
-							for(int i = 1; i < plugin.getConfigManifest().torchAoeParticleHeight -1; i++) {
-								particlePackets.add(getParticlePacket(l.getX() + 0.5d, l.getY() + 0.5d - i, l.getZ() + 0.5d, 0f, 0f, 0f, 0.005f, 5, false, new Particle.DustOptions(torchParticle.getTorchParticleColor(), 1)));
-							}
-						}
+				long start = Profiler.start();
+				try {
+					refresh();
+				} finally {
+					Profiler.stop(ProfilerProbe.AOE_RENDER, start);
+				}
+			}
+			
+			private void refresh() {
+				// Outlines are built in the background, pick up the ones which have finished since the last refresh
+				for(Iterator<Future<AoeOutline>> it = pending.iterator(); it.hasNext();) {
+					Future<AoeOutline> fut = it.next();
+					if(!fut.isDone()) {
+						continue;
 					}
 					
-					spawnParticles(particlePackets, (Player) sender);
-				}	
+					it.remove();
+					try {
+						outlines.add(fut.get());
+					} catch(ExecutionException | InterruptedException | CancellationException e) {
+						HaroTorch.logWarn("Failed to compute AOE Particles: " + e.getMessage());
+						e.printStackTrace(System.err);
+					}
+				}
+				
+				// Under load, only every 2nd, 4th or 8th refresh is sent
+				if(this.refreshes++ % throttle.scalePeriod(1) != 0) {
+					return;
+				}
+				
+				final int rows = throttle.scaleAmount(height);
+				final int stride = throttle.getStride();
+				
+				List<Object> particlePackets = culler.getPackets(((Player) sender).getLocation(), outlines, stride, rows);
+				plugin.getPacketScheduler().submit((Player) sender, particlePackets);
 			}
 			
-		}.runTaskTimer(plugin, 60L, 10L);
+		}, null, 60L, 10L);
 		
-		new BukkitRunnable() {
-			
-			@Override
-			public void run() {
+		plugin.getTaskScheduler().runLater(() -> {
+			if(particle != null) {
 				particle.cancel();
-				sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("endingAoe"));
 			}
-		}.runTaskLater(plugin, 30L * 20L);
+			
+			pending.forEach(fut -> fut.cancel(false));
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("endingAoe"));
+		}, 30L * 20L);
 		
 		return true;
 	}
-
+	
 	/**
-	 * Get all TorchParticleObject's in a square range
-	 * @param nearbyTorches Locations of the Torches
-	 * @param plugin HaroTorch instance
+	 * Get the outline of every Torch separately. Outlines are shared with other Players through the {@link AoeOutlineCache}
+	 * @param plugin The HaroTorch instance
+	 * @param bridge The PacketBridge to create the packets with
+	 * @param nearbyTorches The Torches, each outlined at its own range
+	 * @param shape The shape of the range
+	 * @param height How many rows of particles should be built
 	 * @return
 	 */
-	public List<Future<TorchParticleObject>> getParticlesSquare(List<Location> nearbyTorches, HaroTorch plugin) {
-		List<Future<TorchParticleObject>> result = new ArrayList<>();
-		final int range = plugin.getConfigManifest().torchRange;
-
-		for(Location lTorch : nearbyTorches) {
-			Callable<TorchParticleObject> c = () -> {
-				List<Location> locs = new ArrayList<>();
-
-				Location xNeg = lTorch.clone();
-				xNeg.setX(lTorch.getX() - range);
-				locs.add(xNeg);
-
-				Location xPos = lTorch.clone();
-				xPos.setX(xPos.getX() + range);
-				locs.add(xPos);
-
-				Location zNeg = lTorch.clone();
-				zNeg.setZ(lTorch.getZ() - range);
-				locs.add(zNeg);
-
-				Location zPos = lTorch.clone();
-				zPos.setZ(lTorch.getZ() + range);
-				locs.add(zPos);
-
-				// xNeg +
-				for(int i = 1; i <= range; i++) {
-					Location l = xNeg.clone();
-					l.setZ(xNeg.getZ() + i);
-					locs.add(l);
-				}
-
-				// xNeg -
-				for(int i = -1; i >= -range; i--) {
-					Location l = xNeg.clone();
-					l.setZ(xNeg.getZ() + i);
-					locs.add(l);
-				}
-
-				// xPos +
-				for(int i = 1; i <= range; i++) {
-					Location l = xPos.clone();
-					l.setZ(xPos.getZ() + i);
-					locs.add(l);
-				}
-
-				// xPos -
-				for(int i = -1; i >= -range; i--) {
-					Location l = xPos.clone();
-					l.setZ(xPos.getZ() + i);
-					locs.add(l);
-				}
-
-				// zNeg +
-				for(int i = 1; i <= range; i++) {
-					Location l = zNeg.clone();
-					l.setX(zNeg.getX() + i);
-					locs.add(l);
-				}
-
-				// zNeg -
-				for(int i = -1; i >= -range; i--) {
-					Location l = zNeg.clone();
-					l.setX(zNeg.getX() + i);
-					locs.add(l);
-				}
-
-				// zPos +
-				for(int i = 1; i <= range; i++) {
-					Location l = zPos.clone();
-					l.setX(zPos.getX() + i);
-					locs.add(l);
-				}
-
-				// zPos -
-				for(int i = -1; i >= -range; i--) {
-					Location l = zPos.clone();
-					l.setX(zPos.getX() + i);
-					locs.add(l);
-				}
-
-				final int r = (int) (Math.random() * 256D);
-				final int g = (int) (Math.random() * 256D);
-				final int b = (int) (Math.random() * 256D);
-				return new TorchParticleObject(r, g, b, locs, lTorch);
-			};
+	private List<Future<AoeOutline>> getIndividualOutlines(HaroTorch plugin, PacketBridge bridge, List<Torch> nearbyTorches, TorchRangeShape shape, int height) {
+		AoeOutlineCache cache = plugin.getAoeOutlineCache();
+		List<Future<AoeOutline>> result = new ArrayList<>();
 		
-			Future<TorchParticleObject> fut = POOL.submit(c);
-			result.add(fut);
+		for(Torch t : nearbyTorches) {
+			Location l = t.getLocation();
+			//Issue #9
+			if(l.getWorld() == null) {
+				continue;
+			}
+			
+			// Workers only get copies of what they need, never the Location itself
+			final int range = t.getRange();
+			final int torchX = l.getBlockX();
+			final int torchY = l.getBlockY();
+			final int torchZ = l.getBlockZ();
+			
+			AoeOutlineCache.Key key = new AoeOutlineCache.Key(l.getWorld().getName(), torchX, torchY, torchZ, range, shape);
+			Future<AoeOutline> cached = cache.getIfPresent(key);
+			if(cached != null) {
+				result.add(cached);
+				continue;
+			}
+			
+			List<Location> outline = shape.isRound() ? getParticlesCircular(l, l.getBlockY(), range) : getParticlesSquare(l, range);
+			final int[] xs = new int[outline.size()];
+			final int[] zs = new int[outline.size()];
+			for(int i = 0; i < outline.size(); i++) {
+				xs[i] = outline.get(i).getBlockX();
+				zs[i] = outline.get(i).getBlockZ();
+			}
+			
+			// Snapshots have to be taken on the main thread, sampling them happens in the background.
+			// Square and three dimensional ranges stay at the height of the Torch
+			final Map<Long, ChunkSnapshot> snapshots = (shape == TorchRangeShape.CIRCLE) ? plugin.getTerrainSampler().snapshot(l.getWorld(), xs, zs) : Collections.emptyMap();
+			final boolean nether = l.getWorld().getEnvironment() == Environment.NETHER;
+			
+			result.add(cache.get(key, () -> {
+				int[] ys = new int[xs.length];
+				for(int i = 0; i < xs.length; i++) {
+					ys[i] = TerrainSampler.getHighestBlockYAt(snapshots, xs[i], zs[i], torchY);
+				}
+				
+				Object nmsParticle = getRandomParticle(bridge);
+				Object[] centerPackets = new Object[] { getCenterPacket(bridge, nmsParticle, torchX, torchY, torchZ) };
+				return buildOutline(bridge, nmsParticle, centerPackets, new int[] { torchX }, new int[] { torchZ }, xs, ys, zs, height, nether);
+			}, plugin.getWorkerPool()));
 		}
 		
 		return result;
 	}
 	
 	/**
-	 * Get all TorchParticleObjects in a circular range
-	 * @param nearbyTorches Locations of the Torches
-	 * @param plugin HaroTorch instance
+	 * Get a single outline around the area covered by all Torches together, see {@link CoverageUnion}
+	 * @param plugin The HaroTorch instance
+	 * @param bridge The PacketBridge to create the packets with
+	 * @param viewer The Player the outline is for. The Torches are in the Player's World
+	 * @param nearbyTorches The Torches, each covering its own range
+	 * @param shape The shape of the range
+	 * @param height How many rows of particles should be built
 	 * @return
 	 */
-	public List<Future<TorchParticleObject>> getParticlesCircular(List<Location> nearbyTorches, HaroTorch plugin) {
-		List<Future<TorchParticleObject>> res = new ArrayList<>();
+	private Future<AoeOutline> getUnionOutline(HaroTorch plugin, PacketBridge bridge, Player viewer, List<Torch> nearbyTorches, TorchRangeShape shape, int height) {
+		final World world = viewer.getWorld();
+		final int[] torchXs = new int[nearbyTorches.size()];
+		final int[] torchYs = new int[nearbyTorches.size()];
+		final int[] torchZs = new int[nearbyTorches.size()];
+		final int[] torchRanges = new int[nearbyTorches.size()];
+		for(int i = 0; i < nearbyTorches.size(); i++) {
+			Torch t = nearbyTorches.get(i);
+			torchXs[i] = t.getBlockX();
+			torchYs[i] = t.getBlockY();
+			torchZs[i] = t.getBlockZ();
+			torchRanges[i] = t.getRange();
+		}
+		
+		final boolean circle = shape.isRound();
+		final boolean followTerrain = shape == TorchRangeShape.CIRCLE;
+		final boolean nether = world.getEnvironment() == Environment.NETHER;
 		
-		for(Location l : nearbyTorches) {
-			final int y = l.getWorld().getHighestBlockYAt(l);
+		// Consecutive x, z and owning Torch arrays
+		CompletableFuture<int[][]> boundaryFuture = CompletableFuture.supplyAsync(() -> {
+			int[] boundary = CoverageUnion.computeBoundary(torchXs, torchZs, torchRanges, circle);
+			if(boundary == null) {
+				throw new IllegalStateException("The area covered by the nearby Torches is too large to compute its outline");
+			}
 			
-			Callable<TorchParticleObject> callable = () -> {
-				final List<Location> blocksOnTorchRadius = new ArrayList<>();
-
-				final int radius = plugin.getConfigManifest().torchRange;
-				final int cx = l.getBlockX();
-				final int cz = l.getBlockZ();
-				final World w = l.getWorld();
-
-				for(int i = 0; i < 360; i++) {
-
-					final double rad = i * ((2 * Math.PI)/360);
-
-					final int x = (int) (cx + (radius * Math.cos(rad)));
-					final int z = (int) (cz + (radius * Math.sin(rad)));
-					blocksOnTorchRadius.add(new Location(w, x, y, z));
-				}
-
-				final int r = (int) (Math.random() * 256D);
-				final int g = (int) (Math.random() * 256D);
-				final int b = (int) (Math.random() * 256D);
-
-				return new TorchParticleObject(r, g, b, blocksOnTorchRadius, l);
-			};
+			int points = boundary.length / 3;
+			int[][] result = new int[3][points];
+			for(int i = 0; i < points; i++) {
+				result[0][i] = boundary[i * 3];
+				result[1][i] = boundary[i * 3 + 1];
+				result[2][i] = boundary[i * 3 + 2];
+			}
 			
-			Future<TorchParticleObject> fut = POOL.submit(callable);
-			res.add(fut);
-		}
+			return result;
+		}, plugin.getWorkerPool());
+		
+		// Which chunks are needed is only known once the boundary is computed, so snapshotting them is handed back to the main thread in between.
+		// On Folia that is the region thread of the Player, which owns the chunks around the Player
+		// Square and three dimensional ranges stay at the height of the Torches
+		CompletableFuture<Map<Long, ChunkSnapshot>> snapshotFuture = followTerrain
+				? boundaryFuture.thenApplyAsync(boundary -> plugin.getTerrainSampler().snapshot(world, boundary[0], boundary[1]), plugin.getTaskScheduler().forEntity(viewer))
+				: CompletableFuture.completedFuture(Collections.emptyMap());
 		
-		return res;
+		return boundaryFuture.thenCombineAsync(snapshotFuture, (boundary, snapshots) -> {
+			int[] xs = boundary[0];
+			int[] zs = boundary[1];
+			int[] ys = new int[xs.length];
+			for(int i = 0; i < xs.length; i++) {
+				ys[i] = TerrainSampler.getHighestBlockYAt(snapshots, xs[i], zs[i], torchYs[boundary[2][i]]);
+			}
+			
+			try {
+				Object nmsParticle = getRandomParticle(bridge);
+				Object[] centerPackets = new Object[torchXs.length];
+				for(int i = 0; i < torchXs.length; i++) {
+					centerPackets[i] = getCenterPacket(bridge, nmsParticle, torchXs[i], torchYs[i], torchZs[i]);
+				}
+				
+				return buildOutline(bridge, nmsParticle, centerPackets, torchXs, torchZs, xs, ys, zs, height, nether);
+			} catch(PacketBridgeException e) {
+				throw new CompletionException(e);
+			}
+		}, plugin.getWorkerPool());
 	}
 	
 	/**
-	 * Create a PacketPlayOutWorldParticle packet for Redstone particles
-	 * @param pX The X position of the particle
-	 * @param pY The Y position of the particle
-	 * @param pZ The Z position of the particle
-	 * @param oX The X offset of the particle
-	 * @param oY The Y offset of the particle
-	 * @param oZ The Z offset of the particle
-	 * @param extra Extra data for the particle. Unknown what this does. 0.005f seems to work
-	 * @param count The amount of particles to spawn
-	 * @param force Unknown what this does. False seems to work
-	 * @param dustOptions DustOptions for the particle
-	 * @return
+	 * Get a redstone particle with a random color
+	 * @param bridge The PacketBridge to convert the particle with
+	 * @return The NMS particle
+	 * @throws PacketBridgeException If the conversion failed
 	 */
-	private Object getParticlePacket(double pX, double pY, double pZ, float oX, float oY, float oZ, float extra, int count, boolean force, DustOptions dustOptions) {
-		try {
-			Object nmsParticleData = particleDataToNms(Particle.REDSTONE, dustOptions);			
-			Object particlePacket = ReflectionUtil.invokeConstructor(packetPlayOutWorldParticleClass, 
-					new Class<?>[] { particleParamClass, boolean.class, double.class, double.class, double.class, float.class, float.class, float.class, float.class, int.class}, 
-					new Object[] { nmsParticleData, force, pX, pY, pZ, oX, oY, oZ, extra, count });
-			
-			return particlePacket;
-		} catch(Exception e) {
-			e.printStackTrace();
-			return null;
-		}
+	private Object getRandomParticle(PacketBridge bridge) throws PacketBridgeException {
+		final int r = (int) (Math.random() * 256D);
+		final int g = (int) (Math.random() * 256D);
+		final int b = (int) (Math.random() * 256D);
+		return bridge.toNmsParticle(Particle.REDSTONE, new DustOptions(Color.fromRGB(r, g, b), 1));
 	}
 	
-	private void spawnParticles(List<Object> particlePackets, Player player) {
-		try {
-			Object entityPlayerObject = ReflectionUtil.invokeMethod(craftPlayerClass, player, "getHandle");
-			Object playerConnectionObject;
-			if(ReflectionUtil.isUseNewSpigotPackaging()) {
-				playerConnectionObject = ReflectionUtil.getObject(entityPlayerObject, "b");
-			} else {
-				playerConnectionObject = ReflectionUtil.getObject(entityPlayerObject, "playerConnection");
-			}		
-			for(Object packet : particlePackets) {
-				if(ReflectionUtil.getMajorVersion() >= 18) {
-					ReflectionUtil.invokeMethod(playerConnectionObject, "a",
-							new Class<?>[] { packetPlayOutWorldParticleInterfaceClass },
-							new Object[] { packet });
-				} else {
-					ReflectionUtil.invokeMethod(playerConnectionObject, "sendPacket",
-							new Class<?>[] { packetPlayOutWorldParticleInterfaceClass },
-							new Object[] { packet });
-				}
+	/**
+	 * Get the packet marking a Torch itself
+	 */
+	private Object getCenterPacket(PacketBridge bridge, Object nmsParticle, int x, int y, int z) throws PacketBridgeException {
+		return bridge.createParticlePacket(nmsParticle, false, x + 0.5d, y + 1.5d, z + 0.5d, 0f, 0f, 0f, 0.005f, 10);
+	}
+	
+	/**
+	 * Build the packets for an outline
+	 * @param bridge The PacketBridge to create the packets with
+	 * @param nmsParticle The particle to use
+	 * @param centerPackets The packets marking the Torches
+	 * @param centerXs The X coordinates of the Torches
+	 * @param centerZs The Z coordinates of the Torches
+	 * @param xs The X coordinates of the outline
+	 * @param ys The Y coordinates of the outline
+	 * @param zs The Z coordinates of the outline
+	 * @param height How many rows of particles should be built
+	 * @param nether Whether rows below the outline should be built as well
+	 * @return The outline
+	 * @throws PacketBridgeException If creating a packet failed
+	 */
+	private AoeOutline buildOutline(PacketBridge bridge, Object nmsParticle, Object[] centerPackets, int[] centerXs, int[] centerZs, int[] xs, int[] ys, int[] zs, int height, boolean nether) throws PacketBridgeException {
+		Object[][] rowsUp = new Object[xs.length][];
+		Object[][] rowsDown = new Object[xs.length][];
+		for(int p = 0; p < xs.length; p++) {
+			rowsUp[p] = new Object[Math.max(0, height)];
+			for(int i = 0; i < height; i++) {
+				rowsUp[p][i] = bridge.createParticlePacket(nmsParticle, false, xs[p] + 0.5d, ys[p] + 0.5d + i, zs[p] + 0.5d, 0f, 0f, 0f, 0.005f, 5);
+			}
+			
+			rowsDown[p] = new Object[nether ? Math.max(0, height - 2) : 0];
+			for(int i = 1; i <= rowsDown[p].length; i++) {
+				rowsDown[p][i - 1] = bridge.createParticlePacket(nmsParticle, false, xs[p] + 0.5d, ys[p] + 0.5d - i, zs[p] + 0.5d, 0f, 0f, 0f, 0.005f, 5);
 			}
-		} catch(Exception e) {
-			e.printStackTrace();
 		}
+		
+		return new AoeOutline(centerPackets, centerXs, centerZs, xs, zs, rowsUp, rowsDown);
+	}
+
+	/**
+	 * Get all Locations on the outline of a square range
+	 * @param lTorch Location of the Torch
+	 * @param range The range of the Torch
+	 * @return
+	 */
+	public List<Location> getParticlesSquare(Location lTorch, int range) {
+		return translate(OutlineTemplates.getSquare(range), lTorch.getWorld(), lTorch.getBlockX(), lTorch.getBlockY(), lTorch.getBlockZ());
 	}
 	
-	private Object particleDataToNms(Particle a, DustOptions b) {
-		try {
-			Object dataAsNMS = ReflectionUtil.invokeMethod(craftParticleClass, null, "toNMS", new Class<?>[] { Particle.class, Object.class}, new Object[] {a, b});
-			return dataAsNMS;
-		} catch(Exception e) {
-			e.printStackTrace();
-			return null;
-		}
+	/**
+	 * Get all Locations on the outline of a circular range
+	 * @param l Location of the Torch
+	 * @param y The Y coordinate to put the outline at
+	 * @param radius The range of the Torch
+	 * @return
+	 */
+	public List<Location> getParticlesCircular(Location l, int y, int radius) {
+		return translate(OutlineTemplates.getCircle(radius), l.getWorld(), l.getBlockX(), y, l.getBlockZ());
 	}
 	
-	private class TorchParticleObject {
-		
-		private Color particleColor;
-		private List<Location> circleLocations;
-		private Location torch;
-		
-		public TorchParticleObject(int r, int g, int b, List<Location> circleLocations, Location torch) {
-			this.particleColor = Color.fromRGB(r, g, b);
-			this.circleLocations = circleLocations;
-			this.torch = torch;
-		}
-		
-		public Color getTorchParticleColor() {
-			return this.particleColor;
-		}
-		
-		public List<Location> getCircleLocations() {
-			return this.circleLocations;
+	/**
+	 * Translate an outline template to the position of a Torch
+	 * @param template The template, see {@link OutlineTemplates}
+	 * @param w The World of the Torch
+	 * @param cx The X coordinate of the Torch
+	 * @param y The Y coordinate to put the outline at
+	 * @param cz The Z coordinate of the Torch
+	 * @return
+	 */
+	private List<Location> translate(int[] template, World w, int cx, int y, int cz) {
+		List<Location> result = new ArrayList<>(template.length / 2);
+		for(int i = 0; i < template.length; i += 2) {
+			result.add(new Location(w, cx + template[i], y, cz + template[i + 1]));
 		}
 		
-		public Location getTorch() {
-			return this.torch;
-		}
+		return result;
 	}
-	
 }
@@ -0,0 +1,115 @@
+package dev.array21.harotorch.commands.torchSubCmds;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.commands.SubCommand;
+import dev.array21.harotorch.lang.LangHandler;
+import dev.array21.harotorch.profiler.LatencyHistogram;
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
+
+/**
+ * /torch profile [on|off|reset|dump]
+ */
+public class ProfileExecutor implements SubCommand {
+	
+	public boolean run(HaroTorch plugin, CommandSender sender, String[] args) {
+		String action = (args.length >= 2) ? args[1].toLowerCase() : "show";
+		
+		switch(action) {
+		case "on":
+			Profiler.setEnabled(true);
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("profileEnabled"));
+			return true;
+		case "off":
+			Profiler.setEnabled(false);
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("profileDisabled"));
+			return true;
+		case "reset":
+			Profiler.reset();
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("profileReset"));
+			return true;
+		case "dump":
+			dump(plugin, sender);
+			return true;
+		case "show":
+			break;
+		default:
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.RED + LangHandler.activeLang.getLangMessages().get("profileUsage"));
+			return true;
+		}
+		
+		double seconds = Profiler.getSecondsSinceReset();
+		String state = LangHandler.activeLang.getLangMessages().get(Profiler.isEnabled() ? "profileStateEnabled" : "profileStateDisabled");
+		String header = LangHandler.activeLang.getLangMessages().get("profileHeader")
+				.replace("%STATE%", ChatColor.RED + state + ChatColor.GOLD)
+				.replace("%SECONDS%", ChatColor.RED + String.format("%.0f", seconds) + ChatColor.GOLD);
+		sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + header);
+		
+		boolean any = false;
+		for(ProfilerProbe probe : ProfilerProbe.values()) {
+			LatencyHistogram histogram = Profiler.getHistogram(probe);
+			long count = histogram.getCount();
+			if(count == 0) {
+				continue;
+			}
+			
+			any = true;
+			String line = LangHandler.activeLang.getLangMessages().get("profileProbe")
+					.replace("%PROBE%", probe.getDisplayName())
+					.replace("%RATE%", ChatColor.RED + String.format("%.1f", count / Math.max(seconds, 0.001d)) + ChatColor.GOLD)
+					.replace("%P50%", ChatColor.RED + formatNanos(histogram.getPercentile(50)) + ChatColor.GOLD)
+					.replace("%P99%", ChatColor.RED + formatNanos(histogram.getPercentile(99)) + ChatColor.GOLD)
+					.replace("%MAX%", ChatColor.RED + formatNanos(histogram.getMax()) + ChatColor.GOLD);
+			sender.sendMessage("- " + ChatColor.GOLD + line);
+		}
+		
+		if(!any) {
+			sender.sendMessage("- " + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get(Profiler.isEnabled() ? "profileNothingRecorded" : "profileStartHint"));
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Write the profiler data in the background, and tell the sender where it went once it is written
+	 */
+	private static void dump(HaroTorch plugin, CommandSender sender) {
+		final File directory = new File(plugin.getDataFolder(), "profiles");
+		try {
+			CompletableFuture.supplyAsync(() -> {
+				try {
+					File file = Profiler.dump(directory);
+					return HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("profileDumped").replace("%FILE%", ChatColor.RED + file.getPath() + ChatColor.GOLD);
+				} catch(IOException e) {
+					return dumpFailed(e);
+				}
+			}, plugin.getWorkerPool()).thenAcceptAsync(sender::sendMessage, plugin.getTaskScheduler().forSender(sender));
+		} catch(RejectedExecutionException e) {
+			sender.sendMessage(dumpFailed(e));
+		}
+	}
+	
+	private static String dumpFailed(Exception e) {
+		return HaroTorch.getMessagePrefix() + ChatColor.RED + LangHandler.activeLang.getLangMessages().get("profileDumpFailed").replace("%ERROR%", String.valueOf(e.getMessage()));
+	}
+	
+	private static String formatNanos(long nanos) {
+		if(nanos < 1_000L) {
+			return nanos + "ns";
+		}
+		
+		if(nanos < 1_000_000L) {
+			return String.format("%.1fus", nanos / 1_000d);
+		}
+		
+		return String.format("%.2fms", nanos / 1_000_000d);
+	}
+}
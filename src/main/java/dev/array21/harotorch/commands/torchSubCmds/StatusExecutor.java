@@ -0,0 +1,97 @@
+package dev.array21.harotorch.commands.torchSubCmds;
+
+import java.util.List;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.commands.SubCommand;
+import dev.array21.harotorch.events.SpawnFilter;
+import dev.array21.harotorch.lang.LangHandler;
+import dev.array21.harotorch.metrics.MetricsServer;
+import dev.array21.harotorch.particles.PacketScheduler;
+import dev.array21.harotorch.particles.ParticleThrottle;
+import dev.array21.harotorch.scheduler.WorkerPool;
+import dev.array21.harotorch.torch.NearbyTorchCache;
+import dev.array21.harotorch.torch.TorchHandler;
+import dev.array21.harotorch.torch.TorchJournal;
+import dev.array21.harotorch.torch.TorchSnapshot;
+
+public class StatusExecutor implements SubCommand {
+
+	public boolean run(HaroTorch plugin, CommandSender sender, String[] args) {
+		ParticleThrottle throttle = plugin.getParticleThrottle();
+		
+		sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + message("statusTitle"));
+		if(throttle.isUsingServerMspt()) {
+			sender.sendMessage("- " + ChatColor.GOLD + message("statusMsptServer", "LOAD", String.format("%.1f", throttle.getLoad())));
+		} else {
+			sender.sendMessage("- " + ChatColor.GOLD + message("statusMsptMeasured", "LOAD", String.format("%.1f", throttle.getLoad())));
+		}
+		
+		SpawnFilter spawnFilter = plugin.getSpawnFilter();
+		sender.sendMessage("- " + ChatColor.GOLD + message("statusSpawnsBlocked", "BEFORE", spawnFilter.getBlockedBeforeSpawn(), "AFTER", spawnFilter.getBlockedAfterSpawn()));
+		
+		long memoHits = spawnFilter.getMemoHits();
+		long memoLookups = memoHits + spawnFilter.getMemoMisses();
+		sender.sendMessage("- " + ChatColor.GOLD + message("statusSpawnMemo", "HITS", memoHits, "LOOKUPS", memoLookups,
+				"RATIO", String.format("%.1f%%", (memoLookups == 0) ? 0d : memoHits * 100d / memoLookups)));
+		
+		TorchSnapshot snapshot = TorchHandler.getSnapshot();
+		TorchJournal journal = TorchHandler.getJournal();
+		sender.sendMessage("- " + ChatColor.GOLD + message("statusRegistry", "TORCHES", snapshot.size(), "EPOCH", snapshot.getEpoch(), "JOURNAL", journal.size(), "CAPACITY", TorchJournal.CAPACITY));
+		
+		NearbyTorchCache nearby = plugin.getNearbyTorchCache();
+		sender.sendMessage("- " + ChatColor.GOLD + message("statusNearbyCache", "HITS", nearby.getHits(), "REBUILDS", nearby.getRebuilds(), "RADIUS", nearby.getRadius()));
+		
+		WorkerPool workers = plugin.getWorkerPool();
+		String threads = workers.isUsingVirtualThreads() ? message("statusVirtualThreads") : message("statusThreads", "THREADS", workers.getThreads());
+		sender.sendMessage("- " + ChatColor.GOLD + message("statusWorkers", "THREADS", threads, "PENDING", workers.getPending(), "MAX_PENDING", WorkerPool.MAX_PENDING,
+				"COMPLETED", workers.getCompleted(), "REJECTED", workers.getRejected()));
+		
+		PacketScheduler scheduler = plugin.getPacketScheduler();
+		sender.sendMessage("- " + ChatColor.GOLD + message("statusPacketBudget", "GLOBAL", scheduler.getGlobalBudget(), "PLAYER", scheduler.getPlayerBudget()));
+		sender.sendMessage("- " + ChatColor.GOLD + message("statusPacketsSent", "SENT", scheduler.getSent(), "LAST_TICK", scheduler.getLastTickSent(), "DEFERRED", scheduler.getDeferred(),
+				"DROPPED", scheduler.getDropped(), "QUEUED", scheduler.getQueued()));
+		
+		MetricsServer metrics = plugin.getMetricsServer();
+		sender.sendMessage("- " + ChatColor.GOLD + message("statusMetricsServer", "ADDRESS", (metrics == null) ? message("statusDisabled") : "http://" + metrics.getAddress() + "/metrics"));
+		
+		if(!throttle.isEnabled()) {
+			sender.sendMessage("- " + ChatColor.GOLD + message("statusAdaptiveParticlesDisabled", "STATE", message("statusDisabled")));
+			return true;
+		}
+		
+		String threshold = String.format("%.0f", throttle.getThreshold());
+		sender.sendMessage("- " + ChatColor.GOLD + message(throttle.isUsingServerMspt() ? "statusAdaptiveParticlesMspt" : "statusAdaptiveParticlesOverrun", "STATE", message("statusEnabled"), "THRESHOLD", threshold));
+		sender.sendMessage("- " + ChatColor.GOLD + message("statusThrottleLevel", "LEVEL", throttle.getLevel(), "MAX_LEVEL", ParticleThrottle.MAX_LEVEL, "PERIOD", throttle.scalePeriod(1), "STRIDE", throttle.getStride()));
+		
+		List<String> decisions = throttle.getDecisions();
+		if(decisions.isEmpty()) {
+			sender.sendMessage("- " + ChatColor.GOLD + message("statusNoThrottleDecisions"));
+		} else {
+			sender.sendMessage("- " + ChatColor.GOLD + message("statusThrottleDecisions"));
+			for(String decision : decisions) {
+				sender.sendMessage("  " + ChatColor.WHITE + decision);
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Get a message of the active language, with its placeholders filled in
+	 * @param key The key of the message
+	 * @param placeholders Pairs of a placeholder name, without the surrounding %, and its value. Values are highlighted
+	 * @return The message
+	 */
+	private static String message(String key, Object... placeholders) {
+		String msg = LangHandler.activeLang.getLangMessages().get(key);
+		for(int i = 0; i + 1 < placeholders.length; i += 2) {
+			msg = msg.replace("%" + placeholders[i] + "%", ChatColor.RED + String.valueOf(placeholders[i + 1]) + ChatColor.GOLD);
+		}
+		
+		return msg;
+	}
+}
@@ -0,0 +1,161 @@
+package dev.array21.harotorch.commands.torchSubCmds;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.commands.SubCommand;
+import dev.array21.harotorch.events.SpawnTrace;
+import dev.array21.harotorch.lang.LangHandler;
+
+/**
+ * /torch trace [on|world [name]|area &lt;radius&gt;|off|sample &lt;n&gt;|clear|dump]
+ */
+public class TraceExecutor implements SubCommand {
+	
+	public boolean run(HaroTorch plugin, CommandSender sender, String[] args) {
+		SpawnTrace trace = plugin.getSpawnFilter().getTrace();
+		String action = (args.length >= 2) ? args[1].toLowerCase() : "show";
+		
+		switch(action) {
+		case "on":
+			trace.traceEverywhere();
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("traceEverywhere"));
+			return true;
+		case "world": {
+			World world;
+			if(args.length >= 3) {
+				world = Bukkit.getWorld(args[2]);
+			} else if(sender instanceof Player) {
+				world = ((Player) sender).getWorld();
+			} else {
+				sendUsage(sender);
+				return true;
+			}
+			
+			if(world == null) {
+				sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.RED + LangHandler.activeLang.getLangMessages().get("traceUnknownWorld").replace("%WORLD%", args[2]));
+				return true;
+			}
+			
+			trace.traceWorld(world.getName());
+			String msg = LangHandler.activeLang.getLangMessages().get("traceWorld").replace("%WORLD%", ChatColor.RED + world.getName() + ChatColor.GOLD);
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + msg);
+			return true;
+		}
+		case "area": {
+			if(!(sender instanceof Player) || args.length < 3) {
+				sendUsage(sender);
+				return true;
+			}
+			
+			int radius;
+			try {
+				radius = Integer.parseInt(args[2]);
+			} catch(NumberFormatException e) {
+				radius = -1;
+			}
+			
+			if(radius < 1) {
+				sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.RED + LangHandler.activeLang.getLangMessages().get("traceInvalidRadius"));
+				return true;
+			}
+			
+			Location location = ((Player) sender).getLocation();
+			trace.traceArea(location.getWorld().getName(), location.getBlockX(), location.getBlockZ(), radius);
+			String msg = LangHandler.activeLang.getLangMessages().get("traceArea").replace("%RADIUS%", ChatColor.RED + String.valueOf(radius) + ChatColor.GOLD);
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + msg);
+			return true;
+		}
+		case "off":
+			trace.stop();
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("traceStopped"));
+			return true;
+		case "sample": {
+			int rate;
+			try {
+				rate = (args.length >= 3) ? Integer.parseInt(args[2]) : -1;
+			} catch(NumberFormatException e) {
+				rate = -1;
+			}
+			
+			if(rate < 1) {
+				sendUsage(sender);
+				return true;
+			}
+			
+			trace.setSampleRate(rate);
+			String msg = LangHandler.activeLang.getLangMessages().get("traceSampleRate").replace("%RATE%", ChatColor.RED + String.valueOf(rate) + ChatColor.GOLD);
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + msg);
+			return true;
+		}
+		case "clear":
+			trace.clear();
+			sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("traceCleared"));
+			return true;
+		case "dump":
+			dump(plugin, sender, trace);
+			return true;
+		case "show":
+			break;
+		default:
+			sendUsage(sender);
+			return true;
+		}
+		
+		long recorded = trace.getRecorded();
+		String state = LangHandler.activeLang.getLangMessages().get(trace.isTracing() ? "traceStateTracing" : "traceStateStopped");
+		String header = LangHandler.activeLang.getLangMessages().get("traceHeader")
+				.replace("%STATE%", ChatColor.RED + state + ChatColor.GOLD)
+				.replace("%RATE%", ChatColor.RED + String.valueOf(trace.getSampleRate()) + ChatColor.GOLD);
+		sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + header);
+		
+		String kept = LangHandler.activeLang.getLangMessages().get("traceRecorded")
+				.replace("%RECORDED%", ChatColor.RED + String.valueOf(recorded) + ChatColor.GOLD)
+				.replace("%KEPT%", ChatColor.RED + String.valueOf(Math.min(recorded, SpawnTrace.CAPACITY)) + ChatColor.GOLD)
+				.replace("%CAPACITY%", ChatColor.RED + String.valueOf(SpawnTrace.CAPACITY) + ChatColor.GOLD);
+		sender.sendMessage("- " + ChatColor.GOLD + kept);
+		
+		for(String scope : trace.getScopes()) {
+			sender.sendMessage("- " + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("traceScope").replace("%SCOPE%", ChatColor.RED + scope + ChatColor.GOLD));
+		}
+		
+		return true;
+	}
+	
+	private static void sendUsage(CommandSender sender) {
+		sender.sendMessage(HaroTorch.getMessagePrefix() + ChatColor.RED + LangHandler.activeLang.getLangMessages().get("traceUsage"));
+	}
+	
+	/**
+	 * Write the trace in the background, and tell the sender where it went once it is written
+	 */
+	private static void dump(HaroTorch plugin, CommandSender sender, SpawnTrace trace) {
+		final File directory = new File(plugin.getDataFolder(), "traces");
+		try {
+			CompletableFuture.supplyAsync(() -> {
+				try {
+					File file = trace.dump(directory);
+					return HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("traceDumped").replace("%FILE%", ChatColor.RED + file.getPath() + ChatColor.GOLD);
+				} catch(IOException e) {
+					return dumpFailed(e);
+				}
+			}, plugin.getWorkerPool()).thenAcceptAsync(sender::sendMessage, plugin.getTaskScheduler().forSender(sender));
+		} catch(RejectedExecutionException e) {
+			sender.sendMessage(dumpFailed(e));
+		}
+	}
+	
+	private static String dumpFailed(Exception e) {
+		return HaroTorch.getMessagePrefix() + ChatColor.RED + LangHandler.activeLang.getLangMessages().get("traceDumpFailed").replace("%ERROR%", String.valueOf(e.getMessage()));
+	}
+}
@@ -38,6 +38,36 @@ public class ConfigManifest {
 	@Required
 	public Boolean enableTorchParticles;
 	
+	/**
+	 * How much time the ambient particle task may spend per tick. In microseconds
+	 */
+	@Nullable
+	public Integer torchParticleTickBudget;
+	
+	/**
+	 * Should particles be reduced automatically when the server is under load
+	 */
+	@Nullable
+	public Boolean adaptiveParticles;
+	
+	/**
+	 * Above what MSPT particles should be reduced
+	 */
+	@Nullable
+	public Integer adaptiveParticlesMsptThreshold;
+	
+	/**
+	 * How many particle packets may be sent per tick, to all Players together
+	 */
+	@Nullable
+	public Integer particlePacketBudget;
+	
+	/**
+	 * How many particle packets may be sent per tick, to a single Player
+	 */
+	@Nullable
+	public Integer particlePacketBudgetPerPlayer;
+	
 	/**
 	 * Should people be able to remove other people's torches
 	 */
@@ -64,6 +94,18 @@ public class ConfigManifest {
 	@Nullable
 	public Boolean shapeCircle;
 	
+	/**
+	 * The shape of the range. 'circle', 'square', 'sphere' or 'cuboid'. Takes precedence over {@link #shapeCircle}
+	 */
+	@Nullable
+	public String torchRangeShape;
+	
+	/**
+	 * How far above and below a Torch its range reaches, for the sphere and cuboid shapes. -1 to use the same range as horizontally
+	 */
+	@Nullable
+	public Integer torchVerticalRange;
+	
 	/**
 	 * What should the range of the Torch be
 	 */
@@ -100,6 +142,48 @@ public class ConfigManifest {
 	@Required
 	public Integer torchAoeParticleHeight;
 	
+	/**
+	 * How /torch aoe draws the area of effect when no mode is given. 'individual', 'union' or 'display'
+	 */
+	@Nullable
+	public String torchAoeMode;
+	
+	/**
+	 * How far away from a Player /torch aoe particles are still sent. In blocks
+	 */
+	@Nullable
+	public Integer torchAoeViewDistance;
+	
+	/**
+	 * How Players are shown whether they stand on ground protected by a Torch. 'none', 'actionbar' or 'bossbar'
+	 */
+	@Nullable
+	public String protectionIndicator;
+	
+	/**
+	 * Should the profiler be recording from the start. It can be turned on and off with /torch profile as well
+	 */
+	@Nullable
+	public Boolean profilerEnabled;
+	
+	/**
+	 * The port to serve metrics in the Prometheus text format on. 0 to disable
+	 */
+	@Nullable
+	public Integer metricsPort;
+	
+	/**
+	 * The address the metrics server binds to
+	 */
+	@Nullable
+	public String metricsBindAddress;
+	
+	/**
+	 * While spawns are traced with /torch trace, record one in this many
+	 */
+	@Nullable
+	public Integer spawnTraceSampleRate;
+	
 	/**
 	 * Command cooldown in seconds. Default: 30. -1 to disable.
 	 */
@@ -124,6 +208,13 @@ public class ConfigManifest {
 	@Required
 	public String[] recipeKeys;
 	
+	/**
+	 * Extra kinds of HaroTorches, each with its own range and recipe.
+	 * Format: name<-->range<-->recipe rows separated by '/'<-->recipe keys as key=material, separated by ','
+	 */
+	@Nullable
+	public String[] torchTiers;
+	
 	/**
 	 * What mobs should be excluded from the block list
 	 */
@@ -172,11 +263,128 @@ public class ConfigManifest {
 		return true;
 	}
 	
+	/**
+	 * Get how much time the ambient particle task may spend per tick
+	 * @return The budget in microseconds. Defaults to 500
+	 */
+	public int getTorchParticleTickBudget() {
+		if(this.torchParticleTickBudget == null || this.torchParticleTickBudget <= 0) {
+			return 500;
+		}
+		
+		return this.torchParticleTickBudget;
+	}
+	
+	/**
+	 * Returns if particles should be reduced automatically under load
+	 * @return True if adaptive particles are enabled. Defaults to true
+	 */
+	public boolean isAdaptiveParticlesEnabled() {
+		if(this.adaptiveParticles == null) {
+			return true;
+		}
+		
+		return this.adaptiveParticles;
+	}
+	
+	/**
+	 * Get above what MSPT particles should be reduced
+	 * @return The threshold in milliseconds per tick. Defaults to 40
+	 */
+	public int getAdaptiveParticlesMsptThreshold() {
+		if(this.adaptiveParticlesMsptThreshold == null || this.adaptiveParticlesMsptThreshold <= 0) {
+			return 40;
+		}
+		
+		return this.adaptiveParticlesMsptThreshold;
+	}
+	
+	/**
+	 * Get how many particle packets may be sent per tick, to all Players together
+	 * @return The budget in packets per tick. Defaults to 2000
+	 */
+	public int getParticlePacketBudget() {
+		if(this.particlePacketBudget == null || this.particlePacketBudget <= 0) {
+			return 2000;
+		}
+		
+		return this.particlePacketBudget;
+	}
+	
+	/**
+	 * Get how many particle packets may be sent per tick, to a single Player
+	 * @return The budget in packets per tick. Defaults to 400
+	 */
+	public int getParticlePacketBudgetPerPlayer() {
+		if(this.particlePacketBudgetPerPlayer == null || this.particlePacketBudgetPerPlayer <= 0) {
+			return 400;
+		}
+		
+		return this.particlePacketBudgetPerPlayer;
+	}
+	
+	/**
+	 * Returns if the profiler should be recording from the start
+	 * @return True if the profiler is enabled. Defaults to false
+	 */
+	public boolean isProfilerEnabled() {
+		if(this.profilerEnabled == null) {
+			return false;
+		}
+		
+		return this.profilerEnabled;
+	}
+	
+	/**
+	 * Get the port to serve metrics on
+	 * @return The port, 0 if the metrics server is disabled. Defaults to 0
+	 */
+	public int getMetricsPort() {
+		if(this.metricsPort == null || this.metricsPort <= 0 || this.metricsPort > 65535) {
+			return 0;
+		}
+		
+		return this.metricsPort;
+	}
+	
+	/**
+	 * Get the address the metrics server binds to
+	 * @return The address. Defaults to 127.0.0.1, so only the machine itself can scrape the metrics
+	 */
+	public String getMetricsBindAddress() {
+		if(this.metricsBindAddress == null || this.metricsBindAddress.isBlank()) {
+			return "127.0.0.1";
+		}
+		
+		return this.metricsBindAddress;
+	}
+	
+	/**
+	 * Get how many spawns are traced, while tracing is on
+	 * @return One in this many spawns is recorded. Defaults to 1, every spawn
+	 */
+	public int getSpawnTraceSampleRate() {
+		if(this.spawnTraceSampleRate == null || this.spawnTraceSampleRate < 1) {
+			return 1;
+		}
+		
+		return this.spawnTraceSampleRate;
+	}
+	
 	/**
 	 * Get in what Shape the torch radius should be calculated
 	 * @return Returns the TorchRangeShape
 	 */
 	public TorchRangeShape getTorchRangeShape() {
+		if(this.torchRangeShape != null) {
+			TorchRangeShape shape = TorchRangeShape.fromString(this.torchRangeShape);
+			if(shape != null) {
+				return shape;
+			}
+			
+			HaroTorch.logWarn(String.format("Invalid configuration file. torchRangeShape '%s' is not valid, falling back to shapeCircle.", this.torchRangeShape));
+		}
+		
 		if(this.shapeCircle == null) {
 			return TorchRangeShape.CIRCLE;
 		}
@@ -188,6 +396,66 @@ public class ConfigManifest {
 		return TorchRangeShape.SQUARE;
 	}
 	
+	/**
+	 * Get how far above and below a Torch its range reaches, for the {@link TorchRangeShape#isThreeDimensional() three dimensional} shapes
+	 * @return The vertical range in blocks, or -1 if it is the same as the horizontal range of the Torch
+	 */
+	public int getTorchVerticalRange() {
+		if(this.torchVerticalRange == null || this.torchVerticalRange <= 0) {
+			return -1;
+		}
+		
+		return this.torchVerticalRange;
+	}
+	
+	/**
+	 * Get how Players are shown whether they stand on protected ground
+	 * @return Returns the ProtectionIndicatorMode. Defaults to {@link ProtectionIndicatorMode#NONE}
+	 */
+	public ProtectionIndicatorMode getProtectionIndicator() {
+		if(this.protectionIndicator == null) {
+			return ProtectionIndicatorMode.NONE;
+		}
+		
+		ProtectionIndicatorMode mode = ProtectionIndicatorMode.fromString(this.protectionIndicator);
+		if(mode == null) {
+			HaroTorch.logWarn(String.format("Invalid configuration file. protectionIndicator '%s' is not valid, defaulting to 'none'.", this.protectionIndicator));
+			return ProtectionIndicatorMode.NONE;
+		}
+		
+		return mode;
+	}
+	
+	/**
+	 * Get how /torch aoe should draw the area of effect by default
+	 * @return Returns the AoeMode. Defaults to {@link AoeMode#INDIVIDUAL}
+	 */
+	public AoeMode getTorchAoeMode() {
+		if(this.torchAoeMode == null) {
+			return AoeMode.INDIVIDUAL;
+		}
+		
+		AoeMode mode = AoeMode.fromString(this.torchAoeMode);
+		if(mode == null) {
+			HaroTorch.logWarn(String.format("Invalid configuration file. torchAoeMode '%s' is not valid, defaulting to 'individual'.", this.torchAoeMode));
+			return AoeMode.INDIVIDUAL;
+		}
+		
+		return mode;
+	}
+	
+	/**
+	 * Get how far away from a Player /torch aoe particles are still sent
+	 * @return The distance in blocks. Defaults to 32
+	 */
+	public int getTorchAoeViewDistance() {
+		if(this.torchAoeViewDistance == null || this.torchAoeViewDistance <= 0) {
+			return 32;
+		}
+		
+		return this.torchAoeViewDistance;
+	}
+	
 	/**
 	 * Get a HashMap of recipe keys
 	 * @return Returns a HashMap of recipe keys
@@ -214,6 +482,74 @@ public class ConfigManifest {
 		return result;
 	}
 	
+	/**
+	 * Get the configured Torch tiers. Invalid tiers are skipped with a warning
+	 * @return The tiers, in the order they are configured
+	 */
+	public List<TorchTier> getTorchTiers() {
+		if(this.torchTiers == null) {
+			return new ArrayList<>(0);
+		}
+		
+		List<TorchTier> result = new ArrayList<>(this.torchTiers.length);
+		for(String str : this.torchTiers) {
+			String[] parts = str.split("<-->");
+			if(parts.length != 4) {
+				HaroTorch.logWarn(String.format("Invalid configuration file. Torch tier '%s' is of an invalid format. Skipping.", str));
+				continue;
+			}
+			
+			String name = parts[0].trim().toLowerCase();
+			if(!name.matches("[a-z0-9_]+")) {
+				HaroTorch.logWarn(String.format("Invalid configuration file. Torch tier name '%s' may only contain letters, digits and underscores. Skipping.", name));
+				continue;
+			}
+			
+			if(result.stream().anyMatch(t -> t.getName().equals(name))) {
+				HaroTorch.logWarn(String.format("Invalid configuration file. Torch tier '%s' is defined more than once. Skipping.", name));
+				continue;
+			}
+			
+			int range;
+			try {
+				range = Integer.parseInt(parts[1].trim());
+			} catch(NumberFormatException e) {
+				range = -1;
+			}
+			
+			if(range <= 0) {
+				HaroTorch.logWarn(String.format("Invalid configuration file. Torch tier '%s' has an invalid range '%s'. Skipping.", name, parts[1]));
+				continue;
+			}
+			
+			List<String> shape = Arrays.asList(parts[2].split("/"));
+			if(shape.isEmpty() || shape.size() > 3) {
+				HaroTorch.logWarn(String.format("Invalid configuration file. Torch tier '%s' has a recipe with %d rows, it should have 1 to 3. Skipping.", name, shape.size()));
+				continue;
+			}
+			
+			HashMap<Character, Material> keys = new HashMap<>();
+			boolean valid = true;
+			for(String key : parts[3].split(",")) {
+				String[] keyParts = key.trim().split("=");
+				Material m = (keyParts.length == 2 && keyParts[0].length() == 1) ? Material.matchMaterial(keyParts[1]) : null;
+				if(m == null) {
+					HaroTorch.logWarn(String.format("Invalid configuration file. Torch tier '%s' has an invalid recipe key '%s'. Skipping.", name, key));
+					valid = false;
+					break;
+				}
+				
+				keys.put(keyParts[0].charAt(0), m);
+			}
+			
+			if(valid) {
+				result.add(new TorchTier(name, range, shape, keys));
+			}
+		}
+		
+		return result;
+	}
+	
 	/**
 	 * Get a list of excluded EntityType's
 	 * @return Returns a List of excluded EntityType's
@@ -245,8 +581,168 @@ public class ConfigManifest {
 		return Arrays.asList(this.recipeShape);
 	}
 	
+	/**
+	 * A kind of HaroTorch with its own range and recipe
+	 */
+	public static class TorchTier {
+		private final String name;
+		private final int range;
+		private final List<String> recipeShape;
+		private final HashMap<Character, Material> recipeKeys;
+		
+		private TorchTier(String name, int range, List<String> recipeShape, HashMap<Character, Material> recipeKeys) {
+			this.name = name;
+			this.range = range;
+			this.recipeShape = recipeShape;
+			this.recipeKeys = recipeKeys;
+		}
+		
+		/**
+		 * @return The name of the tier. Only contains lowercase letters, digits and underscores
+		 */
+		public String getName() {
+			return this.name;
+		}
+		
+		/**
+		 * @return The range of Torches of this tier, in blocks
+		 */
+		public int getRange() {
+			return this.range;
+		}
+		
+		public List<String> getRecipeShape() {
+			return this.recipeShape;
+		}
+		
+		public HashMap<Character, Material> getRecipeKeys() {
+			return this.recipeKeys;
+		}
+	}
+	
 	public enum TorchRangeShape {
-		CIRCLE,
-		SQUARE
+		/**
+		 * A cylinder reaching through the whole World
+		 */
+		CIRCLE(true, false),
+		
+		/**
+		 * A square column reaching through the whole World
+		 */
+		SQUARE(false, false),
+		
+		/**
+		 * An ellipsoid, with a separate horizontal and vertical range
+		 */
+		SPHERE(true, true),
+		
+		/**
+		 * A box, with a separate horizontal and vertical range
+		 */
+		CUBOID(false, true);
+		
+		private final boolean round;
+		private final boolean threeDimensional;
+		
+		private TorchRangeShape(boolean round, boolean threeDimensional) {
+			this.round = round;
+			this.threeDimensional = threeDimensional;
+		}
+		
+		/**
+		 * @return True if the horizontal cross section is a circle, false if it is a square
+		 */
+		public boolean isRound() {
+			return this.round;
+		}
+		
+		/**
+		 * @return True if the range is limited vertically as well
+		 */
+		public boolean isThreeDimensional() {
+			return this.threeDimensional;
+		}
+		
+		/**
+		 * Parse a TorchRangeShape, case insensitive
+		 * @param shape The shape
+		 * @return The TorchRangeShape, or null if the String is not a valid shape
+		 */
+		@Nullable
+		public static TorchRangeShape fromString(String shape) {
+			for(TorchRangeShape s : values()) {
+				if(s.name().equalsIgnoreCase(shape)) {
+					return s;
+				}
+			}
+			
+			return null;
+		}
+	}
+	
+	public enum AoeMode {
+		/**
+		 * Draw the outline of every Torch separately
+		 */
+		INDIVIDUAL,
+		
+		/**
+		 * Draw only the outline of the area covered by all Torches together
+		 */
+		UNION,
+		
+		/**
+		 * Draw the outline of every Torch with display entities, which only have to be sent once. Requires MC 1.19.4 or newer
+		 */
+		DISPLAY;
+		
+		/**
+		 * Parse an AoeMode, case insensitive
+		 * @param mode The mode
+		 * @return The AoeMode, or null if the String is not a valid mode
+		 */
+		@Nullable
+		public static AoeMode fromString(String mode) {
+			for(AoeMode m : values()) {
+				if(m.name().equalsIgnoreCase(mode)) {
+					return m;
+				}
+			}
+			
+			return null;
+		}
+	}
+	
+	public enum ProtectionIndicatorMode {
+		/**
+		 * Don't show anything
+		 */
+		NONE,
+		
+		/**
+		 * Show a message above the hotbar when a Player enters or leaves protected ground
+		 */
+		ACTIONBAR,
+		
+		/**
+		 * Show a boss bar for as long as a Player stands on protected ground
+		 */
+		BOSSBAR;
+		
+		/**
+		 * Parse a ProtectionIndicatorMode, case insensitive
+		 * @param mode The mode
+		 * @return The ProtectionIndicatorMode, or null if the String is not a valid mode
+		 */
+		@Nullable
+		public static ProtectionIndicatorMode fromString(String mode) {
+			for(ProtectionIndicatorMode m : values()) {
+				if(m.name().equalsIgnoreCase(mode)) {
+					return m;
+				}
+			}
+			
+			return null;
+		}
 	}
 }
@@ -2,6 +2,7 @@ package dev.array21.harotorch.events;
 
 import java.util.UUID;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -10,7 +11,10 @@ import org.bukkit.inventory.ItemStack;
 
 import net.md_5.bungee.api.ChatColor;
 import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.api.events.TorchRemoveEvent;
 import dev.array21.harotorch.lang.LangHandler;
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 import dev.array21.harotorch.torch.Torch;
 import dev.array21.harotorch.torch.TorchHandler;
 
@@ -24,6 +28,15 @@ public class BlockBreakEventListener implements Listener {
 	
 	@EventHandler
 	public void onBlockBreakEvent(BlockBreakEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.BLOCK_BREAK, start);
+		}
+	}
+	
+	private void handle(BlockBreakEvent event) {
 		
 		Location loc = event.getBlock().getLocation();
 		
@@ -62,12 +75,20 @@ public class BlockBreakEventListener implements Listener {
 			return;
 		}
 		
-		event.setDropItems(false);
-		
 		Torch t = TorchHandler.getTorch(loc);
+		
+		// Other plugins get a say in whether the Torch may be broken
+		TorchRemoveEvent removeEvent = new TorchRemoveEvent(event.getPlayer(), t);
+		Bukkit.getPluginManager().callEvent(removeEvent);
+		if(removeEvent.isCancelled()) {
+			event.setCancelled(true);
+			return;
+		}
+		
+		event.setDropItems(false);
 		TorchHandler.removeTorch(t);
 		
-		ItemStack torchStack = TorchHandler.getTorch(1);
+		ItemStack torchStack = TorchHandler.getTorch(t);
 		
 		event.getBlock().getWorld().dropItemNaturally(loc, torchStack);
 		
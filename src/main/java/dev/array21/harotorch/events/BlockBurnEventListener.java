@@ -5,12 +5,23 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBurnEvent;
 
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 import dev.array21.harotorch.torch.TorchHandler;
 
 public class BlockBurnEventListener implements Listener {
 
 	@EventHandler
 	public void onBlockBurnEvent(BlockBurnEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.BLOCK_BURN, start);
+		}
+	}
+	
+	private void handle(BlockBurnEvent event) {
 		Location loc = event.getBlock().getLocation();
 		
 		Location loc_y_plus_1 = new Location(loc.getWorld(), loc.getX(), loc.getY() + 1, loc.getZ());
@@ -6,12 +6,23 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockExplodeEvent;
 
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 import dev.array21.harotorch.torch.TorchHandler;
 
 public class BlockExplodeEventListener implements Listener {
 
 	@EventHandler
 	public void onBlockExplodeEvent(BlockExplodeEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.BLOCK_EXPLODE, start);
+		}
+	}
+	
+	private void handle(BlockExplodeEvent event) {
 		
 		for(Block b : event.blockList()) {
 			Location loc = b.getLocation();
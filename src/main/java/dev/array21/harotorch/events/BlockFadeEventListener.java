@@ -6,10 +6,22 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockFadeEvent;
 
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
+
 public class BlockFadeEventListener implements Listener {
 	
 	@EventHandler
 	public void onBlockFadeEvent(BlockFadeEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.BLOCK_FADE, start);
+		}
+	}
+	
+	private void handle(BlockFadeEvent event) {
 		//We wont break a scaffolding block when a torch is ontop of it
 		if(event.getBlock().getType() == Material.SCAFFOLDING) {
 			Location l = event.getBlock().getLocation();
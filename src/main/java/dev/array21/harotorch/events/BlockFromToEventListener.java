@@ -4,12 +4,23 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockFromToEvent;
 
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 import dev.array21.harotorch.torch.TorchHandler;
 
 public class BlockFromToEventListener implements Listener {
 
 	@EventHandler
 	public void onBlockFromToEvent(BlockFromToEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.BLOCK_FROM_TO, start);
+		}
+	}
+	
+	private void handle(BlockFromToEvent event) {
 		
 		if(TorchHandler.isTorch(event.getToBlock().getLocation())) {
 			event.setCancelled(true);
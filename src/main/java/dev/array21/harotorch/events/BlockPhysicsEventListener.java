@@ -1,13 +1,15 @@
 package dev.array21.harotorch.events;
 
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.block.data.Openable;
 import org.bukkit.block.data.type.TrapDoor;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.block.BlockPhysicsEvent;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 
 import org.bukkit.event.Listener;
 
@@ -21,6 +23,15 @@ public class BlockPhysicsEventListener implements Listener {
 	
 	@EventHandler
 	public void onBlockPhysicsEvent(BlockPhysicsEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.BLOCK_PHYSICS, start);
+		}
+	}
+	
+	private void handle(BlockPhysicsEvent event) {
 		
 		// We dont allow opening a trapdoor when a torch is ontop of it
 		if(event.getBlock().getType().data == TrapDoor.class) {
@@ -39,14 +50,10 @@ public class BlockPhysicsEventListener implements Listener {
 			if(!Common.checkSurroundings(event.getBlock().getLocation())) {
 				event.setCancelled(true);
 
-	            new BukkitRunnable() {
-					@Override
-					public void run() {
-						System.out.println("Placing back block");
-						Location l = event.getBlock().getLocation();
-						l.getBlock().setType(event.getBlock().getType(), false);
-					}
-				}.runTaskLater(this.plugin, 2L);
+				// On Folia the block has to be placed back by the region owning it
+				final Location l = event.getBlock().getLocation();
+				final Material type = event.getBlock().getType();
+				this.plugin.getTaskScheduler().runAt(l, () -> l.getBlock().setType(type, false), 2L);
 			}
 		}
 	}
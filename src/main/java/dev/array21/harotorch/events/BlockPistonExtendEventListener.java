@@ -6,12 +6,23 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPistonExtendEvent;
 
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 import dev.array21.harotorch.torch.TorchHandler;
 
 public class BlockPistonExtendEventListener implements Listener {
 	
 	@EventHandler
 	public void onBlockPistonExtendEvent(BlockPistonExtendEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.PISTON_EXTEND, start);
+		}
+	}
+	
+	private void handle(BlockPistonExtendEvent event) {
 		for(Block b : event.getBlocks()) {
 			//The block being moved
 			Location loc = b.getLocation();
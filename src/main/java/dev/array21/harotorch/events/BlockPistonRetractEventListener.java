@@ -6,12 +6,23 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPistonRetractEvent;
 
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 import dev.array21.harotorch.torch.TorchHandler;
 
 public class BlockPistonRetractEventListener implements Listener {
 	
 	@EventHandler
 	public void onBlockPistonRetractEvent(BlockPistonRetractEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.PISTON_RETRACT, start);
+		}
+	}
+	
+	private void handle(BlockPistonRetractEvent event) {
 		for(Block b : event.getBlocks()) {
 			//The block being moved
 			Location loc = b.getLocation();
@@ -1,5 +1,6 @@
 package dev.array21.harotorch.events;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.event.EventHandler;
@@ -10,7 +11,10 @@ import org.bukkit.persistence.PersistentDataType;
 
 import net.md_5.bungee.api.ChatColor;
 import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.api.events.TorchPlaceEvent;
 import dev.array21.harotorch.lang.LangHandler;
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 import dev.array21.harotorch.torch.Torch;
 import dev.array21.harotorch.torch.TorchHandler;
 
@@ -24,6 +28,15 @@ public class BlockPlaceEventListener implements Listener {
 	
 	@EventHandler
 	public void onBlockPlaceEvent(BlockPlaceEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.BLOCK_PLACE, start);
+		}
+	}
+	
+	private void handle(BlockPlaceEvent event) {
 		
 		ItemStack blockPlacing = event.getPlayer().getInventory().getItemInMainHand();
 		
@@ -66,8 +79,22 @@ public class BlockPlaceEventListener implements Listener {
 				return;
 			}
 			
+			// Tiered Torches carry their tier and range on the item
+			String tier = blockPlacing.getItemMeta().getPersistentDataContainer().get(new NamespacedKey(plugin, "haro_torch_tier"), PersistentDataType.STRING);
+			Integer range = blockPlacing.getItemMeta().getPersistentDataContainer().get(new NamespacedKey(plugin, "haro_torch_range"), PersistentDataType.INTEGER);
+			
+			Torch torch = new Torch(event.getPlayer().getUniqueId(), torchLocation, tier, (range != null) ? range : 0);
+			
+			// Other plugins get a say in whether the Torch may be placed
+			TorchPlaceEvent placeEvent = new TorchPlaceEvent(event.getPlayer(), torch);
+			Bukkit.getPluginManager().callEvent(placeEvent);
+			if(placeEvent.isCancelled()) {
+				event.setCancelled(true);
+				return;
+			}
+			
 			// Place the Torch
-			TorchHandler.addTorch(new Torch(event.getPlayer().getUniqueId(), torchLocation));
+			TorchHandler.addTorch(torch);
 			
 			event.getPlayer().sendMessage(HaroTorch.getMessagePrefix() + ChatColor.GOLD + LangHandler.activeLang.getLangMessages().get("torchPlaced"));	
 		}
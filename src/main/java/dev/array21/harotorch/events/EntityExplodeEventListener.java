@@ -9,12 +9,23 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityExplodeEvent;
 
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 import dev.array21.harotorch.torch.TorchHandler;
 
 public class EntityExplodeEventListener implements Listener {
 
 	@EventHandler
 	public void onEntityExplodeEvent(EntityExplodeEvent event) {
+		long start = Profiler.start();
+		try {
+			handle(event);
+		} finally {
+			Profiler.stop(ProfilerProbe.ENTITY_EXPLODE, start);
+		}
+	}
+	
+	private void handle(EntityExplodeEvent event) {
 		
 		List<Block> blocksDontRemove = new ArrayList<>();
 		
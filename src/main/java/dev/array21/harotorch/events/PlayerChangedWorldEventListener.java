@@ -0,0 +1,23 @@
+package dev.array21.harotorch.events;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+
+import dev.array21.harotorch.HaroTorch;
+
+public class PlayerChangedWorldEventListener implements Listener {
+
+	private HaroTorch plugin;
+	
+	public PlayerChangedWorldEventListener(HaroTorch plugin) {
+		this.plugin = plugin;
+	}
+	
+	@EventHandler
+	public void onPlayerChangedWorldEvent(PlayerChangedWorldEvent event) {
+		//The highlighted Torches are in the World the Player left
+		this.plugin.getHighlightSessionManager().endSession(event.getPlayer(), false);
+		this.plugin.getHighlightSessionManager().endDisplaySession(event.getPlayer());
+	}
+}
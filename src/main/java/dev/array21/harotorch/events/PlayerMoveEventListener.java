@@ -0,0 +1,35 @@
+package dev.array21.harotorch.events;
+
+import org.bukkit.Location;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerMoveEvent;
+
+/**
+ * Updates the {@link ProtectionIndicator} when a Player moves to another block. Only registered when the indicator is enabled
+ */
+public class PlayerMoveEventListener implements Listener {
+	
+	private final ProtectionIndicator indicator;
+	
+	public PlayerMoveEventListener(ProtectionIndicator indicator) {
+		this.indicator = indicator;
+	}
+	
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onPlayerMoveEvent(PlayerMoveEvent event) {
+		Location from = event.getFrom();
+		Location to = event.getTo();
+		if(to == null) {
+			return;
+		}
+		
+		// Looking around fires this event as well
+		if(from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld()) {
+			return;
+		}
+		
+		this.indicator.update(event.getPlayer(), to);
+	}
+}
@@ -0,0 +1,27 @@
+package dev.array21.harotorch.events;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import dev.array21.harotorch.HaroTorch;
+
+public class PlayerQuitEventListener implements Listener {
+
+	private HaroTorch plugin;
+	
+	public PlayerQuitEventListener(HaroTorch plugin) {
+		this.plugin = plugin;
+	}
+	
+	@EventHandler
+	public void onPlayerQuitEvent(PlayerQuitEvent event) {
+		this.plugin.getHighlightSessionManager().endSession(event.getPlayer(), false);
+		this.plugin.getHighlightSessionManager().endDisplaySession(event.getPlayer());
+		this.plugin.getNearbyTorchCache().remove(event.getPlayer());
+		
+		if(this.plugin.getProtectionIndicator() != null) {
+			this.plugin.getProtectionIndicator().remove(event.getPlayer());
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package dev.array21.harotorch.events;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.CreatureSpawnEvent.SpawnReason;
+import org.bukkit.plugin.Plugin;
+
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
+
+/**
+ * Blocks spawns through Paper's PreCreatureSpawnEvent, which fires before the entity is created.
+ * Blocked spawns are aborted, so the server doesn't build the entity only for the CreatureSpawnEvent to cancel it, and doesn't retry the spawn in the same cycle.<br>
+ * HaroTorch is compiled against the Spigot API, so the event is resolved through reflection and registered by hand.
+ */
+public class PreCreatureSpawnEventListener implements Listener {
+	
+	private static final String EVENT_CLASS = "com.destroystokyo.paper.event.entity.PreCreatureSpawnEvent";
+	
+	private final SpawnFilter filter;
+	
+	/**
+	 * (Event event) -> Location
+	 */
+	private final MethodHandle getSpawnLocation;
+	
+	/**
+	 * (Event event) -> EntityType
+	 */
+	private final MethodHandle getType;
+	
+	/**
+	 * (Event event) -> SpawnReason
+	 */
+	private final MethodHandle getReason;
+	
+	/**
+	 * (Event event, boolean abort) -> void
+	 */
+	private final MethodHandle setShouldAbortSpawn;
+	
+	private PreCreatureSpawnEventListener(SpawnFilter filter, Class<? extends Event> eventClass) throws ReflectiveOperationException {
+		this.filter = filter;
+		
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		this.getSpawnLocation = lookup.findVirtual(eventClass, "getSpawnLocation", MethodType.methodType(Location.class))
+				.asType(MethodType.methodType(Location.class, Event.class));
+		this.getType = lookup.findVirtual(eventClass, "getType", MethodType.methodType(EntityType.class))
+				.asType(MethodType.methodType(EntityType.class, Event.class));
+		this.getReason = lookup.findVirtual(eventClass, "getReason", MethodType.methodType(SpawnReason.class))
+				.asType(MethodType.methodType(SpawnReason.class, Event.class));
+		this.setShouldAbortSpawn = lookup.findVirtual(eventClass, "setShouldAbortSpawn", MethodType.methodType(void.class, boolean.class))
+				.asType(MethodType.methodType(void.class, Event.class, boolean.class));
+	}
+	
+	/**
+	 * Register the listener, if the server has the PreCreatureSpawnEvent
+	 * @param plugin The plugin to register the listener for
+	 * @param filter The SpawnFilter deciding which spawns are blocked
+	 * @return True if the listener was registered
+	 */
+	public static boolean register(Plugin plugin, SpawnFilter filter) {
+		Class<? extends Event> eventClass;
+		PreCreatureSpawnEventListener listener;
+		try {
+			eventClass = Class.forName(EVENT_CLASS).asSubclass(Event.class);
+			listener = new PreCreatureSpawnEventListener(filter, eventClass);
+		} catch(ReflectiveOperationException | ClassCastException e) {
+			return false;
+		}
+		
+		Bukkit.getPluginManager().registerEvent(eventClass, listener, EventPriority.NORMAL, (l, event) -> {
+			// Also called for subclasses of the event
+			if(eventClass.isInstance(event)) {
+				listener.onPreCreatureSpawnEvent(event);
+			}
+		}, plugin, true);
+		
+		return true;
+	}
+	
+	private void onPreCreatureSpawnEvent(Event event) {
+		long start = Profiler.start();
+		try {
+			Location location = (Location) this.getSpawnLocation.invokeExact(event);
+			EntityType type = (EntityType) this.getType.invokeExact(event);
+			SpawnReason reason = (SpawnReason) this.getReason.invokeExact(event);
+			
+			if(this.filter.shouldBlock(type, reason, location, true)) {
+				((Cancellable) event).setCancelled(true);
+				this.setShouldAbortSpawn.invokeExact(event, true);
+				this.filter.recordBlocked(type, true);
+			}
+		} catch(Throwable e) {
+			// The CreatureSpawnEvent will still catch the spawn
+			e.printStackTrace();
+		} finally {
+			Profiler.stop(ProfilerProbe.PRE_SPAWN_CHECK, start);
+		}
+	}
+}
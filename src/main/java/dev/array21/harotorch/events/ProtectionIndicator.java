@@ -0,0 +1,117 @@
+package dev.array21.harotorch.events;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.config.ConfigManifest.ProtectionIndicatorMode;
+import dev.array21.harotorch.lang.LangHandler;
+import dev.array21.harotorch.torch.NearbyTorchCache;
+import dev.array21.harotorch.torch.Torch;
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
+
+/**
+ * Shows Players whether they stand on ground protected by a Torch, with an action bar message or a boss bar.<br>
+ * Only the Torches the {@link NearbyTorchCache} already holds for the chunk of the Player are checked, so moving around costs no lookups in the index.
+ * Players are only told when the state changes.
+ */
+public class ProtectionIndicator {
+	
+	private final HaroTorch plugin;
+	private final ProtectionIndicatorMode mode;
+	
+	/**
+	 * K = The UUID of the Player
+	 * V = Whether the Player was on protected ground when last checked
+	 */
+	private final ConcurrentHashMap<UUID, Boolean> protectedPlayers = new ConcurrentHashMap<>();
+	
+	/**
+	 * K = The UUID of the Player
+	 * V = The boss bar of that Player
+	 */
+	private final ConcurrentHashMap<UUID, BossBar> bossBars = new ConcurrentHashMap<>();
+	
+	public ProtectionIndicator(HaroTorch plugin, ProtectionIndicatorMode mode) {
+		this.plugin = plugin;
+		this.mode = mode;
+	}
+	
+	/**
+	 * Check if a Player is on protected ground, and update the indicator if that changed
+	 * @param player The Player
+	 * @param location Where the Player is, or is moving to
+	 */
+	public void update(Player player, Location location) {
+		boolean covered = false;
+		for(Torch t : this.plugin.getNearbyTorchCache().getCovering(player, location)) {
+			// Judged like a spawn in the block the Player stands in, so the indicator agrees with where mobs can spawn
+			if(this.plugin.getSpawnFilter().isBlockCoveredBy(t, location.getBlockX(), location.getBlockY(), location.getBlockZ())) {
+				covered = true;
+				break;
+			}
+		}
+		
+		Boolean previous = this.protectedPlayers.put(player.getUniqueId(), covered);
+		if(previous != null && previous == covered) {
+			return;
+		}
+		
+		switch(this.mode) {
+		case ACTIONBAR:
+			// Nobody needs to be told they are not protected when they join
+			if(previous == null && !covered) {
+				return;
+			}
+			
+			String msg = LangHandler.activeLang.getLangMessages().get(covered ? "protectionEntered" : "protectionLeft");
+			player.spigot().sendMessage(ChatMessageType.ACTION_BAR, TextComponent.fromLegacyText((covered ? ChatColor.GREEN : ChatColor.GOLD) + msg));
+			break;
+		case BOSSBAR:
+			BossBar bar = this.bossBars.computeIfAbsent(player.getUniqueId(), k -> {
+				BossBar created = Bukkit.createBossBar(ChatColor.GREEN + LangHandler.activeLang.getLangMessages().get("protectionBossBar"), BarColor.GREEN, BarStyle.SOLID);
+				created.addPlayer(player);
+				return created;
+			});
+			
+			bar.setVisible(covered);
+			break;
+		default:
+			break;
+		}
+	}
+	
+	/**
+	 * Forget a Player, when they leave
+	 * @param player The Player
+	 */
+	public void remove(Player player) {
+		this.protectedPlayers.remove(player.getUniqueId());
+		
+		BossBar bar = this.bossBars.remove(player.getUniqueId());
+		if(bar != null) {
+			bar.removeAll();
+		}
+	}
+	
+	/**
+	 * Remove the boss bars of all Players
+	 */
+	public void clear() {
+		for(BossBar bar : this.bossBars.values()) {
+			bar.removeAll();
+		}
+		
+		this.bossBars.clear();
+		this.protectedPlayers.clear();
+	}
+}
@@ -0,0 +1,152 @@
+package dev.array21.harotorch.events;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import dev.array21.harotorch.annotations.Nullable;
+import dev.array21.harotorch.torch.TorchSnapshot;
+
+/**
+ * Remembers whether a position is protected by a Torch for the rest of the tick. Natural spawning tries packs of mobs at positions close to each other in one tick,
+ * and the attempts in the same block share a decision.<br>
+ * Decisions are kept per thread, so region threads on Folia don't contend, and per World, so spawns alternating between Worlds don't evict each other.
+ * They are forgotten when the tick ends, or when the Torch snapshot they were made against is replaced, whichever comes first.<br>
+ * The tables of the threads are held here rather than in a ThreadLocal, so {@link #clear()} can drop them when the plugin is disabled.
+ * A ThreadLocal value would stay referenced by the server's threads, and keep the old plugin and its last snapshot loaded after a reload.
+ */
+class SpawnDecisionMemo {
+	
+	/**
+	 * How many decisions a thread may remember per World in one tick. The table of a World is cleared when it grows beyond this
+	 */
+	private static final int MAX_ENTRIES = 4096;
+	
+	/**
+	 * K = The thread
+	 * V = The decisions remembered on that thread. Only that thread adds or reads its entry
+	 */
+	private final ConcurrentHashMap<Thread, Memo> memos = new ConcurrentHashMap<>();
+	
+	/**
+	 * Only incremented by the global tick task
+	 */
+	private volatile long tick = 0;
+	
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	
+	/**
+	 * End the current tick. <strong>Must be called once per tick, from one thread</strong>
+	 */
+	void nextTick() {
+		this.tick++;
+	}
+	
+	/**
+	 * Get a remembered decision
+	 * @param snapshot The snapshot the decision would be made against
+	 * @param worldName The name of the World
+	 * @param x The block X coordinate
+	 * @param yBand The Y band, see {@link #key(int, int, int)}
+	 * @param z The block Z coordinate
+	 * @return The decision, or null if there is none for this tick and snapshot
+	 */
+	@Nullable
+	Boolean get(TorchSnapshot snapshot, String worldName, int x, int yBand, int z) {
+		Memo memo = memo();
+		if(memo.tick != this.tick || memo.snapshot != snapshot) {
+			memo.reset(this.tick, snapshot);
+		}
+		
+		Boolean decision = memo.select(worldName).get(key(x, yBand, z));
+		if(decision != null) {
+			this.hits.increment();
+		} else {
+			this.misses.increment();
+		}
+		
+		return decision;
+	}
+	
+	/**
+	 * Remember a decision. Must follow a {@link #get(TorchSnapshot, String, int, int, int)} for the same position on the same thread
+	 */
+	void put(int x, int yBand, int z, boolean decision) {
+		HashMap<Long, Boolean> decisions = memo().current;
+		if(decisions.size() >= MAX_ENTRIES) {
+			decisions.clear();
+		}
+		
+		decisions.put(key(x, yBand, z), decision);
+	}
+	
+	/**
+	 * Forget the decisions of every thread
+	 */
+	void clear() {
+		this.memos.clear();
+	}
+	
+	private Memo memo() {
+		Thread thread = Thread.currentThread();
+		Memo memo = this.memos.get(thread);
+		if(memo == null) {
+			memo = new Memo();
+			this.memos.put(thread, memo);
+		}
+		
+		return memo;
+	}
+	
+	/**
+	 * Pack a position into a single long. X and Z use 26 bits each, which covers the World border, and the Y band uses 12 bits
+	 */
+	private static long key(int x, int yBand, int z) {
+		return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (yBand & 0xFFF);
+	}
+	
+	long getHits() {
+		return this.hits.sum();
+	}
+	
+	long getMisses() {
+		return this.misses.sum();
+	}
+	
+	private static class Memo {
+		private long tick = -1;
+		private TorchSnapshot snapshot;
+		
+		/**
+		 * K = The name of the World
+		 * V = The decisions in that World, by {@link SpawnDecisionMemo#key(int, int, int)}
+		 */
+		private final HashMap<String, HashMap<Long, Boolean>> worlds = new HashMap<>();
+		
+		/**
+		 * The decisions of the World of the last lookup, the one {@link SpawnDecisionMemo#put(int, int, int, boolean)} writes to
+		 */
+		private HashMap<Long, Boolean> current = new HashMap<>();
+		private String currentWorldName;
+		
+		private void reset(long tick, TorchSnapshot snapshot) {
+			this.tick = tick;
+			this.snapshot = snapshot;
+			
+			// The tables are kept, so a World's table is only allocated once per thread
+			for(HashMap<Long, Boolean> decisions : this.worlds.values()) {
+				decisions.clear();
+			}
+		}
+		
+		private HashMap<Long, Boolean> select(String worldName) {
+			if(!worldName.equals(this.currentWorldName)) {
+				this.current = this.worlds.computeIfAbsent(worldName, k -> new HashMap<>());
+				this.currentWorldName = worldName;
+			}
+			
+			return this.current;
+		}
+	}
+}
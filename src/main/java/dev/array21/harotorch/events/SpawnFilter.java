@@ -0,0 +1,346 @@
+package dev.array21.harotorch.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Monster;
+import org.bukkit.event.entity.CreatureSpawnEvent.SpawnReason;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.annotations.Nullable;
+import dev.array21.harotorch.config.ConfigManifest;
+import dev.array21.harotorch.config.ConfigManifest.TorchRangeShape;
+import dev.array21.harotorch.torch.SpatialIndex;
+import dev.array21.harotorch.torch.Torch;
+import dev.array21.harotorch.torch.TorchHandler;
+import dev.array21.harotorch.torch.TorchSnapshot;
+
+/**
+ * Decides which spawns are blocked by Torches. Shared by the listeners for Paper's PreCreatureSpawnEvent and Bukkit's CreatureSpawnEvent,
+ * so a spawn is judged the same way no matter which event catches it.<br>
+ * The decision only depends on the type of the entity, so it can be made before the entity exists.
+ * It only reads the config and the current {@link TorchHandler#getSnapshot() Torch snapshot}, so it is safe to call from any thread.
+ */
+public class SpawnFilter {
+	
+	private final HaroTorch plugin;
+	
+	/**
+	 * The config is only read when the plugin is enabled, so the values used for every coverage check are read once
+	 */
+	private final TorchRangeShape shape;
+	private final int verticalRange;
+	private final int yAboveLim;
+	private final int yBelowLim;
+	
+	private final SpawnDecisionMemo memo = new SpawnDecisionMemo();
+	private final SpawnTrace trace;
+	
+	private final LongAdder blockedBeforeSpawn = new LongAdder();
+	private final LongAdder blockedAfterSpawn = new LongAdder();
+	
+	/**
+	 * The amount of blocked spawns, indexed by the ordinal of the EntityType
+	 */
+	private final LongAdder[] blockedByType = new LongAdder[EntityType.values().length];
+	
+	public SpawnFilter(HaroTorch plugin) {
+		this.plugin = plugin;
+		
+		ConfigManifest manifest = plugin.getConfigManifest();
+		this.shape = manifest.getTorchRangeShape();
+		this.verticalRange = manifest.getTorchVerticalRange();
+		this.yAboveLim = manifest.torchAboveYRange;
+		this.yBelowLim = manifest.torchBelowYRange;
+		this.trace = new SpawnTrace(manifest.getSpawnTraceSampleRate());
+		
+		for(int i = 0; i < this.blockedByType.length; i++) {
+			this.blockedByType[i] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * Check if a spawn should be blocked
+	 * @param et The type of the entity
+	 * @param reason Why the entity is spawning
+	 * @param location Where the entity is spawning
+	 * @param beforeSpawn True if the spawn is checked before the entity is created, through Paper's PreCreatureSpawnEvent.
+	 * On Paper a spawn which is allowed then is checked again after, so the trace records which check it was
+	 * @return True if the spawn should be blocked
+	 */
+	public boolean shouldBlock(EntityType et, SpawnReason reason, Location location, boolean beforeSpawn) {
+		SpawnRule rule = decide(et, reason, location);
+		
+		if(this.trace.shouldRecord(location)) {
+			// Only sampled spawns pay for finding the Torch, the decision itself may have come from the memo
+			Torch torch = rule.isBlocked() ? findCoveringTorch(TorchHandler.getSnapshot(), location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ()) : null;
+			this.trace.record(et, reason, location, beforeSpawn, rule, torch);
+		}
+		
+		return rule.isBlocked();
+	}
+	
+	private SpawnRule decide(EntityType et, SpawnReason reason, Location location) {
+		//We dont want to block Player spawns
+		if(et == EntityType.PLAYER) return SpawnRule.PLAYER;
+		
+		//We dont want to prevent non living entities from spawning
+		Class<? extends Entity> entityClass = et.getEntityClass();
+		if(entityClass == null || !LivingEntity.class.isAssignableFrom(entityClass)) return SpawnRule.NOT_LIVING;
+		
+		//If the spawn reason is a spawner, or via infection (zombie villagers), return.
+		if(reason.equals(SpawnReason.SPAWNER) && !reason.equals(SpawnReason.INFECTION)) return SpawnRule.SPAWNER;
+		
+		ConfigManifest manifest = this.plugin.getConfigManifest();
+		
+		//If the spawned mob is in the exclusion list, we dont want to block it
+		if(manifest.getExcludedEntities().contains(et)) return SpawnRule.EXCLUDED;
+		
+		//Check if we should only be blocking hostile mobs
+		if(manifest.onlyBlockHostileMobs) {
+			
+			//Check if the spawned Entity is a Monster, Phantom, Slime, Ghast or Magma cube and not a Wither
+			// https://github.com/TheDutchMC/HaroTorch/issues/5
+			if((Monster.class.isAssignableFrom(entityClass)
+					|| et.equals(EntityType.PHANTOM)
+					|| et.equals(EntityType.SLIME)
+					|| et.equals(EntityType.GHAST)
+					|| et.equals(EntityType.MAGMA_CUBE))
+					&& (!et.equals(EntityType.WITHER)
+					&& !et.equals(EntityType.ENDER_DRAGON))) {
+				
+				return torchInRange(location) ? SpawnRule.COVERED : SpawnRule.NOT_COVERED;
+			}
+			
+			return SpawnRule.NOT_HOSTILE;
+		}
+		
+		//Check if the spawned entity is an ender dragon or wither, we dont want to block those
+		if(et.equals(EntityType.ENDER_DRAGON) || et.equals(EntityType.WITHER)) {
+			return SpawnRule.BOSS;
+		}
+		
+		return torchInRange(location) ? SpawnRule.COVERED : SpawnRule.NOT_COVERED;
+	}
+	
+	/**
+	 * End the current tick, so the decisions remembered during it are forgotten. Called every tick by the plugin
+	 */
+	public void onTick() {
+		this.memo.nextTick();
+	}
+	
+	/**
+	 * Forget the decisions remembered on every thread, so the threads of the server don't keep them after the plugin is disabled
+	 */
+	public void clear() {
+		this.memo.clear();
+	}
+	
+	/**
+	 * Check if a Location is protected by a Torch, using the range of every Torch. Only the Torches which may reach the Location are visited, see {@link SpatialIndex}.<br>
+	 * The Location is judged by its block, see {@link #findCoveringTorch(TorchSnapshot, String, int, int, int)}. The decision is remembered for the rest of the tick,
+	 * and shared by all Locations in the same block
+	 * @param entityLocation The Location
+	 * @return True if a Torch covers the Location
+	 */
+	public boolean torchInRange(Location entityLocation) {
+		World world = entityLocation.getWorld();
+		if(world == null) {
+			return false;
+		}
+		
+		TorchSnapshot snapshot = TorchHandler.getSnapshot();
+		
+		// Without Y limits every block in a column gets the same decision
+		boolean columnWide = !this.shape.isThreeDimensional() && this.yAboveLim == -1 && this.yBelowLim == -1;
+		int yBand = columnWide ? 0 : entityLocation.getBlockY();
+		int x = entityLocation.getBlockX();
+		int z = entityLocation.getBlockZ();
+		
+		Boolean remembered = this.memo.get(snapshot, world.getName(), x, yBand, z);
+		if(remembered != null) {
+			return remembered;
+		}
+		
+		boolean decision = findCoveringTorch(snapshot, world.getName(), x, entityLocation.getBlockY(), z) != null;
+		this.memo.put(x, yBand, z, decision);
+		return decision;
+	}
+	
+	/**
+	 * Check if a block is protected by a Torch, the same way spawns in it are judged. Does not consult the memo
+	 * @param snapshot The snapshot to search
+	 * @param worldName The name of the World
+	 * @param x The block X coordinate
+	 * @param y The block Y coordinate
+	 * @param z The block Z coordinate
+	 * @return True if a Torch covers the block
+	 */
+	public boolean isBlockCovered(TorchSnapshot snapshot, String worldName, int x, int y, int z) {
+		return findCoveringTorch(snapshot, worldName, x, y, z) != null;
+	}
+	
+	/**
+	 * Find a Torch covering a block, without consulting the memo. See {@link #isBlockCoveredBy(Torch, int, int, int)}
+	 * @param snapshot The snapshot to search
+	 * @param worldName The name of the World
+	 * @param x The block X coordinate
+	 * @param y The block Y coordinate
+	 * @param z The block Z coordinate
+	 * @return The first Torch found which covers the block, or null if none does
+	 */
+	@Nullable
+	private Torch findCoveringTorch(TorchSnapshot snapshot, String worldName, int x, int y, int z) {
+		// Every Torch has its own range. The index is two dimensional, the vertical range is checked per Torch
+		List<Torch> candidates = new ArrayList<>();
+		snapshot.getCovering(worldName, x, z, candidates);
+		
+		for(Torch t : candidates) {
+			if(isBlockCoveredBy(t, x, y, z)) {
+				return t;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Check if a block is covered by a Torch. The block is checked at the center of its floor, where natural spawning places mobs, so every Location in the block gets the same answer.
+	 * Checking the exact Location instead would make a remembered decision depend on which spawn attempt in the block came first
+	 * @param t The Torch
+	 * @param x The block X coordinate
+	 * @param y The block Y coordinate
+	 * @param z The block Z coordinate
+	 * @return True if the Torch covers the block
+	 */
+	public boolean isBlockCoveredBy(Torch t, int x, int y, int z) {
+		return isCoveredBy(t, x + 0.5D, y, z + 0.5D);
+	}
+	
+	/**
+	 * Check if a position is covered by a Torch, using the configured shape and Y limits. The Torch is assumed to be in the same World as the position
+	 * @param t The Torch
+	 * @param x The X coordinate
+	 * @param y The Y coordinate
+	 * @param z The Z coordinate
+	 * @return True if the Torch covers the position
+	 */
+	public boolean isCoveredBy(Torch t, double x, double y, double z) {
+		final TorchRangeShape shape = this.shape;
+		final int yAboveLim = this.yAboveLim;
+		final int yBelowLim = this.yBelowLim;
+		
+		double radius = t.getRange();
+		double distanceX = t.getBlockX() - x;
+		double distanceZ = t.getBlockZ() - z;
+		
+		if(!shape.isThreeDimensional()) {
+			if(shape.isRound()) {
+				//Check if the distance cylindrical is less than the defined range squared
+				if(distanceX * distanceX + distanceZ * distanceZ > radius * radius) {
+					return false;
+				}
+			} else if(!(Math.abs(distanceX) < radius && Math.abs(distanceZ) < radius)) {
+				return false;
+			}
+		} else {
+			double vertical = (this.verticalRange > 0) ? this.verticalRange : radius;
+			double distanceY = t.getBlockY() - y;
+			
+			if(shape.isRound()) {
+				// Inside the ellipsoid if (dx^2 + dz^2) / h^2 + dy^2 / v^2 <= 1. Multiplied out, so it costs the same as the cylinder check
+				if((distanceX * distanceX + distanceZ * distanceZ) * vertical * vertical + distanceY * distanceY * radius * radius > radius * radius * vertical * vertical) {
+					return false;
+				}
+			} else if(!(Math.abs(distanceX) < radius && Math.abs(distanceZ) < radius && Math.abs(distanceY) <= vertical)) {
+				return false;
+			}
+		}
+		
+		boolean yAboveSatisfied = false;
+		boolean yBelowSatisfied = false;
+		
+		if(yAboveLim != -1) {
+			if(t.getBlockY() + yAboveLim <= y) {
+				yAboveSatisfied = true;
+			}
+		} else {
+			yAboveSatisfied = true;
+		}
+		
+		if(yBelowLim != -1) {
+			if(t.getBlockY() - yBelowLim >= y) {
+				yBelowSatisfied = true;
+			}
+		} else {
+			yBelowSatisfied = true;
+		}
+		
+		return yAboveSatisfied && yBelowSatisfied;
+	}
+	
+	/**
+	 * Record a spawn which was blocked
+	 * @param et The type of the entity
+	 * @param beforeSpawn True if it was blocked before the entity was created
+	 */
+	void recordBlocked(EntityType et, boolean beforeSpawn) {
+		this.blockedByType[et.ordinal()].increment();
+		
+		if(beforeSpawn) {
+			this.blockedBeforeSpawn.increment();
+		} else {
+			this.blockedAfterSpawn.increment();
+		}
+	}
+	
+	/**
+	 * @return The amount of spawns blocked through Paper's PreCreatureSpawnEvent, before the entity was created, since the plugin was enabled
+	 */
+	public long getBlockedBeforeSpawn() {
+		return this.blockedBeforeSpawn.sum();
+	}
+	
+	/**
+	 * @return The amount of spawns blocked through the CreatureSpawnEvent, after the entity was created, since the plugin was enabled
+	 */
+	public long getBlockedAfterSpawn() {
+		return this.blockedAfterSpawn.sum();
+	}
+	
+	/**
+	 * @param et The type of entity
+	 * @return The amount of spawns of that type blocked since the plugin was enabled
+	 */
+	public long getBlocked(EntityType et) {
+		return this.blockedByType[et.ordinal()].sum();
+	}
+	
+	/**
+	 * @return The trace of recent spawn decisions
+	 */
+	public SpawnTrace getTrace() {
+		return this.trace;
+	}
+	
+	/**
+	 * @return The amount of coverage lookups answered from the decisions remembered during the tick, since the plugin was enabled
+	 */
+	public long getMemoHits() {
+		return this.memo.getHits();
+	}
+	
+	/**
+	 * @return The amount of coverage lookups which had to visit the Torches, since the plugin was enabled
+	 */
+	public long getMemoMisses() {
+		return this.memo.getMisses();
+	}
+}
@@ -0,0 +1,59 @@
+package dev.array21.harotorch.events;
+
+/**
+ * The rule of the {@link SpawnFilter} which decided a spawn
+ */
+public enum SpawnRule {
+	/**
+	 * Players are never blocked
+	 */
+	PLAYER(false),
+	
+	/**
+	 * Only living entities are blocked
+	 */
+	NOT_LIVING(false),
+	
+	/**
+	 * Spawns from spawners are never blocked
+	 */
+	SPAWNER(false),
+	
+	/**
+	 * The entity is in excludedEntities
+	 */
+	EXCLUDED(false),
+	
+	/**
+	 * Only hostile mobs are blocked, and the entity is not one
+	 */
+	NOT_HOSTILE(false),
+	
+	/**
+	 * Withers and ender dragons are never blocked
+	 */
+	BOSS(false),
+	
+	/**
+	 * No Torch covers the Location
+	 */
+	NOT_COVERED(false),
+	
+	/**
+	 * A Torch covers the Location
+	 */
+	COVERED(true);
+	
+	private final boolean blocked;
+	
+	private SpawnRule(boolean blocked) {
+		this.blocked = blocked;
+	}
+	
+	/**
+	 * @return True if spawns decided by this rule are blocked
+	 */
+	public boolean isBlocked() {
+		return this.blocked;
+	}
+}
@@ -0,0 +1,331 @@
+package dev.array21.harotorch.events;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.CreatureSpawnEvent.SpawnReason;
+
+import dev.array21.harotorch.annotations.Nullable;
+import dev.array21.harotorch.torch.Torch;
+import dev.array21.harotorch.torch.TorchChange;
+
+/**
+ * A ring buffer of the most recent spawn decisions of the {@link SpawnFilter}, to find out afterwards why a mob could spawn somewhere.<br>
+ * Nothing is recorded until tracing is turned on for all Worlds, a World, or an area. Within those only one in {@link #getSampleRate()} spawns is recorded.
+ * The entries are stored in preallocated arrays, so recording a decision allocates nothing. It takes a short lock, as spawns are decided on many threads on Folia.
+ */
+public class SpawnTrace {
+	
+	/**
+	 * How many decisions are kept. Must be a power of two
+	 */
+	public static final int CAPACITY = 8192;
+	private static final int MASK = CAPACITY - 1;
+	
+	private static final EntityType[] ENTITY_TYPES = EntityType.values();
+	private static final SpawnReason[] REASONS = SpawnReason.values();
+	private static final SpawnRule[] RULES = SpawnRule.values();
+	
+	private final long[] times = new long[CAPACITY];
+	private final String[] worlds = new String[CAPACITY];
+	private final long[] positions = new long[CAPACITY];
+	private final long[] torches = new long[CAPACITY];
+	private final boolean[] hasTorch = new boolean[CAPACITY];
+	private final short[] types = new short[CAPACITY];
+	private final short[] reasons = new short[CAPACITY];
+	private final boolean[] beforeSpawn = new boolean[CAPACITY];
+	private final byte[] rules = new byte[CAPACITY];
+	
+	/**
+	 * The amount of decisions recorded since the trace was last cleared. Guarded by this
+	 */
+	private long recorded = 0;
+	
+	/**
+	 * Where spawns are traced. Replaced as a whole when changed, so checking it needs no lock. Empty when tracing is off
+	 */
+	private volatile Scope[] scopes = new Scope[0];
+	private volatile int sampleRate;
+	
+	/**
+	 * @param sampleRate Record one in this many spawns
+	 */
+	SpawnTrace(int sampleRate) {
+		this.sampleRate = Math.max(1, sampleRate);
+	}
+	
+	/**
+	 * Check if the decision for a spawn should be recorded
+	 * @param location Where the entity is spawning
+	 * @return True if the Location is traced and the spawn was sampled
+	 */
+	boolean shouldRecord(Location location) {
+		Scope[] scopes = this.scopes;
+		if(scopes.length == 0) {
+			return false;
+		}
+		
+		World world = location.getWorld();
+		if(world == null) {
+			return false;
+		}
+		
+		String worldName = world.getName();
+		int x = location.getBlockX();
+		int z = location.getBlockZ();
+		
+		boolean traced = false;
+		for(Scope scope : scopes) {
+			if(scope.contains(worldName, x, z)) {
+				traced = true;
+				break;
+			}
+		}
+		
+		if(!traced) {
+			return false;
+		}
+		
+		int rate = this.sampleRate;
+		return rate <= 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+	}
+	
+	/**
+	 * Record a spawn decision, overwriting the oldest one if the trace is full
+	 * @param et The type of the entity
+	 * @param reason Why the entity is spawning
+	 * @param location Where the entity is spawning. Its World must not be null
+	 * @param beforeSpawn True if the spawn was checked before the entity was created
+	 * @param rule The rule which decided the spawn
+	 * @param torch The Torch covering the Location, if the spawn was blocked
+	 */
+	synchronized void record(EntityType et, SpawnReason reason, Location location, boolean beforeSpawn, SpawnRule rule, @Nullable Torch torch) {
+		int i = (int) (this.recorded++ & MASK);
+		
+		this.times[i] = System.currentTimeMillis();
+		this.worlds[i] = location.getWorld().getName();
+		this.positions[i] = TorchChange.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+		this.types[i] = (short) et.ordinal();
+		this.reasons[i] = (short) reason.ordinal();
+		this.beforeSpawn[i] = beforeSpawn;
+		this.rules[i] = (byte) rule.ordinal();
+		
+		this.hasTorch[i] = torch != null;
+		if(torch != null) {
+			this.torches[i] = TorchChange.pack(torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+		}
+	}
+	
+	/**
+	 * Trace spawns in all Worlds, replacing all other scopes
+	 */
+	public synchronized void traceEverywhere() {
+		this.scopes = new Scope[] { new Scope(null, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE) };
+	}
+	
+	/**
+	 * Trace spawns in a World, in addition to what is already traced
+	 * @param worldName The name of the World
+	 */
+	public synchronized void traceWorld(String worldName) {
+		addScope(new Scope(worldName, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE));
+	}
+	
+	/**
+	 * Trace spawns in a square area, in addition to what is already traced
+	 * @param worldName The name of the World
+	 * @param x The X coordinate of the center
+	 * @param z The Z coordinate of the center
+	 * @param radius Half the width of the area. In blocks
+	 */
+	public synchronized void traceArea(String worldName, int x, int z, int radius) {
+		addScope(new Scope(worldName, x - radius, x + radius, z - radius, z + radius));
+	}
+	
+	private void addScope(Scope scope) {
+		Scope[] scopes = Arrays.copyOf(this.scopes, this.scopes.length + 1);
+		scopes[scopes.length - 1] = scope;
+		this.scopes = scopes;
+	}
+	
+	/**
+	 * Stop tracing. The recorded decisions are kept
+	 */
+	public synchronized void stop() {
+		this.scopes = new Scope[0];
+	}
+	
+	/**
+	 * Forget all recorded decisions
+	 */
+	public synchronized void clear() {
+		this.recorded = 0;
+		Arrays.fill(this.worlds, null);
+	}
+	
+	public boolean isTracing() {
+		return this.scopes.length > 0;
+	}
+	
+	/**
+	 * @return A description of every traced World or area
+	 */
+	public List<String> getScopes() {
+		List<String> result = new ArrayList<>();
+		for(Scope scope : this.scopes) {
+			result.add(scope.toString());
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @return Only one in this many spawns is recorded
+	 */
+	public int getSampleRate() {
+		return this.sampleRate;
+	}
+	
+	/**
+	 * @param sampleRate Record one in this many spawns. Values below 1 are treated as 1
+	 */
+	public void setSampleRate(int sampleRate) {
+		this.sampleRate = Math.max(1, sampleRate);
+	}
+	
+	/**
+	 * @return The amount of decisions recorded since the trace was last cleared, including those which have been overwritten
+	 */
+	public synchronized long getRecorded() {
+		return this.recorded;
+	}
+	
+	/**
+	 * Write the recorded decisions to a new CSV file, oldest first.
+	 * The stage column is 'pre' for spawns checked before the entity was created and 'post' for spawns checked after, on Paper an allowed spawn can have both
+	 * @param directory The directory to write the file to
+	 * @return The file
+	 * @throws IOException If writing the file failed
+	 */
+	public File dump(File directory) throws IOException {
+		long[] times;
+		String[] worlds;
+		long[] positions;
+		long[] torches;
+		boolean[] hasTorch;
+		short[] types;
+		short[] reasons;
+		boolean[] beforeSpawn;
+		byte[] rules;
+		long recorded;
+		
+		// Copied, so spawns don't wait for the file to be written
+		synchronized(this) {
+			times = this.times.clone();
+			worlds = this.worlds.clone();
+			positions = this.positions.clone();
+			torches = this.torches.clone();
+			hasTorch = this.hasTorch.clone();
+			types = this.types.clone();
+			reasons = this.reasons.clone();
+			beforeSpawn = this.beforeSpawn.clone();
+			rules = this.rules.clone();
+			recorded = this.recorded;
+		}
+		
+		if(!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("Failed to create " + directory.getAbsolutePath());
+		}
+		
+		SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+		File file = new File(directory, "spawntrace-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv");
+		try(PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			out.println("time,world,x,y,z,entity_type,reason,stage,blocked,rule,torch_x,torch_y,torch_z");
+			
+			long oldest = Math.max(0, recorded - CAPACITY);
+			for(long n = oldest; n < recorded; n++) {
+				int i = (int) (n & MASK);
+				SpawnRule rule = RULES[rules[i]];
+				
+				StringBuilder line = new StringBuilder(128)
+						.append(timeFormat.format(new Date(times[i]))).append(',')
+						.append(csv(worlds[i])).append(',')
+						.append(TorchChange.unpackX(positions[i])).append(',')
+						.append(TorchChange.unpackY(positions[i])).append(',')
+						.append(TorchChange.unpackZ(positions[i])).append(',')
+						.append(ENTITY_TYPES[types[i]].name()).append(',')
+						.append(REASONS[reasons[i]].name()).append(',')
+						.append(beforeSpawn[i] ? "pre" : "post").append(',')
+						.append(rule.isBlocked()).append(',')
+						.append(rule.name()).append(',');
+				
+				if(hasTorch[i]) {
+					line.append(TorchChange.unpackX(torches[i])).append(',').append(TorchChange.unpackY(torches[i])).append(',').append(TorchChange.unpackZ(torches[i]));
+				} else {
+					line.append(",,");
+				}
+				
+				out.println(line);
+			}
+		}
+		
+		return file;
+	}
+	
+	private static String csv(String value) {
+		if(value.indexOf(',') == -1 && value.indexOf('"') == -1) {
+			return value;
+		}
+		
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+	
+	private static class Scope {
+		@Nullable
+		private final String worldName;
+		private final int minX, maxX, minZ, maxZ;
+		
+		/**
+		 * @param worldName The World, or null for all Worlds
+		 */
+		private Scope(@Nullable String worldName, int minX, int maxX, int minZ, int maxZ) {
+			this.worldName = worldName;
+			this.minX = minX;
+			this.maxX = maxX;
+			this.minZ = minZ;
+			this.maxZ = maxZ;
+		}
+		
+		private boolean contains(String worldName, int x, int z) {
+			if(this.worldName != null && !this.worldName.equals(worldName)) {
+				return false;
+			}
+			
+			return x >= this.minX && x <= this.maxX && z >= this.minZ && z <= this.maxZ;
+		}
+		
+		@Override
+		public String toString() {
+			if(this.worldName == null) {
+				return "all worlds";
+			}
+			
+			if(this.minX == Integer.MIN_VALUE) {
+				return this.worldName;
+			}
+			
+			return this.worldName + " from " + this.minX + ", " + this.minZ + " to " + this.maxX + ", " + this.maxZ;
+		}
+	}
+}
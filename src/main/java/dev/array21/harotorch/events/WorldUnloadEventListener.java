@@ -0,0 +1,21 @@
+package dev.array21.harotorch.events;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import dev.array21.harotorch.HaroTorch;
+
+public class WorldUnloadEventListener implements Listener {
+
+	private HaroTorch plugin;
+	
+	public WorldUnloadEventListener(HaroTorch plugin) {
+		this.plugin = plugin;
+	}
+	
+	@EventHandler
+	public void onWorldUnloadEvent(WorldUnloadEvent event) {
+		this.plugin.getHighlightSessionManager().dropPool(event.getWorld());
+	}
+}
@@ -0,0 +1,373 @@
+package dev.array21.harotorch.highlight;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Entity;
+
+import dev.array21.bukkitreflectionlib.ReflectionUtil;
+
+/**
+ * Version adapter for BlockDisplay entities, which were added in MC 1.19.4.<br>
+ * The displays only exist on the client of the Player who is shown them. The server never adds them to a World, so they are not ticked or tracked,
+ * and only the packets to spawn and remove them are built here, with entity IDs taken from the same counter as the entities of the server.<br>
+ * The block and transformation of a display are set through the Bukkit API on a template entity, which is never added to a World either,
+ * and the packets are built from its entity data. HaroTorch is compiled against an older API, so everything is resolved through reflection once, when the bridge is created.
+ * If anything cannot be resolved the constructor throws, and display entities are not used.
+ */
+public class DisplayEntityBridge {
+	
+	/**
+	 * (Object entityType, Object level) -> Object blockDisplay
+	 */
+	private final MethodHandle newBlockDisplay;
+	
+	/**
+	 * The NMS EntityType of BlockDisplays
+	 */
+	private final Object blockDisplayType;
+	
+	/**
+	 * The counter the server takes the IDs of its entities from
+	 */
+	private final AtomicInteger entityCounter;
+	
+	/**
+	 * (World world) -> Object level
+	 */
+	private final MethodHandle getLevel;
+	
+	/**
+	 * (Object entity) -> Entity bukkitEntity
+	 */
+	private final MethodHandle getBukkitEntity;
+	
+	/**
+	 * (Object entity) -> Object entityData
+	 */
+	private final MethodHandle getEntityData;
+	
+	/**
+	 * (Object entityData) -> List values. All values which differ from their default, without clearing which are dirty
+	 */
+	private final MethodHandle getNonDefaultValues;
+	
+	/**
+	 * (int id, UUID uuid, double x, double y, double z, float xRot, float yRot, Object entityType, int data, Object velocity, double yHeadRot) -> Object packet
+	 */
+	private final MethodHandle newAddEntityPacket;
+	
+	/**
+	 * (int id, List values) -> Object packet
+	 */
+	private final MethodHandle newEntityDataPacket;
+	
+	/**
+	 * (int[] ids) -> Object packet
+	 */
+	private final MethodHandle newRemoveEntitiesPacket;
+	
+	/**
+	 * A velocity of zero, for the add entity packet
+	 */
+	private final Object zeroVelocity;
+	
+	/**
+	 * (Entity blockDisplay, BlockData block) -> void
+	 */
+	private final MethodHandle setBlock;
+	
+	/**
+	 * (Entity display, Object transformation) -> void
+	 */
+	private final MethodHandle setTransformation;
+	
+	/**
+	 * (Object translation, Object leftRotation, Object scale, Object rightRotation) -> Object transformation
+	 */
+	private final MethodHandle newTransformation;
+	
+	/**
+	 * (float x, float y, float z) -> Object vector3f
+	 */
+	private final MethodHandle newVector;
+	
+	/**
+	 * (float angle, float x, float y, float z) -> Object axisAngle4f
+	 */
+	private final MethodHandle newAxisAngle;
+	
+	public DisplayEntityBridge() throws ReflectiveOperationException {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		
+		Class<?> blockDisplayClass = Class.forName("org.bukkit.entity.BlockDisplay");
+		Class<?> displayClass = Class.forName("org.bukkit.entity.Display");
+		Class<?> transformationClass = Class.forName("org.bukkit.util.Transformation");
+		Class<?> vectorClass = Class.forName("org.joml.Vector3f");
+		Class<?> axisAngleClass = Class.forName("org.joml.AxisAngle4f");
+		
+		this.setBlock = lookup.findVirtual(blockDisplayClass, "setBlock", MethodType.methodType(void.class, BlockData.class))
+				.asType(MethodType.methodType(void.class, Entity.class, BlockData.class));
+		this.setTransformation = lookup.findVirtual(displayClass, "setTransformation", MethodType.methodType(void.class, transformationClass))
+				.asType(MethodType.methodType(void.class, Entity.class, Object.class));
+		
+		this.newTransformation = lookup.findConstructor(transformationClass, MethodType.methodType(void.class, vectorClass, axisAngleClass, vectorClass, axisAngleClass))
+				.asType(MethodType.methodType(Object.class, Object.class, Object.class, Object.class, Object.class));
+		this.newVector = lookup.findConstructor(vectorClass, MethodType.methodType(void.class, float.class, float.class, float.class))
+				.asType(MethodType.methodType(Object.class, float.class, float.class, float.class));
+		this.newAxisAngle = lookup.findConstructor(axisAngleClass, MethodType.methodType(void.class, float.class, float.class, float.class, float.class))
+				.asType(MethodType.methodType(Object.class, float.class, float.class, float.class, float.class));
+		
+		try {
+			Class<?> nmsBlockDisplayClass = ReflectionUtil.getMinecraftClass("world.entity.Display$BlockDisplay");
+			Constructor<?> blockDisplayConstructor = nmsBlockDisplayClass.getConstructors()[0];
+			if(blockDisplayConstructor.getParameterCount() != 2) {
+				throw new NoSuchMethodException("Display.BlockDisplay(EntityType, Level)");
+			}
+			
+			this.newBlockDisplay = lookup.unreflectConstructor(blockDisplayConstructor)
+					.asType(MethodType.methodType(Object.class, Object.class, Object.class));
+			this.blockDisplayType = findEntityType(blockDisplayConstructor.getParameterTypes()[0], nmsBlockDisplayClass);
+			
+			Field counterField = findStaticField(nmsBlockDisplayClass, AtomicInteger.class);
+			counterField.setAccessible(true);
+			this.entityCounter = (AtomicInteger) counterField.get(null);
+			
+			Method getHandle = ReflectionUtil.getBukkitClass("CraftWorld").getMethod("getHandle");
+			this.getLevel = lookup.unreflect(getHandle)
+					.asType(MethodType.methodType(Object.class, World.class));
+			this.getBukkitEntity = lookup.unreflect(nmsBlockDisplayClass.getMethod("getBukkitEntity"))
+					.asType(MethodType.methodType(Entity.class, Object.class));
+			
+			Field entityDataField = findFieldByType(nmsBlockDisplayClass, "SynchedEntityData", "DataWatcher");
+			entityDataField.setAccessible(true);
+			this.getEntityData = lookup.unreflectGetter(entityDataField)
+					.asType(MethodType.methodType(Object.class, Object.class));
+			
+			Constructor<?> addEntityConstructor = findConstructor(getPacketClass("ClientboundAddEntityPacket", "PacketPlayOutSpawnEntity"),
+					int.class, UUID.class, double.class, double.class, double.class, float.class, float.class, null, int.class, null, double.class);
+			this.newAddEntityPacket = lookup.unreflectConstructor(addEntityConstructor)
+					.asType(MethodType.methodType(Object.class, int.class, UUID.class, double.class, double.class, double.class, float.class, float.class, Object.class, int.class, Object.class, double.class));
+			this.zeroVelocity = addEntityConstructor.getParameterTypes()[9].getConstructor(double.class, double.class, double.class).newInstance(0d, 0d, 0d);
+			
+			this.newEntityDataPacket = lookup.unreflectConstructor(findConstructor(getPacketClass("ClientboundSetEntityDataPacket", "PacketPlayOutEntityMetadata"), int.class, List.class))
+					.asType(MethodType.methodType(Object.class, int.class, List.class));
+			this.newRemoveEntitiesPacket = lookup.unreflectConstructor(findConstructor(getPacketClass("ClientboundRemoveEntitiesPacket", "PacketPlayOutEntityDestroy"), int[].class))
+					.asType(MethodType.methodType(Object.class, int[].class));
+			
+			this.getNonDefaultValues = findNonDefaultValues(lookup, entityDataField.getType());
+		} catch(ReflectiveOperationException e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new ReflectiveOperationException("Unexpected error while resolving display entities: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Get an NMS packet class by its Mojang name, or its Spigot name
+	 */
+	private static Class<?> getPacketClass(String mojangName, String spigotName) throws ClassNotFoundException {
+		try {
+			return ReflectionUtil.getMinecraftClass("network.protocol.game." + spigotName);
+		} catch(ClassNotFoundException e) {
+			return ReflectionUtil.getMinecraftClass("network.protocol.game." + mojangName);
+		}
+	}
+	
+	/**
+	 * Find a public constructor by its parameter types. A null type matches any parameter
+	 */
+	private static Constructor<?> findConstructor(Class<?> clazz, Class<?>... params) throws NoSuchMethodException {
+		for(Constructor<?> c : clazz.getConstructors()) {
+			Class<?>[] types = c.getParameterTypes();
+			if(types.length != params.length) {
+				continue;
+			}
+			
+			boolean matches = true;
+			for(int i = 0; i < types.length && matches; i++) {
+				matches = params[i] == null || params[i] == types[i];
+			}
+			
+			if(matches) {
+				return c;
+			}
+		}
+		
+		throw new NoSuchMethodException("Constructor of " + clazz.getName() + " with " + params.length + " parameters");
+	}
+	
+	/**
+	 * Find the EntityType of an entity class. The names of the constants differ between mappings, so the constant is found by its type argument
+	 */
+	private static Object findEntityType(Class<?> entityTypeClass, Class<?> entityClass) throws ReflectiveOperationException {
+		for(Field f : entityTypeClass.getDeclaredFields()) {
+			if(!Modifier.isStatic(f.getModifiers()) || f.getType() != entityTypeClass) {
+				continue;
+			}
+			
+			Type type = f.getGenericType();
+			if(type instanceof ParameterizedType && ((ParameterizedType) type).getActualTypeArguments()[0] == entityClass) {
+				f.setAccessible(true);
+				return f.get(null);
+			}
+		}
+		
+		throw new NoSuchFieldException("EntityType of " + entityClass.getName());
+	}
+	
+	/**
+	 * Find a static field by its type, in a class or its superclasses
+	 */
+	private static Field findStaticField(Class<?> clazz, Class<?> type) throws NoSuchFieldException {
+		for(Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+			for(Field f : c.getDeclaredFields()) {
+				if(Modifier.isStatic(f.getModifiers()) && f.getType() == type) {
+					return f;
+				}
+			}
+		}
+		
+		throw new NoSuchFieldException(type.getSimpleName() + " field on " + clazz.getName());
+	}
+	
+	/**
+	 * Find a non-static field by the simple name of its type, in a class or its superclasses. The name differs between mappings, so any of the given names matches
+	 */
+	private static Field findFieldByType(Class<?> clazz, String... typeNames) throws NoSuchFieldException {
+		for(Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+			for(Field f : c.getDeclaredFields()) {
+				if(Modifier.isStatic(f.getModifiers())) {
+					continue;
+				}
+				
+				for(String name : typeNames) {
+					if(f.getType().getSimpleName().equals(name)) {
+						return f;
+					}
+				}
+			}
+		}
+		
+		throw new NoSuchFieldException(typeNames[0] + " field on " + clazz.getName());
+	}
+	
+	/**
+	 * Find the method returning all values of the entity data which differ from their default.
+	 * The entity data has two methods returning a List without parameters, the other one returns only the dirty values and clears them.
+	 * Their names differ between mappings, so they are told apart on a template entity: only the method looked for returns the values a second time
+	 */
+	private MethodHandle findNonDefaultValues(MethodHandles.Lookup lookup, Class<?> entityDataClass) throws Throwable {
+		Template probe = createTemplate(Bukkit.getWorlds().get(0), Material.STONE.createBlockData());
+		
+		for(Method m : entityDataClass.getMethods()) {
+			if(Modifier.isStatic(m.getModifiers()) || m.getParameterCount() != 0 || m.getReturnType() != List.class) {
+				continue;
+			}
+			
+			MethodHandle handle = lookup.unreflect(m).asType(MethodType.methodType(List.class, Object.class));
+			List<?> first = (List<?>) handle.invokeExact(probe.entityData);
+			List<?> second = (List<?>) handle.invokeExact(probe.entityData);
+			if(first != null && !first.isEmpty() && second != null && second.size() == first.size()) {
+				return handle;
+			}
+		}
+		
+		throw new NoSuchMethodException("Non default values of " + entityDataClass.getName());
+	}
+	
+	/**
+	 * Create a template for the displays of one outline. It is never added to the World
+	 * @param world The World the displays are shown in
+	 * @param block The block the displays show
+	 * @return The template
+	 * @throws ReflectiveOperationException If the template could not be created
+	 */
+	Template createTemplate(World world, BlockData block) throws ReflectiveOperationException {
+		try {
+			Object handle = (Object) this.newBlockDisplay.invokeExact(this.blockDisplayType, (Object) this.getLevel.invokeExact(world));
+			Entity entity = (Entity) this.getBukkitEntity.invokeExact(handle);
+			this.setBlock.invokeExact(entity, block);
+			
+			return new Template(entity, (Object) this.getEntityData.invokeExact(handle));
+		} catch(ReflectiveOperationException e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new ReflectiveOperationException("Failed to create BlockDisplay template", e);
+		}
+	}
+	
+	/**
+	 * Build the packets to spawn a display stretched into a bar from a position along the XZ plane, using the block of a template
+	 * @param template The template, see {@link #createTemplate(World, BlockData)}. Its transformation is changed
+	 * @param x The X coordinate where the bar starts
+	 * @param y The Y coordinate where the bar starts
+	 * @param z The Z coordinate where the bar starts
+	 * @param length The length of the bar. In blocks
+	 * @param thickness The width and height of the bar. In blocks
+	 * @param angle The rotation of the bar around the Y axis. 0 points towards +X, in radians
+	 * @param packets The List to add the packets to
+	 * @return The entity ID of the display
+	 * @throws ReflectiveOperationException If the packets could not be built
+	 */
+	int addBar(Template template, double x, double y, double z, float length, float thickness, float angle, List<Object> packets) throws ReflectiveOperationException {
+		try {
+			final Object transformation = (Object) this.newTransformation.invokeExact(
+					(Object) this.newVector.invokeExact(0f, 0f, 0f),
+					(Object) this.newAxisAngle.invokeExact(angle, 0f, 1f, 0f),
+					(Object) this.newVector.invokeExact(length, thickness, thickness),
+					(Object) this.newAxisAngle.invokeExact(0f, 0f, 1f, 0f));
+			this.setTransformation.invokeExact(template.entity, transformation);
+			
+			int id = this.entityCounter.incrementAndGet();
+			packets.add((Object) this.newAddEntityPacket.invokeExact(id, UUID.randomUUID(), x, y, z, 0f, 0f, this.blockDisplayType, 0, this.zeroVelocity, 0d));
+			packets.add((Object) this.newEntityDataPacket.invokeExact(id, (List<?>) this.getNonDefaultValues.invokeExact(template.entityData)));
+			return id;
+		} catch(ReflectiveOperationException e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new ReflectiveOperationException("Failed to build BlockDisplay packets", e);
+		}
+	}
+	
+	/**
+	 * Build the packet removing displays from the client
+	 * @param ids The entity IDs of the displays
+	 * @return The packet
+	 * @throws ReflectiveOperationException If the packet could not be built
+	 */
+	Object createRemovePacket(int[] ids) throws ReflectiveOperationException {
+		try {
+			return (Object) this.newRemoveEntitiesPacket.invokeExact(ids);
+		} catch(Throwable e) {
+			throw new ReflectiveOperationException("Failed to build the remove packet", e);
+		}
+	}
+	
+	/**
+	 * A BlockDisplay which is never added to a World, used to build the entity data of displays
+	 */
+	static class Template {
+		private final Entity entity;
+		private final Object entityData;
+		
+		private Template(Entity entity, Object entityData) {
+			this.entity = entity;
+			this.entityData = entityData;
+		}
+	}
+}
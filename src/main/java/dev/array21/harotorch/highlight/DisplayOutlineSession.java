@@ -0,0 +1,149 @@
+package dev.array21.harotorch.highlight;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.config.ConfigManifest.TorchRangeShape;
+import dev.array21.harotorch.nms.PacketBridgeException;
+import dev.array21.harotorch.particles.OutlineTemplates;
+import dev.array21.harotorch.torch.Torch;
+import dev.array21.harotorch.torch.TorchHandler;
+
+/**
+ * The area of effect outlines of the Torches around a Player, drawn with BlockDisplays which only exist on the client of that Player.<br>
+ * Unlike particles the displays stay visible on their own, so they are sent once and only rebuilt when a Torch within range of the session is added or removed.
+ * Torches are changed from any thread, so spawning and removing the displays is synchronized.
+ */
+class DisplayOutlineSession {
+	
+	/**
+	 * How many outline points one bar spans
+	 */
+	private static final int POINTS_PER_BAR = 4;
+	
+	/**
+	 * The width and height of a bar. In blocks
+	 */
+	private static final float BAR_THICKNESS = 0.1f;
+	
+	private static final BlockData BAR_BLOCK = Material.LIGHT_BLUE_STAINED_GLASS.createBlockData();
+	
+	private final HaroTorch plugin;
+	private final DisplayEntityBridge bridge;
+	private final Player viewer;
+	private final Location center;
+	private final int searchRadius;
+	
+	/**
+	 * The entity IDs of the displays the viewer has been sent
+	 */
+	private int[] displays = new int[0];
+	
+	/**
+	 * @param plugin The HaroTorch instance
+	 * @param bridge The DisplayEntityBridge to build the displays with
+	 * @param viewer The Player who can see the displays
+	 * @param searchRadius The radius around the Player in which Torches are outlined
+	 */
+	DisplayOutlineSession(HaroTorch plugin, DisplayEntityBridge bridge, Player viewer, int searchRadius) {
+		this.plugin = plugin;
+		this.bridge = bridge;
+		this.viewer = viewer;
+		this.center = viewer.getLocation();
+		this.searchRadius = searchRadius;
+	}
+	
+	/**
+	 * Send the displays to the viewer
+	 * @return False if sending failed, in which case no displays are left behind
+	 */
+	synchronized boolean spawn() {
+		final World world = this.center.getWorld();
+		final TorchRangeShape shape = this.plugin.getConfigManifest().getTorchRangeShape();
+		
+		List<Object> packets = new ArrayList<>();
+		List<Integer> ids = new ArrayList<>();
+		
+		try {
+			DisplayEntityBridge.Template displayTemplate = this.bridge.createTemplate(world, BAR_BLOCK);
+			
+			for(Torch torch : TorchHandler.getTorchesNear(world.getName(), this.center.getX(), this.center.getY(), this.center.getZ(), this.searchRadius)) {
+				final int range = torch.getRange();
+				final int[] template = shape.isRound() ? OutlineTemplates.getCircle(range) : OutlineTemplates.getSquare(range);
+				final int points = template.length / 2;
+				
+				for(int p = 0; p < points; p += POINTS_PER_BAR) {
+					int q = (p + POINTS_PER_BAR) % points;
+					
+					int x0 = torch.getBlockX() + template[p * 2];
+					int z0 = torch.getBlockZ() + template[p * 2 + 1];
+					int x1 = torch.getBlockX() + template[q * 2];
+					int z1 = torch.getBlockZ() + template[q * 2 + 1];
+					
+					float dx = x1 - x0;
+					float dz = z1 - z0;
+					float length = (float) Math.sqrt(dx * dx + dz * dz);
+					
+					// At the height of the Torch, so no blocks of the World have to be read, and the outline can be built from any thread
+					ids.add(this.bridge.addBar(displayTemplate, x0 + 0.5d, torch.getBlockY(), z0 + 0.5d, length, BAR_THICKNESS, (float) Math.atan2(-dz, dx), packets));
+				}
+			}
+			
+			this.displays = ids.stream().mapToInt(Integer::intValue).toArray();
+			this.plugin.getPacketBridge().sendPackets(this.viewer, packets);
+		} catch(ReflectiveOperationException | PacketBridgeException e) {
+			HaroTorch.logWarn("Failed to send BlockDisplays: " + e.getMessage());
+			e.printStackTrace();
+			remove();
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Remove all displays from the viewer. Not sent when the viewer left, as the client has dropped them already
+	 */
+	synchronized void remove() {
+		int[] ids = this.displays;
+		this.displays = new int[0];
+		
+		if(ids.length == 0 || !this.viewer.isOnline()) {
+			return;
+		}
+		
+		try {
+			this.plugin.getPacketBridge().sendPacket(this.plugin.getPacketBridge().getConnection(this.viewer), this.bridge.createRemovePacket(ids));
+		} catch(ReflectiveOperationException | PacketBridgeException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Check if a Torch is outlined by this session, or would be if it existed
+	 * @param torch The Torch
+	 * @return True if the session should be rebuilt when the Torch changes
+	 */
+	boolean isAffectedBy(Torch torch) {
+		if(!torch.getWorldName().equals(this.center.getWorld().getName())) {
+			return false;
+		}
+		
+		return Math.abs(torch.getBlockX() - this.center.getX()) <= this.searchRadius && Math.abs(torch.getBlockZ() - this.center.getZ()) <= this.searchRadius;
+	}
+	
+	/**
+	 * Send the displays again, after a Torch in range was added or removed
+	 */
+	synchronized boolean rebuild() {
+		remove();
+		return spawn();
+	}
+}
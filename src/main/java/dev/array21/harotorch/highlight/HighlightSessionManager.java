@@ -0,0 +1,269 @@
+package dev.array21.harotorch.highlight;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import dev.array21.bukkitreflectionlib.abstractions.entity.Entity;
+import dev.array21.bukkitreflectionlib.abstractions.entity.monster.EntityMagmaCube;
+import dev.array21.bukkitreflectionlib.abstractions.packet.EntityDestroyPacket;
+import dev.array21.bukkitreflectionlib.abstractions.packet.EntityMetadataPacket;
+import dev.array21.bukkitreflectionlib.abstractions.packet.EntitySpawnPacket;
+import dev.array21.bukkitreflectionlib.abstractions.world.CraftWorld;
+import dev.array21.bukkitreflectionlib.exceptions.ReflectException;
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.nms.PacketBridge;
+import dev.array21.harotorch.nms.PacketBridgeException;
+import dev.array21.harotorch.scheduler.TaskHandle;
+import dev.array21.harotorch.torch.Torch;
+import dev.array21.harotorch.torch.TorchListener;
+
+/**
+ * Keeps track of the glowing magma cubes shown by /torch highlight, and the BlockDisplay outlines shown by /torch aoe display, per Player.<br>
+ * The magma cubes and displays are never added to a World, they only exist on the client. Their NMS entities are pooled per World and only serve as a source of entity IDs and packets,
+ * so once the pool is large enough no entities are constructed anymore, and the metadata packet of every pooled entity is built only once.<br>
+ * A Player has at most one session of each kind. Starting a new one replaces the old one, and a highlight session is cleared with a single destroy packet.<br>
+ * On Folia sessions are started from the region threads of the Players and end on the global region, so the sessions and pools are safe to use from multiple threads.
+ */
+public class HighlightSessionManager implements TorchListener {
+	
+	private final HaroTorch plugin;
+	
+	/**
+	 * K = The UUID of the World
+	 * V = The pooled magma cubes in that World
+	 */
+	private final ConcurrentHashMap<UUID, List<PooledEntity>> pools = new ConcurrentHashMap<>();
+	
+	/**
+	 * K = The UUID of the Player
+	 * V = The active session of that Player
+	 */
+	private final ConcurrentHashMap<UUID, Session> sessions = new ConcurrentHashMap<>();
+	
+	/**
+	 * K = The UUID of the Player
+	 * V = The active display outline of that Player
+	 */
+	private final ConcurrentHashMap<UUID, DisplaySession> displaySessions = new ConcurrentHashMap<>();
+	
+	public HighlightSessionManager(HaroTorch plugin) {
+		this.plugin = plugin;
+	}
+	
+	/**
+	 * Highlight Torches for a Player, replacing the Player's active session if there is one
+	 * @param player The Player
+	 * @param locations The Locations of the Torches, in the Player's World
+	 * @param durationTicks How long the Torches should be highlighted
+	 * @param onEnd Called when the session ends by running out. Not called when the session is replaced or cleared
+	 * @throws ReflectException If the pooled entities could not be created
+	 * @throws PacketBridgeException If the packets could not be created or sent
+	 */
+	public void startSession(Player player, List<Location> locations, long durationTicks, Runnable onEnd) throws ReflectException, PacketBridgeException {
+		endSession(player, true);
+		
+		PacketBridge bridge = this.plugin.getPacketBridge();
+		List<PooledEntity> pool = this.pools.computeIfAbsent(player.getWorld().getUID(), k -> new ArrayList<>());
+		
+		List<Object> packets = new ArrayList<>(locations.size() * 2);
+		Entity[] entities = new Entity[locations.size()];
+		
+		// The pooled entities are moved around while building packets, so only one session per World may do so at a time
+		synchronized(pool) {
+			fillPool(bridge, pool, player.getWorld(), locations.size());
+			
+			for(int i = 0; i < locations.size(); i++) {
+				Location location = locations.get(i);
+				PooledEntity pooled = pool.get(i);
+				
+				// The spawn packet copies the position when it is created, so the same entity can be moved for the next packet
+				pooled.entity.setLocation(location.getBlockX() + 0.5d, location.getBlockY(), location.getBlockZ() + 0.5d, 0f, 0f);
+				packets.add(bridge.unwrapPacket(EntitySpawnPacket.getInstance(pooled.entity)));
+				packets.add(pooled.metadataPacket);
+				
+				entities[i] = pooled.entity;
+			}
+		}
+		
+		Object destroyPacket = bridge.unwrapPacket(EntityDestroyPacket.getInstance(entities));
+		bridge.sendPackets(player, packets);
+		
+		TaskHandle endTask = this.plugin.getTaskScheduler().runLater(() -> {
+			endSession(player, true);
+			onEnd.run();
+		}, durationTicks);
+		
+		this.sessions.put(player.getUniqueId(), new Session(destroyPacket, endTask));
+	}
+	
+	/**
+	 * End the active session of a Player, if there is one
+	 * @param player The Player
+	 * @param destroy Whether the magma cubes should be removed from the client. Not needed when the Player left or changed Worlds, as the client has dropped them already
+	 */
+	public void endSession(Player player, boolean destroy) {
+		Session session = this.sessions.remove(player.getUniqueId());
+		if(session == null) {
+			return;
+		}
+		
+		session.endTask.cancel();
+		
+		if(destroy && player.isOnline()) {
+			try {
+				this.plugin.getPacketBridge().sendPacket(this.plugin.getPacketBridge().getConnection(player), session.destroyPacket);
+			} catch(PacketBridgeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Show the area of effect of the Torches around a Player with BlockDisplays, replacing the Player's active display outline if there is one
+	 * @param player The Player
+	 * @param bridge The DisplayEntityBridge to build the displays with
+	 * @param searchRadius The radius around the Player in which Torches are outlined
+	 * @param durationTicks How long the outline should be shown
+	 * @param onEnd Called when the session ends by running out. Not called when the session is replaced or cleared
+	 * @return False if the displays could not be sent
+	 */
+	public boolean startDisplaySession(Player player, DisplayEntityBridge bridge, int searchRadius, long durationTicks, Runnable onEnd) {
+		endDisplaySession(player);
+		
+		DisplayOutlineSession outline = new DisplayOutlineSession(this.plugin, bridge, player, searchRadius);
+		if(!outline.spawn()) {
+			return false;
+		}
+		
+		TaskHandle endTask = this.plugin.getTaskScheduler().runLater(() -> {
+			endDisplaySession(player);
+			onEnd.run();
+		}, durationTicks);
+		
+		this.displaySessions.put(player.getUniqueId(), new DisplaySession(outline, endTask));
+		return true;
+	}
+	
+	/**
+	 * End the active display outline of a Player, if there is one
+	 * @param player The Player
+	 */
+	public void endDisplaySession(Player player) {
+		DisplaySession session = this.displaySessions.remove(player.getUniqueId());
+		if(session == null) {
+			return;
+		}
+		
+		session.endTask.cancel();
+		session.outline.remove();
+	}
+	
+	@Override
+	public void onTorchAdded(Torch torch) {
+		rebuildDisplaySessions(torch);
+	}
+	
+	@Override
+	public void onTorchRemoved(Torch torch) {
+		rebuildDisplaySessions(torch);
+	}
+	
+	private void rebuildDisplaySessions(Torch torch) {
+		for(Iterator<DisplaySession> it = this.displaySessions.values().iterator(); it.hasNext();) {
+			DisplaySession session = it.next();
+			if(!session.outline.isAffectedBy(torch)) {
+				continue;
+			}
+			
+			if(!session.outline.rebuild()) {
+				session.endTask.cancel();
+				it.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Drop the pooled entities of a World, so the World can be unloaded
+	 * @param world The World
+	 */
+	public void dropPool(World world) {
+		this.pools.remove(world.getUID());
+	}
+	
+	/**
+	 * End all sessions, removing the magma cubes and displays from every client, and drop all pooled entities
+	 */
+	public void clear() {
+		for(UUID uuid : new ArrayList<>(this.sessions.keySet())) {
+			Player player = this.plugin.getServer().getPlayer(uuid);
+			if(player != null) {
+				endSession(player, true);
+			}
+		}
+		
+		for(DisplaySession session : this.displaySessions.values()) {
+			session.endTask.cancel();
+			session.outline.remove();
+		}
+		
+		this.sessions.clear();
+		this.displaySessions.clear();
+		this.pools.clear();
+	}
+	
+	/**
+	 * Grow the pool of a World until it contains at least the requested amount of entities. The caller must hold the pool's lock
+	 */
+	private void fillPool(PacketBridge bridge, List<PooledEntity> pool, World world, int size) throws ReflectException, PacketBridgeException {
+		if(pool.size() >= size) {
+			return;
+		}
+		
+		CraftWorld craftWorld = CraftWorld.getInstance(world);
+		while(pool.size() < size) {
+			EntityMagmaCube magmaCube = EntityMagmaCube.getInstance(craftWorld);
+			magmaCube.setInvisible(true);
+			magmaCube.setGlowing(true);
+			magmaCube.setSize(2);
+			
+			pool.add(new PooledEntity(magmaCube, bridge.unwrapPacket(EntityMetadataPacket.getInstance(magmaCube))));
+		}
+	}
+	
+	private static class PooledEntity {
+		private final Entity entity;
+		private final Object metadataPacket;
+		
+		private PooledEntity(Entity entity, Object metadataPacket) {
+			this.entity = entity;
+			this.metadataPacket = metadataPacket;
+		}
+	}
+	
+	private static class DisplaySession {
+		private final DisplayOutlineSession outline;
+		private final TaskHandle endTask;
+		
+		private DisplaySession(DisplayOutlineSession outline, TaskHandle endTask) {
+			this.outline = outline;
+			this.endTask = endTask;
+		}
+	}
+	
+	private static class Session {
+		private final Object destroyPacket;
+		private final TaskHandle endTask;
+		
+		private Session(Object destroyPacket, TaskHandle endTask) {
+			this.destroyPacket = destroyPacket;
+			this.endTask = endTask;
+		}
+	}
+}
@@ -93,6 +93,234 @@ public class LangHandler {
 		if(!activeLang.getLangMessages().containsKey("torchLore")) {
 			activeLang.getLangMessages().put("torchLore", "Blocks mob spawns in a configurable radius");
 		}
+		
+		if(!activeLang.getLangMessages().containsKey("unknownTier")) {
+			activeLang.getLangMessages().put("unknownTier", "%TIER% is not a known Torch tier!");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("protectionEntered")) {
+			activeLang.getLangMessages().put("protectionEntered", "You are on protected ground");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("protectionLeft")) {
+			activeLang.getLangMessages().put("protectionLeft", "You left protected ground");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("protectionBossBar")) {
+			activeLang.getLangMessages().put("protectionBossBar", "Protected by a HaroTorch");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("aoeInvalidMode")) {
+			activeLang.getLangMessages().put("aoeInvalidMode", "%MODE% is not a valid mode! Use individual, union or display.");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("helpStatus")) {
+			activeLang.getLangMessages().put("helpStatus", "Show the server load and how particles are being throttled.");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("helpProfile")) {
+			activeLang.getLangMessages().put("helpProfile", "Show how long HaroTorch's hot paths take. Use on, off, reset or dump.");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("helpTrace")) {
+			activeLang.getLangMessages().put("helpTrace", "Record why mobs were or weren't blocked from spawning. Use on, world, area, off, sample, clear or dump.");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceUsage")) {
+			activeLang.getLangMessages().put("traceUsage", "Usage: /torch trace [on|world [name]|area <radius>|off|sample <n>|clear|dump]");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceEverywhere")) {
+			activeLang.getLangMessages().put("traceEverywhere", "Tracing spawn decisions in all worlds");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceUnknownWorld")) {
+			activeLang.getLangMessages().put("traceUnknownWorld", "Unknown world %WORLD%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceWorld")) {
+			activeLang.getLangMessages().put("traceWorld", "Tracing spawn decisions in %WORLD%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceInvalidRadius")) {
+			activeLang.getLangMessages().put("traceInvalidRadius", "The radius must be a positive number");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceArea")) {
+			activeLang.getLangMessages().put("traceArea", "Tracing spawn decisions within %RADIUS% blocks of you");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceStopped")) {
+			activeLang.getLangMessages().put("traceStopped", "Spawn tracing stopped, the recorded decisions are kept until they are cleared");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceSampleRate")) {
+			activeLang.getLangMessages().put("traceSampleRate", "Recording one in %RATE% spawns");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceCleared")) {
+			activeLang.getLangMessages().put("traceCleared", "Spawn trace cleared");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceDumped")) {
+			activeLang.getLangMessages().put("traceDumped", "Spawn trace written to %FILE%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceDumpFailed")) {
+			activeLang.getLangMessages().put("traceDumpFailed", "Failed to write the spawn trace: %ERROR%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceHeader")) {
+			activeLang.getLangMessages().put("traceHeader", "Spawn trace (%STATE%, one in %RATE% spawns)");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceStateTracing")) {
+			activeLang.getLangMessages().put("traceStateTracing", "tracing");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceStateStopped")) {
+			activeLang.getLangMessages().put("traceStateStopped", "stopped");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceRecorded")) {
+			activeLang.getLangMessages().put("traceRecorded", "Recorded: %RECORDED%, kept: %KEPT%/%CAPACITY%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("traceScope")) {
+			activeLang.getLangMessages().put("traceScope", "Tracing %SCOPE%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileUsage")) {
+			activeLang.getLangMessages().put("profileUsage", "Usage: /torch profile [on|off|reset|dump]");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileEnabled")) {
+			activeLang.getLangMessages().put("profileEnabled", "Profiler enabled");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileDisabled")) {
+			activeLang.getLangMessages().put("profileDisabled", "Profiler disabled, the recorded data is kept until it is enabled again");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileReset")) {
+			activeLang.getLangMessages().put("profileReset", "Profiler data reset");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileDumped")) {
+			activeLang.getLangMessages().put("profileDumped", "Profiler data written to %FILE%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileDumpFailed")) {
+			activeLang.getLangMessages().put("profileDumpFailed", "Failed to write the profiler data: %ERROR%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileHeader")) {
+			activeLang.getLangMessages().put("profileHeader", "HaroTorch profile (%STATE%, %SECONDS% seconds)");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileStateEnabled")) {
+			activeLang.getLangMessages().put("profileStateEnabled", "enabled");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileStateDisabled")) {
+			activeLang.getLangMessages().put("profileStateDisabled", "disabled");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileProbe")) {
+			activeLang.getLangMessages().put("profileProbe", "%PROBE%: %RATE%/s, p50 %P50%, p99 %P99%, max %MAX%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileNothingRecorded")) {
+			activeLang.getLangMessages().put("profileNothingRecorded", "Nothing has been recorded yet");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("profileStartHint")) {
+			activeLang.getLangMessages().put("profileStartHint", "Use /torch profile on to start recording");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusTitle")) {
+			activeLang.getLangMessages().put("statusTitle", "HaroTorch status");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusMsptServer")) {
+			activeLang.getLangMessages().put("statusMsptServer", "MSPT: %LOAD% (reported by server)");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusMsptMeasured")) {
+			activeLang.getLangMessages().put("statusMsptMeasured", "Tick overrun: %LOAD% ms (measured between ticks)");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusSpawnsBlocked")) {
+			activeLang.getLangMessages().put("statusSpawnsBlocked", "Spawns blocked: %BEFORE% before spawning, %AFTER% after spawning");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusSpawnMemo")) {
+			activeLang.getLangMessages().put("statusSpawnMemo", "Spawn decision memo: %HITS%/%LOOKUPS% hits (%RATIO%)");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusRegistry")) {
+			activeLang.getLangMessages().put("statusRegistry", "Torch registry: %TORCHES% Torches, epoch %EPOCH%, journal %JOURNAL%/%CAPACITY% changes");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusNearbyCache")) {
+			activeLang.getLangMessages().put("statusNearbyCache", "Nearby Torch cache: %HITS% hits, %REBUILDS% rebuilds, radius %RADIUS%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusWorkers")) {
+			activeLang.getLangMessages().put("statusWorkers", "Workers: %THREADS%, pending: %PENDING%/%MAX_PENDING%, completed: %COMPLETED%, rejected: %REJECTED%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusVirtualThreads")) {
+			activeLang.getLangMessages().put("statusVirtualThreads", "virtual threads");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusThreads")) {
+			activeLang.getLangMessages().put("statusThreads", "%THREADS% threads");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusPacketBudget")) {
+			activeLang.getLangMessages().put("statusPacketBudget", "Particle packet budget: %GLOBAL% per tick, %PLAYER% per player");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusPacketsSent")) {
+			activeLang.getLangMessages().put("statusPacketsSent", "Particle packets sent: %SENT% (last tick %LAST_TICK%), deferred: %DEFERRED%, dropped: %DROPPED%, queued: %QUEUED%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusMetricsServer")) {
+			activeLang.getLangMessages().put("statusMetricsServer", "Metrics server: %ADDRESS%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusEnabled")) {
+			activeLang.getLangMessages().put("statusEnabled", "enabled");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusDisabled")) {
+			activeLang.getLangMessages().put("statusDisabled", "disabled");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusAdaptiveParticlesDisabled")) {
+			activeLang.getLangMessages().put("statusAdaptiveParticlesDisabled", "Adaptive particles: %STATE%");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusAdaptiveParticlesMspt")) {
+			activeLang.getLangMessages().put("statusAdaptiveParticlesMspt", "Adaptive particles: %STATE%, threshold %THRESHOLD% MSPT");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusAdaptiveParticlesOverrun")) {
+			activeLang.getLangMessages().put("statusAdaptiveParticlesOverrun", "Adaptive particles: %STATE%, threshold %THRESHOLD% ms overrun");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusThrottleLevel")) {
+			activeLang.getLangMessages().put("statusThrottleLevel", "Throttle level: %LEVEL%/%MAX_LEVEL% (period x%PERIOD%, amount /%STRIDE%)");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusNoThrottleDecisions")) {
+			activeLang.getLangMessages().put("statusNoThrottleDecisions", "No throttle decisions have been taken yet");
+		}
+		
+		if(!activeLang.getLangMessages().containsKey("statusThrottleDecisions")) {
+			activeLang.getLangMessages().put("statusThrottleDecisions", "Recent throttle decisions:");
+		}
 	}
 	
 	private List<String> discover() {
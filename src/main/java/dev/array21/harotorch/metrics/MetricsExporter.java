@@ -0,0 +1,170 @@
+package dev.array21.harotorch.metrics;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.bukkit.entity.EntityType;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.events.SpawnFilter;
+import dev.array21.harotorch.particles.PacketScheduler;
+import dev.array21.harotorch.profiler.LatencyHistogram;
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
+import dev.array21.harotorch.scheduler.WorkerPool;
+import dev.array21.harotorch.torch.Torch;
+import dev.array21.harotorch.torch.TorchHandler;
+import dev.array21.harotorch.torch.TorchSnapshot;
+
+/**
+ * Writes HaroTorch's metrics in the Prometheus text format.<br>
+ * Counters are totals since the plugin was enabled, Prometheus derives rates from them. The latency histograms are those of the {@link Profiler},
+ * so they only grow while it is enabled. Their fine grained buckets are merged into every other power of two nanoseconds, from about 1 microsecond to about 1 second.
+ */
+class MetricsExporter {
+	
+	/**
+	 * The powers of two, in nanoseconds, the latency buckets end at
+	 */
+	private static final int MIN_BUCKET_POWER = 10;
+	private static final int MAX_BUCKET_POWER = 30;
+	private static final int BUCKET_POWER_STEP = 2;
+	
+	private final HaroTorch plugin;
+	
+	MetricsExporter(HaroTorch plugin) {
+		this.plugin = plugin;
+	}
+	
+	/**
+	 * Write all metrics
+	 * @return The metrics in the Prometheus text format
+	 */
+	String export() {
+		StringBuilder sb = new StringBuilder(8192);
+		
+		writeTorches(sb);
+		writeSpawns(sb);
+		writeLatencies(sb);
+		writeWorkers(sb);
+		writeParticles(sb);
+		
+		return sb.toString();
+	}
+	
+	private void writeTorches(StringBuilder sb) {
+		TorchSnapshot snapshot = TorchHandler.getSnapshot();
+		
+		// Sorted, so consecutive scrapes list the series in the same order
+		Map<String, Map<UUID, Integer>> counts = new TreeMap<>();
+		for(Torch torch : snapshot.getTorches()) {
+			counts.computeIfAbsent(torch.getWorldName(), k -> new HashMap<>()).merge(torch.getTorchOwner(), 1, Integer::sum);
+		}
+		
+		header(sb, "harotorch_torches", "gauge", "The amount of Torches per world and owner");
+		for(Map.Entry<String, Map<UUID, Integer>> world : counts.entrySet()) {
+			for(Map.Entry<UUID, Integer> owner : world.getValue().entrySet()) {
+				sb.append("harotorch_torches{world=\"").append(escape(world.getKey())).append("\",owner=\"").append(owner.getKey()).append("\"} ").append(owner.getValue()).append('\n');
+			}
+		}
+		
+		header(sb, "harotorch_torch_registry_epoch", "counter", "The amount of changes made to the Torch registry since the plugin was enabled");
+		sample(sb, "harotorch_torch_registry_epoch", snapshot.getEpoch());
+	}
+	
+	private void writeSpawns(StringBuilder sb) {
+		SpawnFilter filter = this.plugin.getSpawnFilter();
+		
+		header(sb, "harotorch_spawns_blocked_total", "counter", "The amount of spawns blocked by Torches, per entity type");
+		for(EntityType et : EntityType.values()) {
+			long blocked = filter.getBlocked(et);
+			if(blocked > 0) {
+				sb.append("harotorch_spawns_blocked_total{entity_type=\"").append(et.name().toLowerCase(Locale.ROOT)).append("\"} ").append(blocked).append('\n');
+			}
+		}
+		
+		header(sb, "harotorch_spawns_blocked_by_stage_total", "counter", "The amount of spawns blocked before and after the entity was created");
+		sb.append("harotorch_spawns_blocked_by_stage_total{stage=\"before_spawn\"} ").append(filter.getBlockedBeforeSpawn()).append('\n');
+		sb.append("harotorch_spawns_blocked_by_stage_total{stage=\"after_spawn\"} ").append(filter.getBlockedAfterSpawn()).append('\n');
+	}
+	
+	private void writeLatencies(StringBuilder sb) {
+		header(sb, "harotorch_profiler_enabled", "gauge", "1 if the profiler is recording latencies, 0 otherwise");
+		sample(sb, "harotorch_profiler_enabled", Profiler.isEnabled() ? 1 : 0);
+		
+		header(sb, "harotorch_latency_seconds", "histogram", "How long HaroTorch's event listeners, tasks and storage writes take. Only recorded while the profiler is enabled");
+		for(ProfilerProbe probe : ProfilerProbe.values()) {
+			LatencyHistogram histogram = Profiler.getHistogram(probe);
+			String probeLabel = probe.name().toLowerCase(Locale.ROOT);
+			
+			// The buckets are read once, so the cumulative counts are consistent with each other
+			long[] buckets = histogram.getBuckets();
+			long cumulative = 0;
+			int bucket = 0;
+			for(int power = MIN_BUCKET_POWER; power <= MAX_BUCKET_POWER; power += BUCKET_POWER_STEP) {
+				long bound = 1L << power;
+				while(bucket < buckets.length && LatencyHistogram.getUpperBound(bucket) < bound) {
+					cumulative += buckets[bucket++];
+				}
+				
+				sb.append("harotorch_latency_seconds_bucket{probe=\"").append(probeLabel).append("\",le=\"").append(bound / 1e9d).append("\"} ").append(cumulative).append('\n');
+			}
+			
+			while(bucket < buckets.length) {
+				cumulative += buckets[bucket++];
+			}
+			
+			sb.append("harotorch_latency_seconds_bucket{probe=\"").append(probeLabel).append("\",le=\"+Inf\"} ").append(cumulative).append('\n');
+			sb.append("harotorch_latency_seconds_sum{probe=\"").append(probeLabel).append("\"} ").append(histogram.getTotal() / 1e9d).append('\n');
+			sb.append("harotorch_latency_seconds_count{probe=\"").append(probeLabel).append("\"} ").append(cumulative).append('\n');
+		}
+	}
+	
+	private void writeWorkers(StringBuilder sb) {
+		WorkerPool workers = this.plugin.getWorkerPool();
+		
+		header(sb, "harotorch_worker_pending", "gauge", "The amount of background tasks waiting or running");
+		sample(sb, "harotorch_worker_pending", workers.getPending());
+		
+		header(sb, "harotorch_worker_completed_total", "counter", "The amount of background tasks completed");
+		sample(sb, "harotorch_worker_completed_total", workers.getCompleted());
+		
+		header(sb, "harotorch_worker_rejected_total", "counter", "The amount of background tasks rejected because too many were pending");
+		sample(sb, "harotorch_worker_rejected_total", workers.getRejected());
+	}
+	
+	private void writeParticles(StringBuilder sb) {
+		PacketScheduler scheduler = this.plugin.getPacketScheduler();
+		
+		header(sb, "harotorch_particle_packets_sent_total", "counter", "The amount of particle packets sent");
+		sample(sb, "harotorch_particle_packets_sent_total", scheduler.getSent());
+		
+		header(sb, "harotorch_particle_packets_deferred_total", "counter", "The amount of particle packets which did not fit in the budget of the tick they were submitted in");
+		sample(sb, "harotorch_particle_packets_deferred_total", scheduler.getDeferred());
+		
+		header(sb, "harotorch_particle_packets_dropped_total", "counter", "The amount of particle packets never sent, because they were replaced by a newer batch or the player left");
+		sample(sb, "harotorch_particle_packets_dropped_total", scheduler.getDropped());
+		
+		header(sb, "harotorch_particle_packets_queued", "gauge", "The amount of particle packets waiting to be sent");
+		sample(sb, "harotorch_particle_packets_queued", scheduler.getQueued());
+	}
+	
+	private static void header(StringBuilder sb, String name, String type, String help) {
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+	
+	private static void sample(StringBuilder sb, String name, long value) {
+		sb.append(name).append(' ').append(value).append('\n');
+	}
+	
+	/**
+	 * Escape a label value, as required by the text format
+	 */
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
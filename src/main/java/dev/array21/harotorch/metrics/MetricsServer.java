@@ -0,0 +1,92 @@
+package dev.array21.harotorch.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import dev.array21.harotorch.HaroTorch;
+
+/**
+ * Serves HaroTorch's metrics in the Prometheus text format at /metrics, using the HTTP server built into the JDK.<br>
+ * Requests are handled one at a time on a single daemon thread. The {@link MetricsExporter} only reads thread safe counters and the current Torch snapshot,
+ * so a scrape never has to wait for the main thread, and keeps working while the server is lagging.
+ */
+public class MetricsServer {
+	
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final String address;
+	
+	/**
+	 * Start the server
+	 * @param plugin The HaroTorch instance
+	 * @param bindAddress The address to listen on
+	 * @param port The port to listen on
+	 * @throws IOException If the server could not bind to the address
+	 */
+	public MetricsServer(HaroTorch plugin, String bindAddress, int port) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+		this.address = bindAddress + ":" + port;
+		
+		MetricsExporter exporter = new MetricsExporter(plugin);
+		this.server.createContext("/metrics", exchange -> handle(exchange, exporter));
+		
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "HaroTorch-Metrics");
+			t.setDaemon(true);
+			return t;
+		});
+		
+		this.server.setExecutor(this.executor);
+		this.server.start();
+	}
+	
+	private static void handle(HttpExchange exchange, MetricsExporter exporter) throws IOException {
+		try {
+			String method = exchange.getRequestMethod();
+			if(!method.equals("GET") && !method.equals("HEAD")) {
+				exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			
+			byte[] body = exporter.export().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			
+			if(method.equals("HEAD")) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			
+			exchange.sendResponseHeaders(200, body.length);
+			try(OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	/**
+	 * @return The address and port the server listens on
+	 */
+	public String getAddress() {
+		return this.address;
+	}
+	
+	/**
+	 * Stop the server, closing open connections right away
+	 */
+	public void stop() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+}
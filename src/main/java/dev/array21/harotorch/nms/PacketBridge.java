@@ -0,0 +1,452 @@
+package dev.array21.harotorch.nms;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+
+import dev.array21.bukkitreflectionlib.ReflectionUtil;
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * Version adapter for the NMS packets HaroTorch sends itself.<br>
+ * All constructors, fields and methods are resolved once, when the bridge is created, into {@link MethodHandle}s.
+ * If anything cannot be resolved the constructor throws, so an unsupported version is detected at startup rather than on the first packet.<br>
+ * Multiple packets are sent as bundle packets on MC 1.19.4 and newer. On older versions they are written to the Netty channel and flushed once.
+ * That is done on the event loop of the channel, where the NetworkManager writes the packets sent by the server as well, so they stay in order.
+ * Only if that channel cannot be found, or is not open yet, are they sent one by one over the PlayerConnection.
+ */
+// ReflectionUtil.getNmsClass(String) is deprecated, kept for backwards compatibility with MC:1.16 and older.
+@SuppressWarnings("deprecation")
+public class PacketBridge {
+
+	/**
+	 * The largest amount of packets the client accepts in a single bundle
+	 */
+	private static final int MAX_BUNDLE_SIZE = 4096;
+	
+	private final Class<?> packetClass;
+	
+	/**
+	 * (Object particleParam, boolean force, double x, double y, double z, float oX, float oY, float oZ, float extra, int count) -> Object packet
+	 */
+	private final MethodHandle particlePacketConstructor;
+	
+	/**
+	 * (Particle particle, Object data) -> Object particleParam
+	 */
+	private final MethodHandle particleToNms;
+	
+	/**
+	 * (Object craftPlayer) -> Object entityPlayer
+	 */
+	private final MethodHandle getHandle;
+	
+	/**
+	 * (Object entityPlayer) -> Object playerConnection
+	 */
+	private final MethodHandle getConnection;
+	
+	/**
+	 * (Object playerConnection, Object packet) -> void
+	 */
+	private final MethodHandle sendPacket;
+	
+	/**
+	 * (Iterable packets) -> Object bundlePacket. Null before MC 1.19.4
+	 */
+	@Nullable
+	private final MethodHandle bundlePacketConstructor;
+	
+	/**
+	 * (Object playerConnection) -> Object channel. Null if the channel could not be found, or bundles are used
+	 */
+	@Nullable
+	private final MethodHandle getChannel;
+	
+	/**
+	 * (Object channel) -> Executor eventLoop
+	 */
+	@Nullable
+	private final MethodHandle channelEventLoop;
+	
+	/**
+	 * (Object channel) -> boolean
+	 */
+	@Nullable
+	private final MethodHandle channelIsOpen;
+	
+	/**
+	 * (Object channel, Object packet) -> void
+	 */
+	@Nullable
+	private final MethodHandle channelWrite;
+	
+	/**
+	 * (Object channel) -> void
+	 */
+	@Nullable
+	private final MethodHandle channelFlush;
+	
+	/**
+	 * K = A packet class of bukkit-reflection-util
+	 * V = The field holding the NMS packet in that class
+	 */
+	private final ConcurrentHashMap<Class<?>, Field> wrappedPacketFields = new ConcurrentHashMap<>();
+	
+	public PacketBridge() throws PacketBridgeException {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		
+		try {
+			Class<?> particlePacketClass;
+			Class<?> particleParamClass;
+			if(ReflectionUtil.isUseNewSpigotPackaging()) {
+				particlePacketClass = ReflectionUtil.getMinecraftClass("network.protocol.game.PacketPlayOutWorldParticles");
+				particleParamClass = ReflectionUtil.getMinecraftClass("core.particles.ParticleParam");
+			} else {
+				particlePacketClass = ReflectionUtil.getNmsClass("PacketPlayOutWorldParticles");
+				particleParamClass = ReflectionUtil.getNmsClass("ParticleParam");
+			}
+			
+			this.packetClass = particlePacketClass.getInterfaces()[0];
+			
+			Constructor<?> particlePacketConstructor = particlePacketClass.getConstructor(particleParamClass, boolean.class, double.class, double.class, double.class, float.class, float.class, float.class, float.class, int.class);
+			this.particlePacketConstructor = lookup.unreflectConstructor(particlePacketConstructor)
+					.asType(MethodType.methodType(Object.class, Object.class, boolean.class, double.class, double.class, double.class, float.class, float.class, float.class, float.class, int.class));
+			
+			Class<?> craftParticleClass = ReflectionUtil.getBukkitClass("CraftParticle");
+			Method toNms = craftParticleClass.getMethod("toNMS", Particle.class, Object.class);
+			this.particleToNms = lookup.unreflect(toNms)
+					.asType(MethodType.methodType(Object.class, Particle.class, Object.class));
+			
+			Class<?> craftPlayerClass = ReflectionUtil.getBukkitClass("entity.CraftPlayer");
+			Method getHandle = craftPlayerClass.getMethod("getHandle");
+			this.getHandle = lookup.unreflect(getHandle)
+					.asType(MethodType.methodType(Object.class, Object.class));
+			
+			Field connectionField = findConnectionField(getHandle.getReturnType());
+			connectionField.setAccessible(true);
+			this.getConnection = lookup.unreflectGetter(connectionField)
+					.asType(MethodType.methodType(Object.class, Object.class));
+			
+			Method send = findSendMethod(connectionField.getType(), this.packetClass);
+			send.setAccessible(true);
+			this.sendPacket = lookup.unreflect(send)
+					.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			
+			this.bundlePacketConstructor = findBundlePacketConstructor(lookup);
+			
+			MethodHandle getChannel = null, channelEventLoop = null, channelIsOpen = null, channelWrite = null, channelFlush = null;
+			if(this.bundlePacketConstructor == null) {
+				Field networkManagerField = findFieldByType(connectionField.getType(), "NetworkManager");
+				Field channelField = (networkManagerField != null) ? findFieldByType(networkManagerField.getType(), "io.netty.channel.Channel") : null;
+				
+				// Without the channel packets are still sent, just one flush per packet
+				if(channelField != null) {
+					try {
+						networkManagerField.setAccessible(true);
+						channelField.setAccessible(true);
+						
+						Class<?> channelClass = channelField.getType();
+						getChannel = MethodHandles.filterReturnValue(
+								lookup.unreflectGetter(networkManagerField).asType(MethodType.methodType(Object.class, Object.class)),
+								lookup.unreflectGetter(channelField).asType(MethodType.methodType(Object.class, Object.class)));
+						// The EventLoop of Netty is a ScheduledExecutorService
+						channelEventLoop = lookup.unreflect(channelClass.getMethod("eventLoop"))
+								.asType(MethodType.methodType(Executor.class, Object.class));
+						channelIsOpen = lookup.unreflect(channelClass.getMethod("isOpen"))
+								.asType(MethodType.methodType(boolean.class, Object.class));
+						channelWrite = lookup.unreflect(channelClass.getMethod("write", Object.class))
+								.asType(MethodType.methodType(void.class, Object.class, Object.class));
+						channelFlush = lookup.unreflect(channelClass.getMethod("flush"))
+								.asType(MethodType.methodType(void.class, Object.class));
+					} catch(NoSuchMethodException | IllegalAccessException e) {
+						getChannel = null;
+						channelEventLoop = null;
+						channelIsOpen = null;
+						channelWrite = null;
+						channelFlush = null;
+					}
+				}
+			}
+			
+			this.getChannel = getChannel;
+			this.channelEventLoop = channelEventLoop;
+			this.channelIsOpen = channelIsOpen;
+			this.channelWrite = channelWrite;
+			this.channelFlush = channelFlush;
+			
+		} catch(ClassNotFoundException | NoSuchMethodException | NoSuchFieldException | IllegalAccessException e) {
+			throw new PacketBridgeException("Unable to resolve NMS packet classes: " + e.getMessage(), e);
+		} catch(Exception e) {
+			throw new PacketBridgeException("Unexpected error while resolving NMS packet classes: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Find the field holding the PlayerConnection on an EntityPlayer.
+	 * The field is looked up by type, as its name differs between versions.
+	 */
+	private static Field findConnectionField(Class<?> entityPlayerClass) throws NoSuchFieldException {
+		for(Class<?> c = entityPlayerClass; c != null && c != Object.class; c = c.getSuperclass()) {
+			for(Field f : c.getDeclaredFields()) {
+				if(Modifier.isStatic(f.getModifiers())) {
+					continue;
+				}
+				
+				if(f.getType().getSimpleName().equals("PlayerConnection")) {
+					return f;
+				}
+			}
+		}
+		
+		throw new NoSuchFieldException("PlayerConnection field on " + entityPlayerClass.getName());
+	}
+	
+	/**
+	 * Find the constructor of ClientboundBundlePacket, which was added in MC 1.19.4
+	 * @return The constructor, or null if bundles are not supported
+	 */
+	@Nullable
+	private static MethodHandle findBundlePacketConstructor(MethodHandles.Lookup lookup) throws IllegalAccessException {
+		Class<?> bundlePacketClass;
+		try {
+			bundlePacketClass = ReflectionUtil.getMinecraftClass("network.protocol.game.ClientboundBundlePacket");
+		} catch(ClassNotFoundException e) {
+			return null;
+		}
+		
+		try {
+			return lookup.unreflectConstructor(bundlePacketClass.getConstructor(Iterable.class))
+					.asType(MethodType.methodType(Object.class, Iterable.class));
+		} catch(NoSuchMethodException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Find a non-static field by the name of its type, in a class or its superclasses.
+	 * Names without a package are compared to the simple name of the type
+	 * @return The field, or null if there is none
+	 */
+	@Nullable
+	private static Field findFieldByType(Class<?> clazz, String typeName) {
+		for(Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+			for(Field f : c.getDeclaredFields()) {
+				if(Modifier.isStatic(f.getModifiers())) {
+					continue;
+				}
+				
+				String name = typeName.contains(".") ? f.getType().getName() : f.getType().getSimpleName();
+				if(name.equals(typeName)) {
+					return f;
+				}
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Find the method used to send a Packet over a PlayerConnection
+	 */
+	private static Method findSendMethod(Class<?> playerConnectionClass, Class<?> packetClass) throws NoSuchMethodException {
+		String name = (ReflectionUtil.getMajorVersion() >= 18) ? "a" : "sendPacket";
+		
+		for(Class<?> c = playerConnectionClass; c != null && c != Object.class; c = c.getSuperclass()) {
+			try {
+				return c.getDeclaredMethod(name, packetClass);
+			} catch(NoSuchMethodException e) {
+				continue;
+			}
+		}
+		
+		throw new NoSuchMethodException(playerConnectionClass.getName() + "#" + name + "(" + packetClass.getName() + ")");
+	}
+	
+	/**
+	 * Convert a Bukkit particle and its data to the NMS ParticleParam
+	 * @param particle The Particle
+	 * @param data The data for the particle, e.g. {@link Particle.DustOptions}
+	 * @return The NMS ParticleParam
+	 * @throws PacketBridgeException If the conversion fails
+	 */
+	public Object toNmsParticle(Particle particle, Object data) throws PacketBridgeException {
+		try {
+			return (Object) this.particleToNms.invokeExact(particle, data);
+		} catch(Throwable e) {
+			throw new PacketBridgeException("Failed to convert particle to NMS", e);
+		}
+	}
+	
+	/**
+	 * Create a PacketPlayOutWorldParticles packet
+	 * @param nmsParticle The particle as returned by {@link #toNmsParticle(Particle, Object)}
+	 * @param force Whether the particle should be shown regardless of the client's particle settings
+	 * @param pX The X position of the particle
+	 * @param pY The Y position of the particle
+	 * @param pZ The Z position of the particle
+	 * @param oX The X offset of the particle
+	 * @param oY The Y offset of the particle
+	 * @param oZ The Z offset of the particle
+	 * @param extra Extra data for the particle, the speed for most particles
+	 * @param count The amount of particles to spawn
+	 * @return The packet
+	 * @throws PacketBridgeException If the packet could not be created
+	 */
+	public Object createParticlePacket(Object nmsParticle, boolean force, double pX, double pY, double pZ, float oX, float oY, float oZ, float extra, int count) throws PacketBridgeException {
+		try {
+			return (Object) this.particlePacketConstructor.invokeExact(nmsParticle, force, pX, pY, pZ, oX, oY, oZ, extra, count);
+		} catch(Throwable e) {
+			throw new PacketBridgeException("Failed to create particle packet", e);
+		}
+	}
+	
+	/**
+	 * Get the NMS PlayerConnection for a Player
+	 * @param player The Player
+	 * @return The PlayerConnection
+	 * @throws PacketBridgeException If the connection could not be retrieved
+	 */
+	public Object getConnection(Player player) throws PacketBridgeException {
+		try {
+			Object entityPlayer = (Object) this.getHandle.invokeExact((Object) player);
+			return (Object) this.getConnection.invokeExact(entityPlayer);
+		} catch(Throwable e) {
+			throw new PacketBridgeException("Failed to get the PlayerConnection", e);
+		}
+	}
+	
+	/**
+	 * Send a packet over a PlayerConnection
+	 * @param connection The connection as returned by {@link #getConnection(Player)}
+	 * @param packet The packet
+	 * @throws PacketBridgeException If the packet could not be sent
+	 */
+	public void sendPacket(Object connection, Object packet) throws PacketBridgeException {
+		try {
+			this.sendPacket.invokeExact(connection, packet);
+		} catch(Throwable e) {
+			throw new PacketBridgeException("Failed to send packet", e);
+		}
+	}
+	
+	/**
+	 * Send packets to a Player. The packets are bundled, or written with a single flush, so the client receives them together
+	 * @param player The Player
+	 * @param packets The packets
+	 * @throws PacketBridgeException If the packets could not be sent
+	 */
+	public void sendPackets(Player player, List<Object> packets) throws PacketBridgeException {
+		if(packets.isEmpty()) {
+			return;
+		}
+		
+		Object connection = getConnection(player);
+		
+		if(this.bundlePacketConstructor != null) {
+			for(int i = 0; i < packets.size(); i += MAX_BUNDLE_SIZE) {
+				// The bundle is iterated on the network thread, so it gets its own copy
+				List<Object> bundle = new ArrayList<>(packets.subList(i, Math.min(packets.size(), i + MAX_BUNDLE_SIZE)));
+				try {
+					sendPacket(connection, (Object) this.bundlePacketConstructor.invokeExact((Iterable<?>) bundle));
+				} catch(PacketBridgeException e) {
+					throw e;
+				} catch(Throwable e) {
+					throw new PacketBridgeException("Failed to create bundle packet", e);
+				}
+			}
+			
+			return;
+		}
+		
+		if(this.getChannel != null) {
+			Object channel;
+			boolean open;
+			Executor eventLoop;
+			try {
+				channel = (Object) this.getChannel.invokeExact(connection);
+				open = (boolean) this.channelIsOpen.invokeExact(channel);
+				eventLoop = (Executor) this.channelEventLoop.invokeExact(channel);
+			} catch(Throwable e) {
+				throw new PacketBridgeException("Failed to get the channel", e);
+			}
+			
+			// While the channel is not open the NetworkManager holds packets back in its own queue, so they have to go through it
+			if(open) {
+				// The packets are written on the event loop, so the caller may reuse its List
+				List<Object> copy = new ArrayList<>(packets);
+				eventLoop.execute(() -> writeAndFlush(channel, copy));
+				return;
+			}
+		}
+		
+		// The packets go through the PlayerConnection, so they are queued behind the packets the server already sent
+		for(Object packet : packets) {
+			sendPacket(connection, packet);
+		}
+	}
+	
+	/**
+	 * Write packets to a channel and flush once. Runs on the event loop of the channel, after the packets the NetworkManager had already handed to it
+	 * @param channel The Netty channel
+	 * @param packets The packets
+	 */
+	private void writeAndFlush(Object channel, List<Object> packets) {
+		try {
+			for(Object packet : packets) {
+				this.channelWrite.invokeExact(channel, packet);
+			}
+			
+			this.channelFlush.invokeExact(channel);
+		} catch(Throwable e) {
+			HaroTorch.logWarn("Failed to write packets to the channel: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Get the NMS packet held by a packet of bukkit-reflection-util, so it can be sent together with other packets
+	 * @param wrapper The bukkit-reflection-util packet, e.g. an EntitySpawnPacket
+	 * @return The NMS packet
+	 * @throws PacketBridgeException If the wrapper doesn't hold an NMS packet
+	 */
+	public Object unwrapPacket(Object wrapper) throws PacketBridgeException {
+		try {
+			Field field = this.wrappedPacketFields.get(wrapper.getClass());
+			if(field == null) {
+				for(Field f : wrapper.getClass().getDeclaredFields()) {
+					if(Modifier.isStatic(f.getModifiers())) {
+						continue;
+					}
+					
+					f.setAccessible(true);
+					if(this.packetClass.isInstance(f.get(wrapper))) {
+						field = f;
+						break;
+					}
+				}
+				
+				if(field == null) {
+					throw new PacketBridgeException("No NMS packet found in " + wrapper.getClass().getName());
+				}
+				
+				this.wrappedPacketFields.put(wrapper.getClass(), field);
+			}
+			
+			return field.get(wrapper);
+		} catch(IllegalAccessException e) {
+			throw new PacketBridgeException("Failed to unwrap packet", e);
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package dev.array21.harotorch.nms;
+
+/**
+ * Thrown when the {@link PacketBridge} cannot be set up for the running server version
+ */
+public class PacketBridgeException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	public PacketBridgeException(String message) {
+		super(message);
+	}
+	
+	public PacketBridgeException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
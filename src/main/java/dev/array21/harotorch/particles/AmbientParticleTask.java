@@ -0,0 +1,180 @@
+package dev.array21.harotorch.particles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
+import dev.array21.harotorch.scheduler.TaskScheduler;
+import dev.array21.harotorch.torch.Torch;
+import dev.array21.harotorch.torch.TorchHandler;
+
+/**
+ * Spawns the ambient particles around Torches near online Players.<br>
+ * The work of one cycle is spread over consecutive ticks: every tick only runs for as long as the configured budget allows,
+ * and continues where it left off on the next tick. Torches seen by multiple Players are only processed once per cycle.<br>
+ * The frequency, radius and particle count are scaled down by the {@link ParticleThrottle} when the server is under load.<br>
+ * On Folia this task runs on the global region, which may not read the state of Players. There it only schedules a task for every online Player,
+ * which collects the Torches near that Player on the Player's own region, and the particles of every Torch are spawned on the region owning the Torch.
+ */
+public class AmbientParticleTask implements Runnable {
+
+	/**
+	 * The radius around a Player in which Torches get particles
+	 */
+	private static final int PARTICLE_RADIUS = 32;
+	
+	/**
+	 * The amount of ticks between the start of two cycles
+	 */
+	private static final int CYCLE_PERIOD = 20;
+	
+	private final long tickBudgetNanos;
+	private final ParticleThrottle throttle;
+	private final TaskScheduler scheduler;
+	
+	private List<Player> players = new ArrayList<>();
+	private int playerCursor = 0;
+	
+	private final Set<Torch> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final List<Torch> pending = new ArrayList<>();
+	private int pendingCursor = 0;
+	
+	private int ticksSinceCycleStart = 0;
+	private boolean cycleRunning = false;
+	
+	private int radius = PARTICLE_RADIUS;
+	private int particleCount = 2;
+	
+	public AmbientParticleTask(HaroTorch plugin) {
+		this.tickBudgetNanos = plugin.getConfigManifest().getTorchParticleTickBudget() * 1000L;
+		this.throttle = plugin.getParticleThrottle();
+		this.scheduler = plugin.getTaskScheduler();
+	}
+	
+	@Override
+	public void run() {
+		long start = Profiler.start();
+		try {
+			tick();
+		} finally {
+			Profiler.stop(ProfilerProbe.AMBIENT_PARTICLES, start);
+		}
+	}
+	
+	private void tick() {
+		this.ticksSinceCycleStart++;
+		
+		if(this.scheduler.isRegionThreaded()) {
+			tickRegionized();
+			return;
+		}
+		
+		if(!this.cycleRunning) {
+			if(this.ticksSinceCycleStart < this.throttle.scalePeriod(CYCLE_PERIOD)) {
+				return;
+			}
+			
+			startCycle();
+		}
+		
+		final long deadline = System.nanoTime() + this.tickBudgetNanos;
+		
+		// Phase 1: collect the Torches near every Player
+		while(this.playerCursor < this.players.size()) {
+			Player p = this.players.get(this.playerCursor++);
+			if(!p.isOnline()) {
+				continue;
+			}
+			
+			// Answered from the NearbyTorchCache, which is only rebuilt when the Player changed chunks
+			for(Torch t : TorchHandler.getTorchesNearPlayer(p, this.radius)) {
+				if(this.seen.add(t)) {
+					this.pending.add(t);
+				}
+			}
+			
+			if(System.nanoTime() >= deadline) {
+				return;
+			}
+		}
+		
+		// Phase 2: spawn the particles
+		while(this.pendingCursor < this.pending.size()) {
+			Torch t = this.pending.get(this.pendingCursor++);
+			
+			World w = Bukkit.getWorld(t.getWorldName());
+			if(w != null) {
+				spawnParticles(w, t, this.particleCount);
+			}
+			
+			if((this.pendingCursor & 15) == 0 && System.nanoTime() >= deadline) {
+				return;
+			}
+		}
+		
+		this.cycleRunning = false;
+	}
+	
+	/**
+	 * Start a cycle on Folia. The work is done by one task per Player, on the region owning that Player, so no budget is needed here.
+	 * Torches seen by multiple Players are still only processed once, the tasks of a cycle share a concurrent set for that
+	 */
+	private void tickRegionized() {
+		if(this.ticksSinceCycleStart < this.throttle.scalePeriod(CYCLE_PERIOD)) {
+			return;
+		}
+		
+		this.ticksSinceCycleStart = 0;
+		
+		final Set<Torch> seen = ConcurrentHashMap.newKeySet();
+		final int radius = this.throttle.scaleRadius(PARTICLE_RADIUS);
+		final int count = this.throttle.scaleAmount(2);
+		
+		for(Player p : Bukkit.getOnlinePlayers()) {
+			this.scheduler.runFor(p, () -> spawnNear(p, seen, radius, count), null, 1L);
+		}
+	}
+	
+	/**
+	 * Spawn the particles of the Torches near a Player. Runs on the region owning the Player
+	 */
+	private void spawnNear(Player p, Set<Torch> seen, int radius, int count) {
+		World w = p.getWorld();
+		for(Torch t : TorchHandler.getTorchesNearPlayer(p, radius)) {
+			if(seen.add(t)) {
+				this.scheduler.runAt(new Location(w, t.getBlockX(), t.getBlockY(), t.getBlockZ()), () -> spawnParticles(w, t, count), 1L);
+			}
+		}
+	}
+	
+	private static void spawnParticles(World w, Torch t, int count) {
+		w.spawnParticle(Particle.DRAGON_BREATH, t.getBlockX() + 0.5D, t.getBlockY() + 0.5D, t.getBlockZ() + 0.5D, count, 0D, 0D, 0D, 0.005);
+	}
+	
+	private void startCycle() {
+		this.players = new ArrayList<>(Bukkit.getOnlinePlayers());
+		this.playerCursor = 0;
+		
+		this.seen.clear();
+		this.pending.clear();
+		this.pendingCursor = 0;
+		
+		this.ticksSinceCycleStart = 0;
+		this.cycleRunning = true;
+		
+		this.radius = this.throttle.scaleRadius(PARTICLE_RADIUS);
+		this.particleCount = this.throttle.scaleAmount(2);
+	}
+}
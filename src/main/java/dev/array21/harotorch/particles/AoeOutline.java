@@ -0,0 +1,103 @@
+package dev.array21.harotorch.particles;
+
+import java.util.List;
+
+/**
+ * The prebuilt particle packets for an area of effect outline, either of a single Torch or of the union of several Torches.<br>
+ * Instances are immutable and shared between every Player viewing the Torch.
+ */
+public class AoeOutline {
+
+	/**
+	 * Packets marking the Torches the outline belongs to
+	 */
+	private final Object[] centerPackets;
+	
+	/**
+	 * X and Z coordinates of the Torches, same order as {@link #centerPackets}
+	 */
+	private final int[] centerXs, centerZs;
+	
+	/**
+	 * X and Z coordinates of the outline points
+	 */
+	private final int[] xs, zs;
+	
+	/**
+	 * Packets per outline point, per row above the ground, lowest row first
+	 */
+	private final Object[][] rowsUp;
+	
+	/**
+	 * Packets per outline point, per row below the ground, highest row first. Empty rows outside of the Nether
+	 */
+	private final Object[][] rowsDown;
+	
+	public AoeOutline(Object[] centerPackets, int[] centerXs, int[] centerZs, int[] xs, int[] zs, Object[][] rowsUp, Object[][] rowsDown) {
+		this.centerPackets = centerPackets;
+		this.centerXs = centerXs;
+		this.centerZs = centerZs;
+		this.xs = xs;
+		this.zs = zs;
+		this.rowsUp = rowsUp;
+		this.rowsDown = rowsDown;
+	}
+	
+	int getCenterCount() {
+		return this.centerPackets.length;
+	}
+	
+	Object getCenterPacket(int i) {
+		return this.centerPackets[i];
+	}
+	
+	int getCenterX(int i) {
+		return this.centerXs[i];
+	}
+	
+	int getCenterZ(int i) {
+		return this.centerZs[i];
+	}
+	
+	int getPointCount() {
+		return this.xs.length;
+	}
+	
+	int getPointX(int p) {
+		return this.xs[p];
+	}
+	
+	int getPointZ(int p) {
+		return this.zs[p];
+	}
+	
+	/**
+	 * Add the packets of a single outline point to a List
+	 * @param out The List to add the packets to
+	 * @param p The index of the point
+	 * @param rows How many rows above the ground are added at most. Rows below the ground are limited to two less
+	 */
+	void collectPoint(List<Object> out, int p, int rows) {
+		Object[] up = this.rowsUp[p];
+		for(int i = 0; i < up.length && i < rows; i++) {
+			out.add(up[i]);
+		}
+		
+		Object[] down = this.rowsDown[p];
+		for(int i = 0; i < down.length && i < rows - 2; i++) {
+			out.add(down[i]);
+		}
+	}
+	
+	/**
+	 * @return The total amount of packets in this outline
+	 */
+	public int getPacketCount() {
+		int count = this.centerPackets.length;
+		for(int p = 0; p < this.rowsUp.length; p++) {
+			count += this.rowsUp[p].length + this.rowsDown[p].length;
+		}
+		
+		return count;
+	}
+}
@@ -0,0 +1,159 @@
+package dev.array21.harotorch.particles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import dev.array21.harotorch.annotations.Nullable;
+import dev.array21.harotorch.config.ConfigManifest.TorchRangeShape;
+import dev.array21.harotorch.torch.Torch;
+import dev.array21.harotorch.torch.TorchListener;
+
+/**
+ * Cache of {@link AoeOutline}s, shared between all Players using /torch aoe.<br>
+ * Outlines are keyed by the position of the Torch, its range and the shape of the range, so a change in configuration never hits a stale entry.
+ * Entries for a position are dropped when a Torch at that position is added or removed, and every entry expires after {@link #TTL_MILLIS} so changes in terrain are picked up.
+ */
+public class AoeOutlineCache implements TorchListener {
+
+	/**
+	 * How long an outline is kept. In milliseconds
+	 */
+	private static final long TTL_MILLIS = 5L * 60L * 1000L;
+	
+	private final ConcurrentHashMap<Key, Entry> outlines = new ConcurrentHashMap<>();
+	
+	/**
+	 * Get the outline for a key, building it on the provided pool if it is not cached.
+	 * Concurrent requests for the same key share a single build.
+	 * @param key The key
+	 * @param builder Builds the outline if it is not cached
+	 * @param pool The pool to build the outline on
+	 * @return A Future for the outline
+	 * @throws RejectedExecutionException If the pool did not accept the build. Nothing is cached in that case
+	 */
+	public Future<AoeOutline> get(Key key, Callable<AoeOutline> builder, Executor pool) {
+		final long now = System.currentTimeMillis();
+		final List<FutureTask<AoeOutline>> created = new ArrayList<>(1);
+		
+		Entry entry = this.outlines.compute(key, (k, existing) -> {
+			if(existing != null && existing.expiresAt > now) {
+				return existing;
+			}
+			
+			FutureTask<AoeOutline> task = new FutureTask<AoeOutline>(builder) {
+				@Override
+				protected void setException(Throwable t) {
+					// Don't keep failed builds around, the next request should try again
+					AoeOutlineCache.this.outlines.computeIfPresent(key, (k2, e) -> e.outline == this ? null : e);
+					super.setException(t);
+				}
+			};
+			
+			created.add(task);
+			return new Entry(task, now + TTL_MILLIS);
+		});
+		
+		if(!created.isEmpty()) {
+			try {
+				pool.execute(created.get(0));
+			} catch(RejectedExecutionException e) {
+				this.outlines.remove(key, entry);
+				throw e;
+			}
+		}
+		
+		return entry.outline;
+	}
+	
+	/**
+	 * Get the outline for a key, without building it if it is not cached
+	 * @param key The key
+	 * @return A Future for the outline, or null if it is not cached
+	 */
+	@Nullable
+	public Future<AoeOutline> getIfPresent(Key key) {
+		Entry entry = this.outlines.get(key);
+		if(entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+			return null;
+		}
+		
+		return entry.outline;
+	}
+	
+	/**
+	 * Drop all cached outlines for a position
+	 * @param worldName The name of the World
+	 * @param x The X coordinate of the Torch
+	 * @param y The Y coordinate of the Torch
+	 * @param z The Z coordinate of the Torch
+	 */
+	public void invalidate(String worldName, int x, int y, int z) {
+		this.outlines.keySet().removeIf(k -> k.x == x && k.y == y && k.z == z && k.worldName.equals(worldName));
+	}
+	
+	public void clear() {
+		this.outlines.clear();
+	}
+	
+	@Override
+	public void onTorchAdded(Torch torch) {
+		invalidate(torch.getWorldName(), torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+	}
+	
+	@Override
+	public void onTorchRemoved(Torch torch) {
+		invalidate(torch.getWorldName(), torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+	}
+	
+	private static class Entry {
+		private final Future<AoeOutline> outline;
+		private final long expiresAt;
+		
+		private Entry(Future<AoeOutline> outline, long expiresAt) {
+			this.outline = outline;
+			this.expiresAt = expiresAt;
+		}
+	}
+	
+	public static class Key {
+		private final String worldName;
+		private final int x, y, z;
+		private final int range;
+		private final TorchRangeShape shape;
+		
+		public Key(String worldName, int x, int y, int z, int range, TorchRangeShape shape) {
+			this.worldName = worldName;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.range = range;
+			this.shape = shape;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			}
+			
+			if(!(o instanceof Key)) {
+				return false;
+			}
+			
+			Key other = (Key) o;
+			return this.x == other.x && this.y == other.y && this.z == other.z && this.range == other.range && this.shape == other.shape && this.worldName.equals(other.worldName);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.worldName, this.x, this.y, this.z, this.range, this.shape);
+		}
+	}
+}
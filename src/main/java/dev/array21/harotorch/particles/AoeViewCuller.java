@@ -0,0 +1,159 @@
+package dev.array21.harotorch.particles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.bukkit.Location;
+
+/**
+ * Selects which packets of a set of {@link AoeOutline}s a single Player receives.<br>
+ * Points further away than the view distance or behind the Player are dropped, and distant points are sent with fewer points and rows.
+ * The selection is only recomputed when the Player enters another chunk or turns into another yaw bucket, so distances are measured from the centre of the Player's chunk.
+ * Packets are ordered closest first, so the {@link PacketScheduler} sends the closest segments first when the budget runs out.
+ */
+public class AoeViewCuller {
+	
+	/**
+	 * Points closer than this are always sent, regardless of which way the Player is facing. In blocks
+	 */
+	private static final double NEAR_DISTANCE = 16d;
+	
+	/**
+	 * The size of a yaw bucket. In degrees
+	 */
+	private static final int YAW_BUCKET_DEGREES = 45;
+	
+	/**
+	 * Cosine of the largest angle between the facing of the Player and a point which is still sent.
+	 * 90 degrees to each side, plus half a bucket so turning within a bucket never reveals a gap
+	 */
+	private static final double MIN_FACING_COS = Math.cos(Math.toRadians(90d + YAW_BUCKET_DEGREES / 2d));
+	
+	/**
+	 * The largest horizontal distance between a Player and the centre of their chunk
+	 */
+	private static final double CHUNK_SLACK = 12d;
+	
+	private final int viewDistance;
+	
+	private int chunkX, chunkZ, yawBucket, stride, rows;
+	private int outlineCount = -1;
+	private List<Object> packets = Collections.emptyList();
+	
+	/**
+	 * @param viewDistance How far away from the Player points are still sent. In blocks
+	 */
+	public AoeViewCuller(int viewDistance) {
+		this.viewDistance = viewDistance;
+	}
+	
+	/**
+	 * Get the packets to send to a Player
+	 * @param viewer The Location of the Player
+	 * @param outlines The outlines to send
+	 * @param stride Only every stride-th outline point is sent close to the Player, further away this is increased
+	 * @param rows How many rows above the ground are sent at most close to the Player, further away this is decreased
+	 * @return The packets, closest to the Player first. The List must not be modified
+	 */
+	public List<Object> getPackets(Location viewer, List<AoeOutline> outlines, int stride, int rows) {
+		final int chunkX = viewer.getBlockX() >> 4;
+		final int chunkZ = viewer.getBlockZ() >> 4;
+		final int yawBucket = Math.floorMod(Math.round(viewer.getYaw() / YAW_BUCKET_DEGREES), 360 / YAW_BUCKET_DEGREES);
+		
+		if(chunkX == this.chunkX && chunkZ == this.chunkZ && yawBucket == this.yawBucket && stride == this.stride && rows == this.rows && outlines.size() == this.outlineCount) {
+			return this.packets;
+		}
+		
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+		this.yawBucket = yawBucket;
+		this.stride = stride;
+		this.rows = rows;
+		this.outlineCount = outlines.size();
+		
+		final double refX = (chunkX << 4) + 8d;
+		final double refZ = (chunkZ << 4) + 8d;
+		
+		// A yaw of 0 faces south (+Z), and increases clockwise
+		final double yaw = Math.toRadians(yawBucket * YAW_BUCKET_DEGREES);
+		final double dirX = -Math.sin(yaw);
+		final double dirZ = Math.cos(yaw);
+		
+		final double maxDistance = this.viewDistance + CHUNK_SLACK;
+		final double maxDistanceSq = maxDistance * maxDistance;
+		
+		// Bucketed by distance in blocks, which keeps the ordering linear in the amount of points
+		@SuppressWarnings("unchecked")
+		List<Object>[] buckets = new List[(int) maxDistance + 1];
+		
+		for(AoeOutline outline : outlines) {
+			for(int i = 0; i < outline.getCenterCount(); i++) {
+				double dx = outline.getCenterX(i) + 0.5d - refX;
+				double dz = outline.getCenterZ(i) + 0.5d - refZ;
+				if(isVisible(dx, dz, dirX, dirZ, maxDistanceSq)) {
+					getBucket(buckets, dx, dz).add(outline.getCenterPacket(i));
+				}
+			}
+			
+			for(int p = 0; p < outline.getPointCount(); p++) {
+				double dx = outline.getPointX(p) + 0.5d - refX;
+				double dz = outline.getPointZ(p) + 0.5d - refZ;
+				if(!isVisible(dx, dz, dirX, dirZ, maxDistanceSq)) {
+					continue;
+				}
+				
+				// Full detail up to half the view distance, half the points and rows up to three quarters, a quarter beyond that
+				double distance = Math.sqrt(dx * dx + dz * dz);
+				int lod = (distance <= this.viewDistance / 2d) ? 0 : (distance <= this.viewDistance * 0.75d) ? 1 : 2;
+				
+				if(p % (stride << lod) != 0) {
+					continue;
+				}
+				
+				outline.collectPoint(getBucket(buckets, dx, dz), p, Math.max(1, rows >> lod));
+			}
+		}
+		
+		List<Object> result = new ArrayList<>();
+		for(List<Object> bucket : buckets) {
+			if(bucket != null) {
+				result.addAll(bucket);
+			}
+		}
+		
+		this.packets = Collections.unmodifiableList(result);
+		return this.packets;
+	}
+	
+	private static List<Object> getBucket(List<Object>[] buckets, double dx, double dz) {
+		int i = Math.min(buckets.length - 1, (int) Math.sqrt(dx * dx + dz * dz));
+		if(buckets[i] == null) {
+			buckets[i] = new ArrayList<>();
+		}
+		
+		return buckets[i];
+	}
+	
+	/**
+	 * Check if a point is within the view distance and not behind the Player
+	 * @param dx X distance between the centre of the Player's chunk and the point
+	 * @param dz Z distance between the centre of the Player's chunk and the point
+	 * @param dirX X component of the Player's facing
+	 * @param dirZ Z component of the Player's facing
+	 * @param maxDistanceSq The squared view distance
+	 * @return True if the point should be sent
+	 */
+	private static boolean isVisible(double dx, double dz, double dirX, double dirZ, double maxDistanceSq) {
+		double distanceSq = dx * dx + dz * dz;
+		if(distanceSq > maxDistanceSq) {
+			return false;
+		}
+		
+		if(distanceSq <= NEAR_DISTANCE * NEAR_DISTANCE) {
+			return true;
+		}
+		
+		return (dx * dirX + dz * dirZ) / Math.sqrt(distanceSq) >= MIN_FACING_COS;
+	}
+}
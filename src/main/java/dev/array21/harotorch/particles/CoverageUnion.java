@@ -0,0 +1,113 @@
+package dev.array21.harotorch.particles;
+
+import java.util.BitSet;
+
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * Computes the boundary of the area covered by a group of Torches, at block resolution.<br>
+ * The coverage of every Torch is rasterized into a grid spanning all Torches, after which every covered block with an uncovered neighbour is part of the boundary.
+ * Blocks covered by multiple Torches therefore only produce particles where they are actually on the edge of the protected area.
+ */
+public class CoverageUnion {
+
+	/**
+	 * The maximum amount of blocks in the grid. Above this the union is not computed
+	 */
+	public static final long MAX_CELLS = 4_000_000L;
+	
+	/**
+	 * Compute the boundary of the union of the coverage of the provided Torches
+	 * @param xs The X coordinates of the Torches
+	 * @param zs The Z coordinates of the Torches
+	 * @param radii The range of every Torch
+	 * @param circle True if the range is circular, false if it is square
+	 * @return The boundary as consecutive (x, z, torch) triples, where torch is the index of a Torch covering the block. Null if the area is larger than {@link #MAX_CELLS}
+	 */
+	@Nullable
+	public static int[] computeBoundary(int[] xs, int[] zs, int[] radii, boolean circle) {
+		if(xs.length == 0) {
+			return new int[0];
+		}
+		
+		int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
+		for(int i = 0; i < xs.length; i++) {
+			minX = Math.min(minX, xs[i] - radii[i]);
+			maxX = Math.max(maxX, xs[i] + radii[i]);
+			minZ = Math.min(minZ, zs[i] - radii[i]);
+			maxZ = Math.max(maxZ, zs[i] + radii[i]);
+		}
+		
+		// One block of padding on every side, so the neighbours of the outermost covered blocks are always inside the grid
+		final int originX = minX - 1;
+		final int originZ = minZ - 1;
+		final int width = (maxX - minX) + 3;
+		final int depth = (maxZ - minZ) + 3;
+		
+		if((long) width * (long) depth > MAX_CELLS) {
+			return null;
+		}
+		
+		BitSet covered = new BitSet(width * depth);
+		int[] owner = new int[width * depth];
+		
+		for(int t = 0; t < xs.length; t++) {
+			final int cx = xs[t] - originX;
+			final int cz = zs[t] - originZ;
+			final int radius = radii[t];
+			
+			for(int dz = -radius; dz <= radius; dz++) {
+				int halfWidth;
+				if(circle) {
+					halfWidth = (int) Math.floor(Math.sqrt((double) radius * radius - (double) dz * dz));
+				} else {
+					if(Math.abs(dz) >= radius) {
+						continue;
+					}
+					halfWidth = radius - 1;
+				}
+				
+				final int row = (cz + dz) * width;
+				final int from = row + cx - halfWidth;
+				final int to = row + cx + halfWidth + 1;
+				
+				// Only claim blocks no other Torch has claimed yet, so the owner is stable regardless of overlap
+				for(int i = covered.nextClearBit(from); i < to; i = covered.nextClearBit(i + 1)) {
+					owner[i] = t;
+				}
+				covered.set(from, to);
+			}
+		}
+		
+		int[] boundary = new int[64 * 3];
+		int size = 0;
+		
+		for(int i = covered.nextSetBit(0); i >= 0; i = covered.nextSetBit(i + 1)) {
+			final int gx = i % width;
+			
+			// Thanks to the padding these never wrap around to another row
+			boolean edge = !covered.get(i - 1)
+					|| !covered.get(i + 1)
+					|| !covered.get(i - width)
+					|| !covered.get(i + width);
+			
+			if(!edge) {
+				continue;
+			}
+			
+			if(size + 3 > boundary.length) {
+				int[] grown = new int[boundary.length * 2];
+				System.arraycopy(boundary, 0, grown, 0, size);
+				boundary = grown;
+			}
+			
+			boundary[size++] = originX + gx;
+			boundary[size++] = originZ + i / width;
+			boundary[size++] = owner[i];
+		}
+		
+		int[] result = new int[size];
+		System.arraycopy(boundary, 0, result, 0, size);
+		return result;
+	}
+}
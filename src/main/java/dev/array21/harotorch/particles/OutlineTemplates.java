@@ -0,0 +1,106 @@
+package dev.array21.harotorch.particles;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Outlines of Torch ranges relative to the Torch, computed once per radius.<br>
+ * A template is an int array of alternating X and Z offsets, ordered by angle around the Torch.
+ * Every block on the outline occurs exactly once and consecutive blocks touch, so the outline has no gaps.
+ */
+public class OutlineTemplates {
+
+	private static final ConcurrentHashMap<Integer, int[]> CIRCLES = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<Integer, int[]> SQUARES = new ConcurrentHashMap<>();
+	
+	/**
+	 * Get the outline of a circle, rasterized with the midpoint circle algorithm
+	 * @param radius The radius of the circle
+	 * @return The offsets, as alternating X and Z values. Must not be modified
+	 */
+	public static int[] getCircle(int radius) {
+		return CIRCLES.computeIfAbsent(radius, OutlineTemplates::rasterizeCircle);
+	}
+	
+	/**
+	 * Get the outline of a square
+	 * @param radius Half the length of a side of the square
+	 * @return The offsets, as alternating X and Z values. Must not be modified
+	 */
+	public static int[] getSquare(int radius) {
+		return SQUARES.computeIfAbsent(radius, OutlineTemplates::rasterizeSquare);
+	}
+	
+	private static int[] rasterizeCircle(int radius) {
+		LinkedHashSet<Long> points = new LinkedHashSet<>();
+		
+		int x = radius;
+		int z = 0;
+		int error = 1 - radius;
+		
+		while(x >= z) {
+			// Mirror the point in the first octant to the other seven. Octant boundaries produce the same block twice, the set removes those
+			points.add(pack(x, z));
+			points.add(pack(z, x));
+			points.add(pack(-z, x));
+			points.add(pack(-x, z));
+			points.add(pack(-x, -z));
+			points.add(pack(-z, -x));
+			points.add(pack(z, -x));
+			points.add(pack(x, -z));
+			
+			z++;
+			if(error < 0) {
+				error += 2 * z + 1;
+			} else {
+				x--;
+				error += 2 * (z - x) + 1;
+			}
+		}
+		
+		return toSortedArray(points);
+	}
+	
+	private static int[] rasterizeSquare(int radius) {
+		LinkedHashSet<Long> points = new LinkedHashSet<>();
+		
+		for(int i = -radius; i <= radius; i++) {
+			points.add(pack(-radius, i));
+			points.add(pack(radius, i));
+			points.add(pack(i, -radius));
+			points.add(pack(i, radius));
+		}
+		
+		return toSortedArray(points);
+	}
+	
+	/**
+	 * Order the points by their angle around the origin, so every n-th point of a template is spread evenly over the outline
+	 */
+	private static int[] toSortedArray(LinkedHashSet<Long> points) {
+		Long[] sorted = points.toArray(new Long[0]);
+		Arrays.sort(sorted, Comparator.comparingDouble(p -> Math.atan2(unpackZ(p), unpackX(p))));
+		
+		int[] result = new int[sorted.length * 2];
+		for(int i = 0; i < sorted.length; i++) {
+			result[i * 2] = unpackX(sorted[i]);
+			result[i * 2 + 1] = unpackZ(sorted[i]);
+		}
+		
+		return result;
+	}
+	
+	private static long pack(int x, int z) {
+		return ((long) x << 32) | (z & 0xFFFFFFFFL);
+	}
+	
+	private static int unpackX(long packed) {
+		return (int) (packed >> 32);
+	}
+	
+	private static int unpackZ(long packed) {
+		return (int) packed;
+	}
+}
@@ -0,0 +1,187 @@
+package dev.array21.harotorch.particles;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.config.ConfigManifest;
+import dev.array21.harotorch.nms.PacketBridge;
+import dev.array21.harotorch.nms.PacketBridgeException;
+
+/**
+ * Caps how many particle packets HaroTorch sends per tick, server wide and per Player.<br>
+ * Packets are queued per Player and streamed out over consecutive ticks when a batch doesn't fit in the budget.
+ * Batches are sent in the order they are submitted in, so callers should put the packets closest to the Player first.
+ * A new batch for a Player replaces whatever is left of the previous one, since it describes the same particles at a later moment.<br>
+ * On Folia batches are submitted from the region threads of the Players, while the queues are drained on the global region, so access to the queues is synchronized.
+ */
+public class PacketScheduler implements Runnable {
+	
+	private final HaroTorch plugin;
+	private final int globalBudget;
+	private final int playerBudget;
+	
+	/**
+	 * K = The UUID of the Player
+	 * V = What is left to send to that Player
+	 */
+	private final LinkedHashMap<UUID, Batch> queues = new LinkedHashMap<>();
+	
+	private volatile long sent = 0;
+	private volatile long deferred = 0;
+	private volatile long dropped = 0;
+	private volatile int lastTickSent = 0;
+	
+	public PacketScheduler(HaroTorch plugin) {
+		this.plugin = plugin;
+		
+		ConfigManifest manifest = plugin.getConfigManifest();
+		this.globalBudget = manifest.getParticlePacketBudget();
+		this.playerBudget = manifest.getParticlePacketBudgetPerPlayer();
+	}
+	
+	/**
+	 * Queue packets for a Player
+	 * @param player The Player to send the packets to
+	 * @param packets The packets, most important first. The List must not be modified afterwards
+	 */
+	public synchronized void submit(Player player, List<Object> packets) {
+		Batch previous = this.queues.remove(player.getUniqueId());
+		if(previous != null) {
+			this.dropped += previous.remaining();
+		}
+		
+		if(!packets.isEmpty()) {
+			this.queues.put(player.getUniqueId(), new Batch(player, packets));
+		}
+	}
+	
+	@Override
+	public synchronized void run() {
+		if(this.queues.isEmpty()) {
+			this.lastTickSent = 0;
+			return;
+		}
+		
+		PacketBridge bridge = this.plugin.getPacketBridge();
+		int budget = this.globalBudget;
+		int sentThisTick = 0;
+		
+		// Every Player gets an equal share of the global budget, capped by the per Player budget
+		final int share = Math.min(this.playerBudget, Math.max(1, budget / this.queues.size()));
+		
+		List<Batch> served = new ArrayList<>(this.queues.size());
+		for(Iterator<Batch> it = this.queues.values().iterator(); it.hasNext() && budget > 0;) {
+			Batch batch = it.next();
+			it.remove();
+			
+			if(!batch.player.isOnline()) {
+				this.dropped += batch.remaining();
+				continue;
+			}
+			
+			int count = Math.min(Math.min(share, budget), batch.remaining());
+			try {
+				bridge.sendPackets(batch.player, batch.packets.subList(batch.offset, batch.offset + count));
+			} catch(PacketBridgeException e) {
+				HaroTorch.logWarn("Failed to send particles to " + batch.player.getName() + ": " + e.getMessage());
+				this.dropped += batch.remaining();
+				continue;
+			}
+			
+			batch.offset += count;
+			budget -= count;
+			sentThisTick += count;
+			
+			if(batch.remaining() > 0) {
+				served.add(batch);
+			}
+		}
+		
+		// Players which were served go to the back of the line, so a full budget rotates between Players
+		for(Batch batch : served) {
+			this.queues.put(batch.player.getUniqueId(), batch);
+		}
+		
+		for(Map.Entry<UUID, Batch> entry : this.queues.entrySet()) {
+			Batch batch = entry.getValue();
+			if(!batch.deferred) {
+				batch.deferred = true;
+				this.deferred += batch.remaining();
+			}
+		}
+		
+		this.sent += sentThisTick;
+		this.lastTickSent = sentThisTick;
+	}
+	
+	public int getGlobalBudget() {
+		return this.globalBudget;
+	}
+	
+	public int getPlayerBudget() {
+		return this.playerBudget;
+	}
+	
+	/**
+	 * @return The amount of packets sent since the plugin was enabled
+	 */
+	public long getSent() {
+		return this.sent;
+	}
+	
+	/**
+	 * @return The amount of packets which could not be sent in the tick they were submitted in, since the plugin was enabled
+	 */
+	public long getDeferred() {
+		return this.deferred;
+	}
+	
+	/**
+	 * @return The amount of packets which were never sent because they were replaced by a newer batch, or the Player left, since the plugin was enabled
+	 */
+	public long getDropped() {
+		return this.dropped;
+	}
+	
+	/**
+	 * @return The amount of packets sent during the last tick
+	 */
+	public int getLastTickSent() {
+		return this.lastTickSent;
+	}
+	
+	/**
+	 * @return The amount of packets currently waiting to be sent
+	 */
+	public synchronized int getQueued() {
+		int queued = 0;
+		for(Batch batch : this.queues.values()) {
+			queued += batch.remaining();
+		}
+		
+		return queued;
+	}
+	
+	private static class Batch {
+		private final Player player;
+		private final List<Object> packets;
+		private int offset = 0;
+		private boolean deferred = false;
+		
+		private Batch(Player player, List<Object> packets) {
+			this.player = player;
+			this.packets = packets;
+		}
+		
+		private int remaining() {
+			return this.packets.size() - this.offset;
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package dev.array21.harotorch.particles;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.config.ConfigManifest;
+
+/**
+ * Measures the server's load and scales decorative particles down when the server is under load.<br>
+ * On Paper the load is the MSPT reported by the server. Elsewhere only the interval between ticks can be measured, which never drops below 50ms because the server sleeps out the rest of a tick,
+ * so there the load is the time by which ticks overrun 50ms, and the configured threshold is converted to an overrun as well.<br>
+ * Every second the load is compared against the threshold. Above it, the throttle level is raised by one.
+ * Only after the load has been below the recovery threshold for a few consecutive seconds is the level lowered again, so the level doesn't flap.
+ */
+public class ParticleThrottle implements Runnable {
+
+	/**
+	 * The highest throttle level. At this level particles are sent at 1/8th of the normal frequency
+	 */
+	public static final int MAX_LEVEL = 3;
+	
+	/**
+	 * How many ticks there are between two evaluations
+	 */
+	private static final int EVALUATION_PERIOD = 20;
+	
+	/**
+	 * The length of a tick when the server keeps up. In milliseconds
+	 */
+	private static final double TICK_MS = 50d;
+	
+	/**
+	 * The smallest overrun threshold used when the load is measured between ticks, in milliseconds. Scheduling jitter alone stays well below it
+	 */
+	private static final double MIN_OVERRUN_THRESHOLD = 5d;
+	
+	/**
+	 * How many consecutive evaluations the load must be below the recovery threshold before the level is lowered
+	 */
+	private static final int RECOVERY_EVALUATIONS = 3;
+	
+	/**
+	 * How many decisions are kept for /torch status
+	 */
+	private static final int DECISION_HISTORY = 10;
+	
+	/**
+	 * Paper's Server#getAverageTickTime(), null when not running on Paper
+	 */
+	private static final MethodHandle AVERAGE_TICK_TIME;
+	
+	static {
+		MethodHandle averageTickTime;
+		try {
+			averageTickTime = MethodHandles.publicLookup().findVirtual(Server.class, "getAverageTickTime", MethodType.methodType(double.class));
+		} catch(NoSuchMethodException | IllegalAccessException e) {
+			averageTickTime = null;
+		}
+		
+		AVERAGE_TICK_TIME = averageTickTime;
+	}
+	
+	private final boolean enabled;
+	private final double threshold;
+	private final double recoveryThreshold;
+	
+	private volatile int level = 0;
+	private volatile double load = 0d;
+	
+	private long lastTickNanos = -1;
+	private double overrunEma = 0d;
+	private int ticksSinceEvaluation = 0;
+	private int evaluationsBelowRecovery = 0;
+	
+	private final ArrayDeque<String> decisions = new ArrayDeque<>();
+	
+	public ParticleThrottle(HaroTorch plugin) {
+		ConfigManifest manifest = plugin.getConfigManifest();
+		this.enabled = manifest.isAdaptiveParticlesEnabled();
+		
+		int thresholdMspt = manifest.getAdaptiveParticlesMsptThreshold();
+		this.threshold = isUsingServerMspt() ? thresholdMspt : Math.max(MIN_OVERRUN_THRESHOLD, thresholdMspt - TICK_MS);
+		this.recoveryThreshold = this.threshold * 0.8d;
+	}
+	
+	@Override
+	public void run() {
+		long now = System.nanoTime();
+		if(this.lastTickNanos != -1) {
+			double overrunMs = Math.max(0d, (now - this.lastTickNanos) / 1_000_000d - TICK_MS);
+			this.overrunEma = this.overrunEma * 0.9d + overrunMs * 0.1d;
+		}
+		this.lastTickNanos = now;
+		
+		if(++this.ticksSinceEvaluation < EVALUATION_PERIOD) {
+			return;
+		}
+		
+		this.ticksSinceEvaluation = 0;
+		this.load = measureLoad();
+		
+		if(!this.enabled) {
+			return;
+		}
+		
+		String unit = isUsingServerMspt() ? "MSPT" : "Overrun";
+		if(this.load > this.threshold) {
+			this.evaluationsBelowRecovery = 0;
+			if(this.level < MAX_LEVEL) {
+				this.level++;
+				logDecision(String.format("%s %.1f > %.1f, raised level to %d", unit, this.load, this.threshold, this.level));
+			}
+		} else if(this.load < this.recoveryThreshold && this.level > 0) {
+			if(++this.evaluationsBelowRecovery >= RECOVERY_EVALUATIONS) {
+				this.evaluationsBelowRecovery = 0;
+				this.level--;
+				logDecision(String.format("%s %.1f < %.1f, lowered level to %d", unit, this.load, this.recoveryThreshold, this.level));
+			}
+		} else {
+			this.evaluationsBelowRecovery = 0;
+		}
+	}
+	
+	/**
+	 * Get the load. On Paper this is the server's own average MSPT, which also sees tick times below 50ms.
+	 * Elsewhere it is the average time by which the interval between two ticks exceeded 50ms, which is 0 as long as the server keeps up.
+	 * @return The load in milliseconds
+	 */
+	private double measureLoad() {
+		if(!isUsingServerMspt()) {
+			return this.overrunEma;
+		}
+		
+		try {
+			return (double) AVERAGE_TICK_TIME.invoke(Bukkit.getServer());
+		} catch(Throwable e) {
+			// Keep the previous value, the overrun is not comparable with the threshold
+			return this.load;
+		}
+	}
+	
+	private void logDecision(String decision) {
+		String entry = new SimpleDateFormat("HH:mm:ss").format(new Date()) + " " + decision;
+		
+		synchronized(this.decisions) {
+			if(this.decisions.size() >= DECISION_HISTORY) {
+				this.decisions.removeFirst();
+			}
+			this.decisions.addLast(entry);
+		}
+	}
+	
+	/**
+	 * @return True if adaptive throttling is enabled in the config
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+	
+	/**
+	 * @return True if the load is the MSPT measured by the server itself, false if it is the overrun derived from the interval between ticks
+	 */
+	public boolean isUsingServerMspt() {
+		return AVERAGE_TICK_TIME != null;
+	}
+	
+	/**
+	 * @return The current throttle level, between 0 and {@link #MAX_LEVEL}
+	 */
+	public int getLevel() {
+		return this.level;
+	}
+	
+	/**
+	 * @return The load at the last evaluation, in milliseconds. See {@link #isUsingServerMspt()} for what it measures
+	 */
+	public double getLoad() {
+		return this.load;
+	}
+	
+	/**
+	 * @return Above which load particles are reduced, in the same unit as {@link #getLoad()}
+	 */
+	public double getThreshold() {
+		return this.threshold;
+	}
+	
+	/**
+	 * @return The most recent decisions, oldest first
+	 */
+	public List<String> getDecisions() {
+		synchronized(this.decisions) {
+			return new ArrayList<>(this.decisions);
+		}
+	}
+	
+	/**
+	 * Scale the period of a repeating particle task
+	 * @param period The unthrottled period
+	 * @return The period to use at the current level
+	 */
+	public int scalePeriod(int period) {
+		return period << this.level;
+	}
+	
+	/**
+	 * Scale an amount of particles, such as a particle count or a number of rows
+	 * @param amount The unthrottled amount
+	 * @return The amount to use at the current level. Never less than 1
+	 */
+	public int scaleAmount(int amount) {
+		return Math.max(1, amount >> this.level);
+	}
+	
+	/**
+	 * Scale a radius in which particles are shown
+	 * @param radius The unthrottled radius
+	 * @return The radius to use at the current level
+	 */
+	public int scaleRadius(int radius) {
+		return Math.max(1, radius * (MAX_LEVEL + 1 - this.level) / (MAX_LEVEL + 1));
+	}
+	
+	/**
+	 * Get the step with which a list of particle positions should be walked
+	 * @return 1 when unthrottled, to send every position. Higher levels skip positions
+	 */
+	public int getStride() {
+		return 1 << this.level;
+	}
+}
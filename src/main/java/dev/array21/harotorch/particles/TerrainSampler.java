@@ -0,0 +1,100 @@
+package dev.array21.harotorch.particles;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+
+import dev.array21.harotorch.torch.SpatialIndex;
+
+/**
+ * Samples the height of the terrain from {@link ChunkSnapshot}s, so outlines can follow the ground without blocking the main thread.<br>
+ * Snapshots are taken on the main thread and shared for {@link #TTL_MILLIS}, after which they are taken again so changes in terrain are picked up.
+ * Sampling the returned snapshots is thread safe.
+ */
+public class TerrainSampler {
+	
+	/**
+	 * How long a snapshot is reused. In milliseconds
+	 */
+	private static final long TTL_MILLIS = 10L * 1000L;
+	
+	/**
+	 * K = The name of the World
+	 * V = The snapshots in that World, keyed by {@link SpatialIndex#chunkKey(int, int)}
+	 */
+	private final HashMap<String, HashMap<Long, Entry>> snapshots = new HashMap<>();
+	
+	/**
+	 * Get snapshots of the chunks containing the provided columns. Chunks which are not loaded are not snapshotted, and are not loaded either.<br>
+	 * <strong>Must be called on the main thread</strong>, or on Folia on the region thread owning the chunks
+	 * @param world The World the columns are in
+	 * @param xs The X coordinates of the columns
+	 * @param zs The Z coordinates of the columns
+	 * @return The snapshots, keyed by {@link SpatialIndex#chunkKey(int, int)}. Unloaded chunks are mapped to null
+	 */
+	public synchronized Map<Long, ChunkSnapshot> snapshot(World world, int[] xs, int[] zs) {
+		final long now = System.currentTimeMillis();
+		
+		HashMap<Long, Entry> cached = this.snapshots.computeIfAbsent(world.getName(), k -> new HashMap<>());
+		cached.values().removeIf(e -> e.expiresAt <= now);
+		
+		HashMap<Long, ChunkSnapshot> result = new HashMap<>();
+		for(int i = 0; i < xs.length; i++) {
+			final int cx = xs[i] >> 4;
+			final int cz = zs[i] >> 4;
+			
+			long key = SpatialIndex.chunkKey(cx, cz);
+			if(result.containsKey(key)) {
+				continue;
+			}
+			
+			Entry entry = cached.get(key);
+			if(entry == null) {
+				if(!world.isChunkLoaded(cx, cz)) {
+					result.put(key, null);
+					continue;
+				}
+				
+				entry = new Entry(world.getChunkAt(cx, cz).getChunkSnapshot(true, false, false), now + TTL_MILLIS);
+				cached.put(key, entry);
+			}
+			
+			result.put(key, entry.snapshot);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Get the Y coordinate of the highest non-air block in a column
+	 * @param snapshots The snapshots returned by {@link #snapshot(World, int[], int[])}
+	 * @param x The X coordinate of the column
+	 * @param z The Z coordinate of the column
+	 * @param fallback Returned when the column's chunk was not snapshotted
+	 * @return The Y coordinate
+	 */
+	public static int getHighestBlockYAt(Map<Long, ChunkSnapshot> snapshots, int x, int z, int fallback) {
+		ChunkSnapshot snapshot = snapshots.get(SpatialIndex.chunkKey(x >> 4, z >> 4));
+		if(snapshot == null) {
+			return fallback;
+		}
+		
+		return snapshot.getHighestBlockYAt(x & 15, z & 15);
+	}
+	
+	public synchronized void clear() {
+		this.snapshots.clear();
+	}
+	
+	private static class Entry {
+		private final ChunkSnapshot snapshot;
+		private final long expiresAt;
+		
+		private Entry(ChunkSnapshot snapshot, long expiresAt) {
+			this.snapshot = snapshot;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package dev.array21.harotorch.profiler;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds. Every power of two is split into {@link #SUB_BUCKETS} buckets, so percentiles are accurate to within 25%.<br>
+ * Recording only increments striped counters, so it never blocks and threads recording at the same time don't contend.
+ * Reads are not atomic with respect to concurrent recordings, which is fine for a profiler.
+ */
+public class LatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	/**
+	 * Enough buckets for any positive long
+	 */
+	static final int BUCKETS = 64 * SUB_BUCKETS;
+	
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+	
+	LatencyHistogram() {
+		for(int i = 0; i < BUCKETS; i++) {
+			this.buckets[i] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * Record a duration
+	 * @param nanos The duration in nanoseconds
+	 */
+	void record(long nanos) {
+		if(nanos < 0) {
+			nanos = 0;
+		}
+		
+		this.buckets[bucketOf(nanos)].increment();
+		this.count.increment();
+		this.total.add(nanos);
+		this.max.accumulate(nanos);
+	}
+	
+	void reset() {
+		for(LongAdder bucket : this.buckets) {
+			bucket.reset();
+		}
+		
+		this.count.reset();
+		this.total.reset();
+		this.max.reset();
+	}
+	
+	public long getCount() {
+		return this.count.sum();
+	}
+	
+	/**
+	 * @return The sum of all recorded durations, in nanoseconds
+	 */
+	public long getTotal() {
+		return this.total.sum();
+	}
+	
+	/**
+	 * @return The longest recorded duration, in nanoseconds
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+	
+	/**
+	 * @return The amount of durations recorded in every bucket. See {@link #getUpperBound(int)}
+	 */
+	public long[] getBuckets() {
+		long[] result = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++) {
+			result[i] = this.buckets[i].sum();
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Get a percentile of the recorded durations
+	 * @param percentile The percentile, between 0 and 100
+	 * @return The upper bound of the bucket the percentile falls in, capped by the longest duration. In nanoseconds, 0 if nothing was recorded
+	 */
+	public long getPercentile(double percentile) {
+		long[] counts = getBuckets();
+		long count = 0;
+		for(long c : counts) {
+			count += c;
+		}
+		
+		if(count == 0) {
+			return 0L;
+		}
+		
+		long rank = (long) Math.ceil(count * percentile / 100d);
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if(seen >= rank) {
+				return Math.min(getUpperBound(i), getMax());
+			}
+		}
+		
+		return getMax();
+	}
+	
+	/**
+	 * Get the bucket of a duration. Durations below {@link #SUB_BUCKETS} have a bucket each,
+	 * above that the highest bit selects the power of two and the next {@link #SUB_BUCKET_BITS} bits the bucket within it
+	 */
+	static int bucketOf(long nanos) {
+		if(nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		
+		int msb = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+	
+	/**
+	 * @param bucket The bucket
+	 * @return The longest duration which falls in the bucket, in nanoseconds
+	 */
+	public static long getUpperBound(int bucket) {
+		if(bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		
+		int msb = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int sub = bucket % SUB_BUCKETS;
+		if(msb >= 62 && sub == SUB_BUCKETS - 1) {
+			return Long.MAX_VALUE;
+		}
+		
+		return ((long) (SUB_BUCKETS + sub + 1) << (msb - SUB_BUCKET_BITS)) - 1;
+	}
+}
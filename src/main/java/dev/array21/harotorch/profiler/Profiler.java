@@ -0,0 +1,134 @@
+package dev.array21.harotorch.profiler;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Times HaroTorch's hot paths, see {@link ProfilerProbe}.<br>
+ * A timed section looks like this:
+ * <pre>
+ * long start = Profiler.start();
+ * try {
+ *     ...
+ * } finally {
+ *     Profiler.stop(ProfilerProbe.BLOCK_PHYSICS, start);
+ * }
+ * </pre>
+ * While the profiler is disabled {@link #start()} returns 0 without reading the clock, and {@link #stop(ProfilerProbe, long)} returns right away,
+ * so the cost is a single volatile read per section.
+ */
+public final class Profiler {
+	
+	private static volatile boolean enabled = false;
+	private static volatile long resetAt = System.nanoTime();
+	
+	private static final LatencyHistogram[] histograms = new LatencyHistogram[ProfilerProbe.values().length];
+	
+	static {
+		for(int i = 0; i < histograms.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+	
+	private Profiler() {}
+	
+	/**
+	 * Start timing a section
+	 * @return The start time to pass to {@link #stop(ProfilerProbe, long)}, 0 if the profiler is disabled
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0L;
+	}
+	
+	/**
+	 * Stop timing a section
+	 * @param probe The section
+	 * @param start The value returned by {@link #start()}
+	 */
+	public static void stop(ProfilerProbe probe, long start) {
+		if(start == 0L) {
+			return;
+		}
+		
+		histograms[probe.ordinal()].record(System.nanoTime() - start);
+	}
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Enable or disable the profiler. Enabling it resets the recorded data
+	 * @param enable True to enable
+	 */
+	public static void setEnabled(boolean enable) {
+		if(enable && !enabled) {
+			reset();
+		}
+		
+		enabled = enable;
+	}
+	
+	/**
+	 * Forget everything recorded so far
+	 */
+	public static void reset() {
+		for(LatencyHistogram histogram : histograms) {
+			histogram.reset();
+		}
+		
+		resetAt = System.nanoTime();
+	}
+	
+	public static LatencyHistogram getHistogram(ProfilerProbe probe) {
+		return histograms[probe.ordinal()];
+	}
+	
+	/**
+	 * @return The amount of seconds since the data was last reset
+	 */
+	public static double getSecondsSinceReset() {
+		return (System.nanoTime() - resetAt) / 1_000_000_000d;
+	}
+	
+	/**
+	 * Write the recorded data, including every non-empty bucket, to a new file
+	 * @param directory The directory to write the file to
+	 * @return The file
+	 * @throws IOException If writing the file failed
+	 */
+	public static File dump(File directory) throws IOException {
+		if(!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("Failed to create " + directory.getAbsolutePath());
+		}
+		
+		File file = new File(directory, "profile-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".txt");
+		try(PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			double seconds = getSecondsSinceReset();
+			out.printf("HaroTorch profile, %.1f seconds of data%n", seconds);
+			out.println("All durations are in nanoseconds");
+			
+			for(ProfilerProbe probe : ProfilerProbe.values()) {
+				LatencyHistogram histogram = getHistogram(probe);
+				long count = histogram.getCount();
+				
+				out.println();
+				out.printf("%s: calls=%d calls/s=%.1f total=%d p50=%d p99=%d max=%d%n", probe.getDisplayName(), count, count / Math.max(seconds, 0.001d), histogram.getTotal(),
+						histogram.getPercentile(50), histogram.getPercentile(99), histogram.getMax());
+				
+				long[] buckets = histogram.getBuckets();
+				for(int i = 0; i < buckets.length; i++) {
+					if(buckets[i] > 0) {
+						out.printf("  <= %d: %d%n", LatencyHistogram.getUpperBound(i), buckets[i]);
+					}
+				}
+			}
+		}
+		
+		return file;
+	}
+}
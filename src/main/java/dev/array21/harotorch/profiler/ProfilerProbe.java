@@ -0,0 +1,33 @@
+package dev.array21.harotorch.profiler;
+
+/**
+ * The code paths timed by the {@link Profiler}
+ */
+public enum ProfilerProbe {
+	SPAWN_CHECK("CreatureSpawnEvent"),
+	PRE_SPAWN_CHECK("PreCreatureSpawnEvent"),
+	BLOCK_BREAK("BlockBreakEvent"),
+	BLOCK_PLACE("BlockPlaceEvent"),
+	BLOCK_BURN("BlockBurnEvent"),
+	BLOCK_EXPLODE("BlockExplodeEvent"),
+	ENTITY_EXPLODE("EntityExplodeEvent"),
+	BLOCK_FADE("BlockFadeEvent"),
+	BLOCK_FROM_TO("BlockFromToEvent"),
+	BLOCK_PHYSICS("BlockPhysicsEvent"),
+	PISTON_EXTEND("BlockPistonExtendEvent"),
+	PISTON_RETRACT("BlockPistonRetractEvent"),
+	PLAYER_INTERACT("PlayerInteractEvent"),
+	AMBIENT_PARTICLES("Ambient particle task"),
+	AOE_RENDER("AoE refresh"),
+	STORAGE_WRITE("Storage write");
+	
+	private final String displayName;
+	
+	private ProfilerProbe(String displayName) {
+		this.displayName = displayName;
+	}
+	
+	public String getDisplayName() {
+		return this.displayName;
+	}
+}
@@ -0,0 +1,95 @@
+package dev.array21.harotorch.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * {@link TaskScheduler} for Spigot and Paper. Everything runs on the main thread
+ */
+class BukkitTaskScheduler extends TaskScheduler {
+	
+	private final Plugin plugin;
+	
+	BukkitTaskScheduler(Plugin plugin) {
+		this.plugin = plugin;
+	}
+	
+	@Override
+	public boolean isRegionThreaded() {
+		return false;
+	}
+	
+	@Override
+	public TaskHandle runTimer(Runnable task, long delay, long period) {
+		BukkitTask bukkitTask = Bukkit.getScheduler().runTaskTimer(this.plugin, task, delay, period);
+		return bukkitTask::cancel;
+	}
+	
+	@Override
+	public TaskHandle runLater(Runnable task, long delay) {
+		BukkitTask bukkitTask = Bukkit.getScheduler().runTaskLater(this.plugin, task, delay);
+		return bukkitTask::cancel;
+	}
+	
+	@Override
+	public TaskHandle runAt(Location location, Runnable task, long delay) {
+		return runLater(task, delay);
+	}
+	
+	@Override
+	@Nullable
+	public TaskHandle runFor(Entity entity, Runnable task, @Nullable Runnable retired, long delay) {
+		if(!isAttached(entity)) {
+			return null;
+		}
+		
+		return runLater(() -> {
+			if(isAttached(entity)) {
+				task.run();
+			} else if(retired != null) {
+				retired.run();
+			}
+		}, delay);
+	}
+	
+	@Override
+	@Nullable
+	public TaskHandle runTimerFor(Entity entity, Runnable task, @Nullable Runnable retired, long delay, long period) {
+		if(!isAttached(entity)) {
+			return null;
+		}
+		
+		BukkitTask bukkitTask = new BukkitRunnable() {
+			
+			@Override
+			public void run() {
+				if(isAttached(entity)) {
+					task.run();
+					return;
+				}
+				
+				this.cancel();
+				if(retired != null) {
+					retired.run();
+				}
+			}
+		}.runTaskTimer(this.plugin, delay, period);
+		
+		return bukkitTask::cancel;
+	}
+	
+	/**
+	 * Whether the tasks of an Entity should still run. Like Folia's entity scheduler this only ends when the Entity is removed:
+	 * a dead Player is not valid, but stays online and keeps its tasks through respawning
+	 */
+	private static boolean isAttached(Entity entity) {
+		return (entity instanceof Player) ? ((Player) entity).isOnline() : entity.isValid();
+	}
+}
@@ -0,0 +1,178 @@
+package dev.array21.harotorch.scheduler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Consumer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * {@link TaskScheduler} for Folia, using its global region, region and entity schedulers.<br>
+ * HaroTorch is compiled against the Spigot API, so the schedulers are resolved through reflection once, when this class is constructed.
+ */
+class FoliaTaskScheduler extends TaskScheduler {
+	
+	private final Plugin plugin;
+	
+	private final Object globalScheduler;
+	private final Object regionScheduler;
+	
+	/**
+	 * (Object globalScheduler, Plugin plugin, Consumer task, long delay, long period) -> Object scheduledTask
+	 */
+	private final MethodHandle globalRunAtFixedRate;
+	
+	/**
+	 * (Object globalScheduler, Plugin plugin, Consumer task, long delay) -> Object scheduledTask
+	 */
+	private final MethodHandle globalRunDelayed;
+	
+	/**
+	 * (Object regionScheduler, Plugin plugin, Location location, Consumer task, long delay) -> Object scheduledTask
+	 */
+	private final MethodHandle regionRunDelayed;
+	
+	/**
+	 * (Entity entity) -> Object entityScheduler
+	 */
+	private final MethodHandle getEntityScheduler;
+	
+	/**
+	 * (Object entityScheduler, Plugin plugin, Consumer task, Runnable retired, long delay) -> Object scheduledTask
+	 */
+	private final MethodHandle entityRunDelayed;
+	
+	/**
+	 * (Object entityScheduler, Plugin plugin, Consumer task, Runnable retired, long delay, long period) -> Object scheduledTask
+	 */
+	private final MethodHandle entityRunAtFixedRate;
+	
+	/**
+	 * (Object scheduledTask) -> void. The returned CancelledState is discarded
+	 */
+	private final MethodHandle cancel;
+	
+	/**
+	 * @return True if the server is Folia, or a fork of it
+	 */
+	static boolean isSupported() {
+		try {
+			Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+			return true;
+		} catch(ClassNotFoundException e) {
+			return false;
+		}
+	}
+	
+	FoliaTaskScheduler(Plugin plugin) throws ReflectiveOperationException {
+		this.plugin = plugin;
+		
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		Class<?> globalClass = Class.forName("io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler");
+		Class<?> regionClass = Class.forName("io.papermc.paper.threadedregions.scheduler.RegionScheduler");
+		Class<?> entityClass = Class.forName("io.papermc.paper.threadedregions.scheduler.EntityScheduler");
+		Class<?> taskClass = Class.forName("io.papermc.paper.threadedregions.scheduler.ScheduledTask");
+		
+		this.globalScheduler = Bukkit.class.getMethod("getGlobalRegionScheduler").invoke(null);
+		this.regionScheduler = Bukkit.class.getMethod("getRegionScheduler").invoke(null);
+		
+		this.globalRunAtFixedRate = lookup.findVirtual(globalClass, "runAtFixedRate", MethodType.methodType(taskClass, Plugin.class, Consumer.class, long.class, long.class))
+				.asType(MethodType.methodType(Object.class, Object.class, Plugin.class, Consumer.class, long.class, long.class));
+		this.globalRunDelayed = lookup.findVirtual(globalClass, "runDelayed", MethodType.methodType(taskClass, Plugin.class, Consumer.class, long.class))
+				.asType(MethodType.methodType(Object.class, Object.class, Plugin.class, Consumer.class, long.class));
+		this.regionRunDelayed = lookup.findVirtual(regionClass, "runDelayed", MethodType.methodType(taskClass, Plugin.class, Location.class, Consumer.class, long.class))
+				.asType(MethodType.methodType(Object.class, Object.class, Plugin.class, Location.class, Consumer.class, long.class));
+		
+		this.getEntityScheduler = lookup.findVirtual(Entity.class, "getScheduler", MethodType.methodType(entityClass))
+				.asType(MethodType.methodType(Object.class, Entity.class));
+		this.entityRunDelayed = lookup.findVirtual(entityClass, "runDelayed", MethodType.methodType(taskClass, Plugin.class, Consumer.class, Runnable.class, long.class))
+				.asType(MethodType.methodType(Object.class, Object.class, Plugin.class, Consumer.class, Runnable.class, long.class));
+		this.entityRunAtFixedRate = lookup.findVirtual(entityClass, "runAtFixedRate", MethodType.methodType(taskClass, Plugin.class, Consumer.class, Runnable.class, long.class, long.class))
+				.asType(MethodType.methodType(Object.class, Object.class, Plugin.class, Consumer.class, Runnable.class, long.class, long.class));
+		
+		this.cancel = lookup.findVirtual(taskClass, "cancel", MethodType.methodType(Class.forName("io.papermc.paper.threadedregions.scheduler.ScheduledTask$CancelledState")))
+				.asType(MethodType.methodType(void.class, Object.class));
+	}
+	
+	@Override
+	public boolean isRegionThreaded() {
+		return true;
+	}
+	
+	@Override
+	public TaskHandle runTimer(Runnable task, long delay, long period) {
+		try {
+			return wrap((Object) this.globalRunAtFixedRate.invokeExact(this.globalScheduler, this.plugin, consumer(task), Math.max(1L, delay), Math.max(1L, period)));
+		} catch(Throwable e) {
+			throw new IllegalStateException("Failed to schedule task", e);
+		}
+	}
+	
+	@Override
+	public TaskHandle runLater(Runnable task, long delay) {
+		try {
+			return wrap((Object) this.globalRunDelayed.invokeExact(this.globalScheduler, this.plugin, consumer(task), Math.max(1L, delay)));
+		} catch(Throwable e) {
+			throw new IllegalStateException("Failed to schedule task", e);
+		}
+	}
+	
+	@Override
+	public TaskHandle runAt(Location location, Runnable task, long delay) {
+		try {
+			return wrap((Object) this.regionRunDelayed.invokeExact(this.regionScheduler, this.plugin, location, consumer(task), Math.max(1L, delay)));
+		} catch(Throwable e) {
+			throw new IllegalStateException("Failed to schedule task", e);
+		}
+	}
+	
+	@Override
+	@Nullable
+	public TaskHandle runFor(Entity entity, Runnable task, @Nullable Runnable retired, long delay) {
+		try {
+			Object scheduler = (Object) this.getEntityScheduler.invokeExact(entity);
+			return wrap((Object) this.entityRunDelayed.invokeExact(scheduler, this.plugin, consumer(task), retired, Math.max(1L, delay)));
+		} catch(Throwable e) {
+			throw new IllegalStateException("Failed to schedule task", e);
+		}
+	}
+	
+	@Override
+	@Nullable
+	public TaskHandle runTimerFor(Entity entity, Runnable task, @Nullable Runnable retired, long delay, long period) {
+		try {
+			Object scheduler = (Object) this.getEntityScheduler.invokeExact(entity);
+			return wrap((Object) this.entityRunAtFixedRate.invokeExact(scheduler, this.plugin, consumer(task), retired, Math.max(1L, delay), Math.max(1L, period)));
+		} catch(Throwable e) {
+			throw new IllegalStateException("Failed to schedule task", e);
+		}
+	}
+	
+	private static Consumer<Object> consumer(Runnable task) {
+		return scheduledTask -> task.run();
+	}
+	
+	/**
+	 * @param scheduledTask The ScheduledTask, null when the Entity it was scheduled for was already removed
+	 */
+	@Nullable
+	private TaskHandle wrap(@Nullable Object scheduledTask) {
+		if(scheduledTask == null) {
+			return null;
+		}
+		
+		return () -> {
+			try {
+				this.cancel.invokeExact(scheduledTask);
+			} catch(Throwable e) {
+				throw new IllegalStateException("Failed to cancel task", e);
+			}
+		};
+	}
+}
@@ -0,0 +1,12 @@
+package dev.array21.harotorch.scheduler;
+
+/**
+ * A task scheduled through the {@link TaskScheduler}
+ */
+public interface TaskHandle {
+	
+	/**
+	 * Cancel the task. Does nothing if it already ran or was cancelled
+	 */
+	public void cancel();
+}
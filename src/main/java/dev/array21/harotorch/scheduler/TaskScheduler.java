@@ -0,0 +1,113 @@
+package dev.array21.harotorch.scheduler;
+
+import java.util.concurrent.Executor;
+
+import org.bukkit.Location;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * Schedules HaroTorch's tasks on the thread that owns the data they touch.<br>
+ * On Spigot and Paper that is always the main thread. On Folia every region of a World is ticked by its own thread,
+ * so tasks touching a Location or Entity are scheduled on the region owning it, and tasks not tied to either on the global region.
+ * The BukkitScheduler cannot be used there, as its sync methods throw.<br>
+ * Delays and periods are in ticks.
+ */
+public abstract class TaskScheduler {
+	
+	/**
+	 * Create the scheduler for the server the plugin is running on
+	 * @param plugin The plugin owning the tasks
+	 * @return The scheduler
+	 */
+	public static TaskScheduler create(Plugin plugin) {
+		if(FoliaTaskScheduler.isSupported()) {
+			try {
+				return new FoliaTaskScheduler(plugin);
+			} catch(ReflectiveOperationException e) {
+				HaroTorch.logWarn("Failed to set up the Folia schedulers, falling back to the Bukkit scheduler: " + e.getMessage());
+			}
+		}
+		
+		return new BukkitTaskScheduler(plugin);
+	}
+	
+	/**
+	 * @return True if the server ticks regions on separate threads
+	 */
+	public abstract boolean isRegionThreaded();
+	
+	/**
+	 * Run a task repeatedly on the global thread. This is the main thread, or Folia's global region
+	 * @param task The task
+	 * @param delay The delay before the first run. At least 1
+	 * @param period The delay between two runs. At least 1
+	 * @return The task
+	 */
+	public abstract TaskHandle runTimer(Runnable task, long delay, long period);
+	
+	/**
+	 * Run a task once on the global thread. This is the main thread, or Folia's global region
+	 * @param task The task
+	 * @param delay The delay. At least 1
+	 * @return The task
+	 */
+	public abstract TaskHandle runLater(Runnable task, long delay);
+	
+	/**
+	 * Run a task once on the thread owning a Location
+	 * @param location The Location
+	 * @param task The task
+	 * @param delay The delay. At least 1
+	 * @return The task
+	 */
+	public abstract TaskHandle runAt(Location location, Runnable task, long delay);
+	
+	/**
+	 * Run a task once on the thread owning an Entity, following it across regions
+	 * @param entity The Entity
+	 * @param task The task
+	 * @param retired Run instead of the task when the Entity is removed before the task runs, such as a Player leaving. May be null
+	 * @param delay The delay. At least 1
+	 * @return The task, or null if the Entity is already removed. The retired callback is not called in that case
+	 */
+	@Nullable
+	public abstract TaskHandle runFor(Entity entity, Runnable task, @Nullable Runnable retired, long delay);
+	
+	/**
+	 * Run a task repeatedly on the thread owning an Entity, following it across regions. The task stops when the Entity is removed
+	 * @param entity The Entity
+	 * @param task The task
+	 * @param retired Run once when the Entity is removed while the task is scheduled, such as a Player leaving. May be null
+	 * @param delay The delay before the first run. At least 1
+	 * @param period The delay between two runs. At least 1
+	 * @return The task, or null if the Entity is already removed. The retired callback is not called in that case
+	 */
+	@Nullable
+	public abstract TaskHandle runTimerFor(Entity entity, Runnable task, @Nullable Runnable retired, long delay, long period);
+	
+	/**
+	 * Get an Executor running tasks on the next tick of the thread owning an Entity, for handing work back from the {@link WorkerPool}.
+	 * Tasks submitted after the Entity is removed are dropped
+	 * @param entity The Entity
+	 * @return The Executor
+	 */
+	public Executor forEntity(Entity entity) {
+		return r -> runFor(entity, r, null, 1L);
+	}
+	
+	/**
+	 * Get an Executor running tasks on the next tick of the thread a CommandSender can be messaged from, for reporting the result of background work.
+	 * That is the thread owning the Player, or the global thread for the console
+	 * @param sender The CommandSender
+	 * @return The Executor
+	 */
+	public Executor forSender(CommandSender sender) {
+		return (sender instanceof Player) ? forEntity((Player) sender) : r -> runLater(r, 1L);
+	}
+}
@@ -0,0 +1,161 @@
+package dev.array21.harotorch.scheduler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * The executor for all of HaroTorch's background work. It is created when the plugin is enabled and shut down when it is disabled.<br>
+ * On Java 21 and newer every task runs on its own virtual thread, otherwise a small pool of daemon threads is used.
+ * Either way at most {@link #MAX_PENDING} tasks may be waiting or running at once, further tasks are rejected.<br>
+ * Tasks must not touch Bukkit objects such as Locations or Worlds, they should be handed copies of the data they need instead.
+ */
+public class WorkerPool implements Executor {
+	
+	/**
+	 * How many tasks may be waiting or running at once
+	 */
+	public static final int MAX_PENDING = 1024;
+	
+	private static final String THREAD_PREFIX = "HaroTorch-Worker-";
+	
+	private final ExecutorService executor;
+	private final boolean virtualThreads;
+	private final int threads;
+	
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	
+	public WorkerPool() {
+		ExecutorService virtualExecutor = createVirtualThreadExecutor();
+		if(virtualExecutor != null) {
+			this.executor = virtualExecutor;
+			this.virtualThreads = true;
+			this.threads = -1;
+			return;
+		}
+		
+		this.virtualThreads = false;
+		this.threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+		
+		final AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory factory = r -> {
+			Thread t = new Thread(r, THREAD_PREFIX + threadCount.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		};
+		
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(this.threads, this.threads, 30L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_PENDING), factory);
+		pool.allowCoreThreadTimeOut(true);
+		this.executor = pool;
+	}
+	
+	/**
+	 * Create an executor starting a virtual thread per task. Virtual threads were added in Java 21, HaroTorch is built for an older version so they are looked up through reflection
+	 * @return The executor, or null if virtual threads are not available
+	 */
+	@Nullable
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_PREFIX, 0L);
+			ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			
+			return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			// Not available, or a preview feature which is not enabled
+			return null;
+		}
+	}
+	
+	/**
+	 * Run a task in the background
+	 * @param task The task
+	 * @throws RejectedExecutionException If too many tasks are pending, or the pool was shut down
+	 */
+	@Override
+	public void execute(Runnable task) {
+		if(this.pending.incrementAndGet() > MAX_PENDING) {
+			this.pending.decrementAndGet();
+			this.rejected.incrementAndGet();
+			throw new RejectedExecutionException("Too many pending HaroTorch tasks");
+		}
+		
+		try {
+			this.executor.execute(() -> {
+				try {
+					task.run();
+				} finally {
+					this.pending.decrementAndGet();
+					this.completed.incrementAndGet();
+				}
+			});
+		} catch(RejectedExecutionException e) {
+			this.pending.decrementAndGet();
+			this.rejected.incrementAndGet();
+			throw e;
+		}
+		
+		this.submitted.incrementAndGet();
+	}
+	
+	/**
+	 * Stop accepting tasks, and wait a few seconds for the pending ones to finish
+	 */
+	public void shutdown() {
+		this.executor.shutdown();
+		
+		try {
+			if(!this.executor.awaitTermination(5L, TimeUnit.SECONDS)) {
+				HaroTorch.logWarn(this.pending.get() + " background tasks did not finish in time, they are interrupted.");
+				this.executor.shutdownNow();
+			}
+		} catch(InterruptedException e) {
+			this.executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	public boolean isUsingVirtualThreads() {
+		return this.virtualThreads;
+	}
+	
+	/**
+	 * @return The amount of platform threads, -1 when using virtual threads
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+	
+	/**
+	 * @return The amount of tasks waiting or running
+	 */
+	public int getPending() {
+		return this.pending.get();
+	}
+	
+	public long getSubmitted() {
+		return this.submitted.get();
+	}
+	
+	public long getCompleted() {
+		return this.completed.get();
+	}
+	
+	public long getRejected() {
+		return this.rejected.get();
+	}
+}
@@ -0,0 +1,211 @@
+package dev.array21.harotorch.torch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * The Torches around every online Player, per chunk the Player is in.<br>
+ * An entry holds the Torches within {@link #getRadius()} of the chunk, and the Torches whose range reaches into the chunk.
+ * It is only rebuilt when the Player is found in another chunk than it was built for, or when a Torch within reach of the chunk is added or removed,
+ * so Players standing still or walking around inside a chunk never visit the {@link SpatialIndex}.<br>
+ * Entries are replaced rather than modified, so the cache can be read from any thread.
+ */
+public class NearbyTorchCache implements TorchListener {
+	
+	/**
+	 * How far from the chunk of a Player Torches are kept, at least as far as the ambient particles reach
+	 */
+	private static final int MIN_RADIUS = 32;
+	
+	private final int radius;
+	
+	/**
+	 * K = The UUID of the Player
+	 * V = The Torches around the chunk the Player was last seen in
+	 */
+	private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+	
+	/**
+	 * Incremented before entries are dropped because a Torch changed, so an entry built from an older snapshot at the same time is not kept
+	 */
+	private final AtomicLong changes = new AtomicLong();
+	
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder rebuilds = new LongAdder();
+	
+	/**
+	 * @param radius The largest radius Torches near a Player are asked for with
+	 */
+	public NearbyTorchCache(int radius) {
+		this.radius = Math.max(MIN_RADIUS, radius);
+	}
+	
+	/**
+	 * Get the Torches near a Player, using the configured shape. See {@link TorchHandler#getTorchesNear(String, double, double, double, int)}
+	 * @param player The Player
+	 * @param radius The radius in blocks, at most {@link #getRadius()}
+	 * @return The Torches in range
+	 */
+	public List<Torch> getTorchesNear(Player player, int radius) {
+		Location l = player.getLocation();
+		Entry entry = getEntry(player.getUniqueId(), l);
+		if(entry == null) {
+			return new ArrayList<>();
+		}
+		
+		return TorchHandler.filterNear(entry.nearby, l.getX(), l.getY(), l.getZ(), radius);
+	}
+	
+	/**
+	 * Get the Torches which may cover a Location the Player is at. The caller is responsible for the exact check
+	 * @param player The Player
+	 * @param location Where the Player is, or is moving to
+	 * @return The Torches whose range reaches into the chunk of the Location. Must not be modified
+	 */
+	public List<Torch> getCovering(Player player, Location location) {
+		Entry entry = getEntry(player.getUniqueId(), location);
+		return (entry != null) ? entry.covering : Collections.emptyList();
+	}
+	
+	/**
+	 * Forget a Player, when they leave
+	 * @param player The Player
+	 */
+	public void remove(Player player) {
+		this.entries.remove(player.getUniqueId());
+	}
+	
+	@Override
+	public void onTorchAdded(Torch torch) {
+		invalidate(torch);
+	}
+	
+	@Override
+	public void onTorchRemoved(Torch torch) {
+		invalidate(torch);
+	}
+	
+	/**
+	 * Drop the entries of the chunks a Torch is near, or reaches into
+	 */
+	private void invalidate(Torch torch) {
+		this.changes.incrementAndGet();
+		
+		final int reach = Math.max(this.radius, torch.getRange());
+		this.entries.values().removeIf(entry -> entry.worldName.equals(torch.getWorldName()) && entry.distanceTo(torch) <= reach);
+	}
+	
+	@Nullable
+	private Entry getEntry(UUID uuid, Location location) {
+		World world = location.getWorld();
+		//Issue #9
+		if(world == null) {
+			return null;
+		}
+		
+		final int chunkX = location.getBlockX() >> 4;
+		final int chunkZ = location.getBlockZ() >> 4;
+		
+		Entry entry = this.entries.get(uuid);
+		if(entry != null && entry.chunkX == chunkX && entry.chunkZ == chunkZ && entry.worldName.equals(world.getName())) {
+			this.hits.increment();
+			return entry;
+		}
+		
+		long changes = this.changes.get();
+		entry = build(world.getName(), chunkX, chunkZ);
+		this.entries.put(uuid, entry);
+		this.rebuilds.increment();
+		
+		// A Torch changed while building, the snapshot may have missed it
+		if(this.changes.get() != changes) {
+			this.entries.remove(uuid, entry);
+		}
+		
+		return entry;
+	}
+	
+	private Entry build(String worldName, int chunkX, int chunkZ) {
+		TorchSnapshot snapshot = TorchHandler.getSnapshot();
+		Entry entry = new Entry(worldName, chunkX, chunkZ);
+		
+		List<Torch> candidates = new ArrayList<>();
+		snapshot.getCandidates(worldName, (chunkX << 4) + 8, (chunkZ << 4) + 8, this.radius + 8, candidates);
+		for(Torch t : candidates) {
+			if(entry.distanceTo(t) <= this.radius) {
+				entry.nearby.add(t);
+			}
+		}
+		
+		// A chunk never spans two coverage cells, so any block of it finds every Torch which may reach into it
+		candidates.clear();
+		snapshot.getCovering(worldName, chunkX << 4, chunkZ << 4, candidates);
+		for(Torch t : candidates) {
+			if(entry.distanceTo(t) <= t.getRange()) {
+				entry.covering.add(t);
+			}
+		}
+		
+		return entry;
+	}
+	
+	/**
+	 * @return The largest radius {@link #getTorchesNear(Player, int)} can answer. In blocks
+	 */
+	public int getRadius() {
+		return this.radius;
+	}
+	
+	/**
+	 * @return The amount of lookups answered without visiting the index, since the plugin was enabled
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+	
+	/**
+	 * @return The amount of times an entry was built, since the plugin was enabled
+	 */
+	public long getRebuilds() {
+		return this.rebuilds.sum();
+	}
+	
+	private static class Entry {
+		private final String worldName;
+		private final int chunkX, chunkZ;
+		
+		/**
+		 * Only added to while the entry is built
+		 */
+		private final List<Torch> nearby = new ArrayList<>();
+		private final List<Torch> covering = new ArrayList<>();
+		
+		private Entry(String worldName, int chunkX, int chunkZ) {
+			this.worldName = worldName;
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+		}
+		
+		/**
+		 * @return The horizontal distance between a Torch and the closest block of this chunk, along the axis where it is largest
+		 */
+		private int distanceTo(Torch t) {
+			int minX = this.chunkX << 4;
+			int minZ = this.chunkZ << 4;
+			int dx = Math.max(0, Math.max(minX - t.getBlockX(), t.getBlockX() - (minX + 15)));
+			int dz = Math.max(0, Math.max(minZ - t.getBlockZ(), t.getBlockZ() - (minZ + 15)));
+			return Math.max(dx, dz);
+		}
+	}
+}
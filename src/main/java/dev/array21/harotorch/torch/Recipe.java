@@ -1,5 +1,6 @@
 package dev.array21.harotorch.torch;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +11,7 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.ShapedRecipe;
 
 import dev.array21.harotorch.HaroTorch;
+import dev.array21.harotorch.config.ConfigManifest.TorchTier;
 
 public class Recipe {
 
@@ -20,11 +22,24 @@ public class Recipe {
 	}
 	
 	public ShapedRecipe getTorchRecipe() {
-		HashMap<Character, Material> keys = this.plugin.getConfigManifest().getRecipeKeys();
-		List<String> shape = this.plugin.getConfigManifest().getRecipeShape();
+		return getRecipe(new NamespacedKey(plugin, "haro_torch"), TorchHandler.getTorch(1), this.plugin.getConfigManifest().getRecipeShape(), this.plugin.getConfigManifest().getRecipeKeys());
+	}
+	
+	/**
+	 * Get the recipes of the configured Torch tiers
+	 * @return The recipes
+	 */
+	public List<ShapedRecipe> getTierRecipes() {
+		List<ShapedRecipe> recipes = new ArrayList<>();
+		for(TorchTier tier : TorchHandler.getTiers()) {
+			recipes.add(getRecipe(new NamespacedKey(plugin, "haro_torch_" + tier.getName()), TorchHandler.getTorch(1, tier), tier.getRecipeShape(), tier.getRecipeKeys()));
+		}
 		
-		ItemStack stack = TorchHandler.getTorch(1);
-		ShapedRecipe recipe = new ShapedRecipe(new NamespacedKey(plugin, "haro_torch"), stack);
+		return recipes;
+	}
+	
+	private ShapedRecipe getRecipe(NamespacedKey key, ItemStack stack, List<String> shape, HashMap<Character, Material> keys) {
+		ShapedRecipe recipe = new ShapedRecipe(key, stack);
 		
 		int recipeShapeSize = shape.size();
 			
@@ -0,0 +1,444 @@
+package dev.array21.harotorch.torch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * Grids of Torches per World, so lookups only have to visit the cells around a position instead of every registered Torch.<br>
+ * There are two grids. One buckets Torches per chunk, for finding the Torches near a position. The other answers which Torches cover a position,
+ * when Torches have different ranges: every Torch is put in the grid level whose cell size is the smallest power of two at least as large as its range.
+ * A Torch can then only cover positions in its own or a neighbouring cell, so a lookup visits 9 cells per level in use, no matter how uneven the ranges are.<br>
+ * The index is immutable, so it can be read from any thread. {@link #with(Torch)} and {@link #without(Torch)} return a new index
+ * which only copies the shards of 32 by 32 cells the change touched, and the lists of shards of the World that changed. Everything else is shared with the old one.
+ */
+public class SpatialIndex {
+	
+	public static final SpatialIndex EMPTY = new SpatialIndex(new HashMap<>(), 0);
+	
+	/**
+	 * The smallest coverage cell is 16 blocks, the size of a chunk
+	 */
+	private static final int MIN_LEVEL = 4;
+	
+	/**
+	 * Both grids are split into shards of 2^5 = 32 by 32 cells, which are copied on write. For the chunk grid a shard is a region file
+	 */
+	private static final int SHARD_SHIFT = 5;
+	
+	/**
+	 * K = The name of the World
+	 * V = The Torches in that World
+	 * Not modified after the index is constructed
+	 */
+	private final HashMap<String, WorldIndex> worlds;
+	private final int size;
+	
+	private SpatialIndex(HashMap<String, WorldIndex> worlds, int size) {
+		this.worlds = worlds;
+		this.size = size;
+	}
+	
+	/**
+	 * Create an index containing the provided Torches
+	 * @param torches The Torches. When several are at the same position, the last one wins
+	 * @return The index
+	 */
+	public static SpatialIndex of(Collection<Torch> torches) {
+		HashMap<String, WorldIndex> worlds = new HashMap<>();
+		int size = 0;
+		
+		for(Torch torch : torches) {
+			WorldIndex world = worlds.computeIfAbsent(torch.getWorldName(), k -> new WorldIndex());
+			Torch replaced = world.get(torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+			if(replaced != null) {
+				world.remove(replaced);
+				size--;
+			}
+			
+			world.add(torch);
+			size++;
+		}
+		
+		for(WorldIndex world : worlds.values()) {
+			world.seal();
+		}
+		
+		return new SpatialIndex(worlds, size);
+	}
+	
+	/**
+	 * Get an index which also contains the provided Torch, replacing the Torch at the same position if there is one
+	 * @param torch The Torch to add
+	 * @return The new index
+	 */
+	public SpatialIndex with(Torch torch) {
+		WorldIndex old = this.worlds.get(torch.getWorldName());
+		WorldIndex world = (old != null) ? old.copy() : new WorldIndex();
+		
+		int size = this.size + 1;
+		Torch replaced = world.get(torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+		if(replaced != null) {
+			world.remove(replaced);
+			size--;
+		}
+		
+		world.add(torch);
+		world.seal();
+		
+		HashMap<String, WorldIndex> worlds = new HashMap<>(this.worlds);
+		worlds.put(torch.getWorldName(), world);
+		return new SpatialIndex(worlds, size);
+	}
+	
+	/**
+	 * Get an index without the Torch at the position of the provided Torch
+	 * @param torch The Torch to remove
+	 * @return The new index, or this index if there is no Torch at that position
+	 */
+	public SpatialIndex without(Torch torch) {
+		WorldIndex old = this.worlds.get(torch.getWorldName());
+		if(old == null) {
+			return this;
+		}
+		
+		Torch removed = old.get(torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+		if(removed == null) {
+			return this;
+		}
+		
+		WorldIndex world = old.copy();
+		world.remove(removed);
+		world.seal();
+		
+		HashMap<String, WorldIndex> worlds = new HashMap<>(this.worlds);
+		if(world.chunks.isEmpty()) {
+			worlds.remove(torch.getWorldName());
+		} else {
+			worlds.put(torch.getWorldName(), world);
+		}
+		
+		return new SpatialIndex(worlds, this.size - 1);
+	}
+	
+	/**
+	 * Get the Torch at a position
+	 * @param worldName The name of the World
+	 * @param x The block X coordinate
+	 * @param y The block Y coordinate
+	 * @param z The block Z coordinate
+	 * @return The Torch, or null if there is none
+	 */
+	@Nullable
+	public Torch get(String worldName, int x, int y, int z) {
+		WorldIndex world = this.worlds.get(worldName);
+		return (world != null) ? world.get(x, y, z) : null;
+	}
+	
+	/**
+	 * Get all Torches in the chunks which overlap with the square of the given radius around a position.
+	 * The caller is responsible for any exact distance check.
+	 * @param worldName The name of the World
+	 * @param x The X coordinate of the center
+	 * @param z The Z coordinate of the center
+	 * @param radius The radius in blocks
+	 * @param out The List to add the candidate Torches to
+	 */
+	public void getCandidates(String worldName, int x, int z, int radius, List<Torch> out) {
+		WorldIndex world = this.worlds.get(worldName);
+		if(world == null) {
+			return;
+		}
+		
+		int minCx = (x - radius) >> 4;
+		int maxCx = (x + radius) >> 4;
+		int minCz = (z - radius) >> 4;
+		int maxCz = (z + radius) >> 4;
+		
+		for(int cx = minCx; cx <= maxCx; cx++) {
+			for(int cz = minCz; cz <= maxCz; cz++) {
+				List<Torch> cell = world.chunks.get(chunkKey(cx >> SHARD_SHIFT, cz >> SHARD_SHIFT), chunkKey(cx, cz));
+				if(cell != null) {
+					out.addAll(cell);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get all Torches whose range may reach a position, using each Torch's own {@link Torch#getRange() range}.
+	 * The caller is responsible for the exact distance check.
+	 * @param worldName The name of the World
+	 * @param x The X coordinate
+	 * @param z The Z coordinate
+	 * @param out The List to add the candidate Torches to
+	 */
+	public void getCovering(String worldName, int x, int z, List<Torch> out) {
+		WorldIndex world = this.worlds.get(worldName);
+		if(world == null) {
+			return;
+		}
+		
+		for(int level = MIN_LEVEL; level < world.levelCounts.length; level++) {
+			if(world.levelCounts[level] == 0) {
+				continue;
+			}
+			
+			int cx = x >> level;
+			int cz = z >> level;
+			for(int dx = -1; dx <= 1; dx++) {
+				for(int dz = -1; dz <= 1; dz++) {
+					List<Torch> cell = world.coverage.get(coverageKey(level, (cx + dx) >> SHARD_SHIFT, (cz + dz) >> SHARD_SHIFT), coverageKey(level, cx + dx, cz + dz));
+					if(cell != null) {
+						out.addAll(cell);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get every Torch in the index
+	 * @param out The List to add the Torches to
+	 */
+	public void getAll(List<Torch> out) {
+		for(WorldIndex world : this.worlds.values()) {
+			world.chunks.addAllTo(out);
+		}
+	}
+	
+	/**
+	 * @return The amount of Torches in the index
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * Get the coverage grid level of a range
+	 * @param range The range in blocks
+	 * @return The level, the cell size is 2 to the power of the level
+	 */
+	private static int coverageLevel(int range) {
+		int level = 32 - Integer.numberOfLeadingZeros(Math.max(1, range) - 1);
+		return Math.max(MIN_LEVEL, level);
+	}
+	
+	/**
+	 * Pack a coverage grid level and cell coordinates into a single long. The level uses the top 6 bits, the coordinates 29 bits each
+	 */
+	private static long coverageKey(int level, int cellX, int cellZ) {
+		return ((long) level << 58) | ((cellX & 0x1FFFFFFFL) << 29) | (cellZ & 0x1FFFFFFFL);
+	}
+	
+	/**
+	 * Pack chunk coordinates into a single long
+	 * @param chunkX The chunk X coordinate
+	 * @param chunkZ The chunk Z coordinate
+	 * @return The packed key
+	 */
+	public static long chunkKey(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * The Torches of one World. Only modified while it is being built, by {@link SpatialIndex#of(Collection)} or on a fresh {@link #copy()}.
+	 * The Lists in the grids are replaced rather than modified, so copies can share them
+	 */
+	private static class WorldIndex {
+		
+		/**
+		 * K = {@link SpatialIndex#chunkKey(int, int)}
+		 * V = The Torches in that chunk
+		 */
+		private final Grid chunks;
+		
+		/**
+		 * K = {@link SpatialIndex#coverageKey(int, int, int)}
+		 * V = The Torches in that cell
+		 */
+		private final Grid coverage;
+		
+		/**
+		 * The amount of Torches per coverage grid level
+		 */
+		private final int[] levelCounts;
+		
+		private WorldIndex() {
+			this(new Grid(), new Grid(), new int[32]);
+		}
+		
+		private WorldIndex(Grid chunks, Grid coverage, int[] levelCounts) {
+			this.chunks = chunks;
+			this.coverage = coverage;
+			this.levelCounts = levelCounts;
+		}
+		
+		private WorldIndex copy() {
+			return new WorldIndex(this.chunks.copy(), this.coverage.copy(), this.levelCounts.clone());
+		}
+		
+		@Nullable
+		private Torch get(int x, int y, int z) {
+			int cx = x >> 4;
+			int cz = z >> 4;
+			List<Torch> cell = this.chunks.get(chunkKey(cx >> SHARD_SHIFT, cz >> SHARD_SHIFT), chunkKey(cx, cz));
+			if(cell == null) {
+				return null;
+			}
+			
+			for(Torch t : cell) {
+				if(t.getBlockX() == x && t.getBlockY() == y && t.getBlockZ() == z) {
+					return t;
+				}
+			}
+			
+			return null;
+		}
+		
+		private void seal() {
+			this.chunks.seal();
+			this.coverage.seal();
+		}
+		
+		private void add(Torch torch) {
+			int level = coverageLevel(torch.getRange());
+			int cx = torch.getBlockX() >> 4;
+			int cz = torch.getBlockZ() >> 4;
+			int cellX = torch.getBlockX() >> level;
+			int cellZ = torch.getBlockZ() >> level;
+			
+			this.chunks.add(chunkKey(cx >> SHARD_SHIFT, cz >> SHARD_SHIFT), chunkKey(cx, cz), torch);
+			this.coverage.add(coverageKey(level, cellX >> SHARD_SHIFT, cellZ >> SHARD_SHIFT), coverageKey(level, cellX, cellZ), torch);
+			this.levelCounts[level]++;
+		}
+		
+		/**
+		 * @param torch The Torch to remove, as it is stored in this index
+		 */
+		private void remove(Torch torch) {
+			int level = coverageLevel(torch.getRange());
+			int cx = torch.getBlockX() >> 4;
+			int cz = torch.getBlockZ() >> 4;
+			int cellX = torch.getBlockX() >> level;
+			int cellZ = torch.getBlockZ() >> level;
+			
+			this.chunks.remove(chunkKey(cx >> SHARD_SHIFT, cz >> SHARD_SHIFT), chunkKey(cx, cz), torch);
+			this.coverage.remove(coverageKey(level, cellX >> SHARD_SHIFT, cellZ >> SHARD_SHIFT), coverageKey(level, cellX, cellZ), torch);
+			this.levelCounts[level]--;
+		}
+	}
+	
+	/**
+	 * A grid of cells split into shards of {@link SpatialIndex#SHARD_SHIFT 32 by 32} cells. Shards are copied on write:
+	 * a {@link #copy()} only copies the map of shards, and the first change to a shard after that copies just that shard.
+	 * Changing the index is therefore proportional to the amount of shards and the size of the touched shard, not to the amount of Torches
+	 */
+	private static class Grid {
+		
+		/**
+		 * K = The key of the shard
+		 * V = The cells in that shard, by the key of the cell
+		 */
+		private final HashMap<Long, HashMap<Long, List<Torch>>> shards;
+		
+		/**
+		 * The shards created by this Grid, which no other Grid shares and can be modified in place
+		 */
+		private final HashSet<Long> owned = new HashSet<>();
+		
+		private Grid() {
+			this(new HashMap<>());
+		}
+		
+		private Grid(HashMap<Long, HashMap<Long, List<Torch>>> shards) {
+			this.shards = shards;
+		}
+		
+		private Grid copy() {
+			return new Grid(new HashMap<>(this.shards));
+		}
+		
+		private boolean isEmpty() {
+			return this.shards.isEmpty();
+		}
+		
+		@Nullable
+		private List<Torch> get(long shard, long key) {
+			HashMap<Long, List<Torch>> cells = this.shards.get(shard);
+			return (cells != null) ? cells.get(key) : null;
+		}
+		
+		/**
+		 * Get a shard which may be modified, copying it if it is shared with another Grid
+		 */
+		private HashMap<Long, List<Torch>> modify(long shard) {
+			HashMap<Long, List<Torch>> cells = this.shards.get(shard);
+			if(cells != null && this.owned.contains(shard)) {
+				return cells;
+			}
+			
+			cells = (cells != null) ? new HashMap<>(cells) : new HashMap<>();
+			this.shards.put(shard, cells);
+			this.owned.add(shard);
+			return cells;
+		}
+		
+		private void add(long shard, long key, Torch torch) {
+			HashMap<Long, List<Torch>> cells = modify(shard);
+			List<Torch> old = cells.get(key);
+			List<Torch> cell = new ArrayList<>((old != null) ? old.size() + 1 : 4);
+			if(old != null) {
+				cell.addAll(old);
+			}
+			
+			cell.add(torch);
+			cells.put(key, cell);
+		}
+		
+		private void remove(long shard, long key, Torch torch) {
+			List<Torch> old = get(shard, key);
+			if(old == null) {
+				return;
+			}
+			
+			List<Torch> cell = new ArrayList<>(old.size());
+			for(Torch t : old) {
+				if(t != torch) {
+					cell.add(t);
+				}
+			}
+			
+			HashMap<Long, List<Torch>> cells = modify(shard);
+			if(!cell.isEmpty()) {
+				cells.put(key, cell);
+				return;
+			}
+			
+			cells.remove(key);
+			if(cells.isEmpty()) {
+				this.shards.remove(shard);
+				this.owned.remove(shard);
+			}
+		}
+		
+		private void addAllTo(List<Torch> out) {
+			for(HashMap<Long, List<Torch>> cells : this.shards.values()) {
+				for(List<Torch> cell : cells.values()) {
+					out.addAll(cell);
+				}
+			}
+		}
+		
+		/**
+		 * Stop modifying shards in place, called before the Grid is published
+		 */
+		private void seal() {
+			this.owned.clear();
+		}
+	}
+}
@@ -6,32 +6,96 @@ import java.util.UUID;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * A placed HaroTorch. Torches are immutable, they are shared by every {@link TorchSnapshot} and handed to other plugins.
+ * To give a Torch another owner, a new Torch at the same position replaces it, which the journal records as an owner change
+ */
 public class Torch implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 	
-	private UUID torchOwner;
+	private final UUID torchOwner;
 	private final int x, y, z;
 	private final String worldName;
 	
+	/**
+	 * The name of the tier, null for the default HaroTorch. Torches stored before tiers existed read this as null
+	 */
+	@Nullable
+	private final String tier;
+	
+	/**
+	 * The range in blocks, 0 to use the configured torchRange. Torches stored before tiers existed read this as 0
+	 */
+	private final int range;
+	
 	public Torch(UUID torchOwner, Location torchLocation) {
+		this(torchOwner, torchLocation, null, 0);
+	}
+	
+	/**
+	 * @param torchOwner The owner of the Torch
+	 * @param torchLocation Where the Torch is
+	 * @param tier The name of the tier, null for the default HaroTorch
+	 * @param range The range in blocks, 0 to use the configured torchRange
+	 */
+	public Torch(UUID torchOwner, Location torchLocation, @Nullable String tier, int range) {
 		this.torchOwner = torchOwner;
 				
 		this.x = torchLocation.getBlockX();
 		this.y = torchLocation.getBlockY();
 		this.z = torchLocation.getBlockZ();
 		this.worldName = torchLocation.getWorld().getName();
+		
+		this.tier = tier;
+		this.range = Math.max(0, range);
 	}
 	
 	public UUID getTorchOwner() {
 		return this.torchOwner;
 	}
 	
-	public void setOwner(UUID newTorchOwner) {
-		this.torchOwner = newTorchOwner;
-	}
-	
 	public Location getLocation() {
 		return new Location(Bukkit.getWorld(worldName), x, y, z);
 	}
+	
+	public int getBlockX() {
+		return this.x;
+	}
+	
+	public int getBlockY() {
+		return this.y;
+	}
+	
+	public int getBlockZ() {
+		return this.z;
+	}
+	
+	public String getWorldName() {
+		return this.worldName;
+	}
+	
+	/**
+	 * @return The name of the tier, or null for the default HaroTorch
+	 */
+	@Nullable
+	public String getTier() {
+		return this.tier;
+	}
+	
+	/**
+	 * @return The range of this Torch in blocks
+	 */
+	public int getRange() {
+		return (this.range > 0) ? this.range : TorchHandler.getDefaultRange();
+	}
+	
+	/**
+	 * @return The range as stored, 0 if this Torch uses the configured torchRange
+	 */
+	public int getStoredRange() {
+		return this.range;
+	}
 }
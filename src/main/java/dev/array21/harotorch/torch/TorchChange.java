@@ -0,0 +1,104 @@
+package dev.array21.harotorch.torch;
+
+import java.util.UUID;
+
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * One change to the Torch registry, as recorded in the {@link TorchJournal}
+ */
+public final class TorchChange {
+	
+	public enum Type {
+		/**
+		 * A Torch was placed
+		 */
+		ADDED,
+		
+		/**
+		 * A Torch was removed
+		 */
+		REMOVED,
+		
+		/**
+		 * A Torch was replaced by one with another owner, but otherwise the same
+		 */
+		OWNER_CHANGED
+	}
+	
+	private final long epoch;
+	private final Type type;
+	private final Torch torch;
+	private final long packedPosition;
+	
+	@Nullable
+	private final UUID previousOwner;
+	
+	TorchChange(long epoch, Type type, Torch torch, @Nullable UUID previousOwner) {
+		this.epoch = epoch;
+		this.type = type;
+		this.torch = torch;
+		this.packedPosition = pack(torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+		this.previousOwner = previousOwner;
+	}
+	
+	/**
+	 * @return The epoch of the snapshot this change was published in. Several changes may share an epoch
+	 */
+	public long getEpoch() {
+		return this.epoch;
+	}
+	
+	public Type getType() {
+		return this.type;
+	}
+	
+	/**
+	 * @return The Torch which was added, removed, or has its new owner
+	 */
+	public Torch getTorch() {
+		return this.torch;
+	}
+	
+	public String getWorldName() {
+		return this.torch.getWorldName();
+	}
+	
+	/**
+	 * @return The position of the Torch, see {@link #pack(int, int, int)}
+	 */
+	public long getPackedPosition() {
+		return this.packedPosition;
+	}
+	
+	/**
+	 * @return The owner before the change, only set for {@link Type#OWNER_CHANGED}
+	 */
+	@Nullable
+	public UUID getPreviousOwner() {
+		return this.previousOwner;
+	}
+	
+	/**
+	 * Pack a block position into a single long. X and Z use 26 bits each, which covers the World border, and Y uses 12 bits
+	 * @param x The block X coordinate
+	 * @param y The block Y coordinate
+	 * @param z The block Z coordinate
+	 * @return The packed position
+	 */
+	public static long pack(int x, int y, int z) {
+		return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+	}
+	
+	public static int unpackX(long packed) {
+		return (int) (packed >> 38);
+	}
+	
+	public static int unpackY(long packed) {
+		return (int) (packed << 52 >> 52);
+	}
+	
+	public static int unpackZ(long packed) {
+		return (int) (packed << 26 >> 38);
+	}
+}
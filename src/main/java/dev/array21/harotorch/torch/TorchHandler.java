@@ -1,10 +1,11 @@
 package dev.array21.harotorch.torch;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -20,15 +21,26 @@ import net.md_5.bungee.api.ChatColor;
 import dev.array21.harotorch.HaroTorch;
 import dev.array21.harotorch.annotations.Nullable;
 import dev.array21.harotorch.config.ConfigManifest.TorchRangeShape;
+import dev.array21.harotorch.config.ConfigManifest.TorchTier;
 import dev.array21.harotorch.lang.LangHandler;
+import dev.array21.harotorch.profiler.Profiler;
+import dev.array21.harotorch.profiler.ProfilerProbe;
 
+/**
+ * The registry of all Torches.<br>
+ * Changes are serialized, and each one publishes a new immutable {@link TorchSnapshot}. Readers only ever load the current snapshot,
+ * so they never block and never see a half applied change, on whichever thread they run.
+ */
 public class TorchHandler {
 	
 	private static HaroTorch plugin;
 	
-	private static HashMap<Location, Torch> torches = new HashMap<>();
-	private static HashMap<UUID, Integer> playerTorchCounter = new HashMap<>();
+	private static final AtomicReference<TorchSnapshot> snapshot = new AtomicReference<>(TorchSnapshot.EMPTY);
+	private static final Object WRITE_LOCK = new Object();
+	private static final List<TorchListener> listeners = new CopyOnWriteArrayList<>();
+	private static final TorchJournal journal = new TorchJournal();
 	private static StorageHandler STORAGE;
+	private static List<TorchTier> tiers = new ArrayList<>();
 	
 	public TorchHandler(HaroTorch plugin) {		
 		TorchHandler.plugin = plugin;
@@ -36,58 +48,156 @@ public class TorchHandler {
 	
 	public void setup() {
 		STORAGE = new StorageHandler(plugin);
+		tiers = plugin.getConfigManifest().getTorchTiers();
 		
-		for(Torch t : STORAGE.read()) {
-			torches.put(t.getLocation(), t);
-			playerTorchCounter.merge(t.getTorchOwner(), 1, Integer::sum);
+		// Published at once, rather than one snapshot per stored Torch. Anything built from before has to rebuild
+		synchronized(WRITE_LOCK) {
+			long epoch = snapshot.get().getEpoch() + 1;
+			snapshot.set(TorchSnapshot.of(epoch, STORAGE.read()));
+			journal.truncate(epoch);
 		}
 	}
 	
+	/**
+	 * Get the current state of the registry. Can be called from any thread
+	 * @return The snapshot
+	 */
+	public static TorchSnapshot getSnapshot() {
+		return snapshot.get();
+	}
+	
 	public static void addTorch(Torch torch) {
-		playerTorchCounter.merge(torch.getTorchOwner(), 1, Integer::sum);
+		publishAdd(torch);
 		
-		torches.put(torch.getLocation(), torch);
+		long start = Profiler.start();
 		STORAGE.write(torch);
+		Profiler.stop(ProfilerProbe.STORAGE_WRITE, start);
+		
+		for(TorchListener listener : listeners) {
+			listener.onTorchAdded(torch);
+		}
 	}
 	
 	public static void removeTorch(Torch torch) {
-		playerTorchCounter.merge(torch.getTorchOwner(), -1, Integer::sum);
+		publishRemove(torch);
 		
-		torches.remove(torch.getLocation());	
+		long start = Profiler.start();
 		STORAGE.remove(torch);
+		Profiler.stop(ProfilerProbe.STORAGE_WRITE, start);
+		
+		for(TorchListener listener : listeners) {
+			listener.onTorchRemoved(torch);
+		}
+	}
+	
+	/**
+	 * Publish a snapshot containing the Torch and record the change in the journal, without storing it or notifying listeners
+	 */
+	static void publishAdd(Torch torch) {
+		synchronized(WRITE_LOCK) {
+			TorchSnapshot current = snapshot.get();
+			TorchSnapshot next = current.with(torch);
+			
+			Torch replaced = current.getTorch(torch.getWorldName(), torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+			if(replaced == null) {
+				journal.record(new TorchChange(next.getEpoch(), TorchChange.Type.ADDED, torch, null));
+			} else if(!replaced.getTorchOwner().equals(torch.getTorchOwner()) && Objects.equals(replaced.getTier(), torch.getTier()) && replaced.getStoredRange() == torch.getStoredRange()) {
+				journal.record(new TorchChange(next.getEpoch(), TorchChange.Type.OWNER_CHANGED, torch, replaced.getTorchOwner()));
+			} else {
+				journal.record(new TorchChange(next.getEpoch(), TorchChange.Type.REMOVED, replaced, null));
+				journal.record(new TorchChange(next.getEpoch(), TorchChange.Type.ADDED, torch, null));
+			}
+			
+			snapshot.set(next);
+		}
+	}
+	
+	/**
+	 * Publish a snapshot without the Torch and record the change in the journal, without storing it or notifying listeners
+	 */
+	static void publishRemove(Torch torch) {
+		synchronized(WRITE_LOCK) {
+			TorchSnapshot current = snapshot.get();
+			Torch removed = current.getTorch(torch.getWorldName(), torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+			if(removed != null) {
+				TorchSnapshot next = current.without(torch);
+				journal.record(new TorchChange(next.getEpoch(), TorchChange.Type.REMOVED, removed, null));
+				snapshot.set(next);
+			}
+		}
+	}
+	
+	/**
+	 * Get the journal of recent changes, to catch up from an older {@link TorchSnapshot#getEpoch() epoch}
+	 * @return The journal
+	 */
+	public static TorchJournal getJournal() {
+		return journal;
+	}
+	
+	/**
+	 * Register a listener to be notified when Torches are added or removed
+	 * @param listener The listener
+	 */
+	public static void registerListener(TorchListener listener) {
+		listeners.add(listener);
 	}
 	
 	public static boolean isTorch(Location loc) {
-		return torches.containsKey(loc);
+		return getTorch(loc) != null;
 	}
 	
+	@Nullable
 	public static Torch getTorch(Location loc) {
-		return torches.get(loc);
+		World world = loc.getWorld();
+		if(world == null) {
+			return null;
+		}
+		
+		return snapshot.get().getTorch(world.getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
 	}
 	
 	public static UUID getTorchOwner(Location loc) {
-		return torches.get(loc).getTorchOwner();
+		return getTorch(loc).getTorchOwner();
 	}
 	
 	public static List<Torch> getTorches() {
-		List<Torch> result = new ArrayList<>();
-		
-		for(Map.Entry<Location, Torch> entry : torches.entrySet()) {
-			result.add(entry.getValue());
-		}
-		
-		return result;
+		return snapshot.get().getTorches();
 	}
 	
 	/**
 	 * @param torch The Torch to return the location for.
 	 * @return The location associated with the provided Torch. Returns null if the Torch is not registered.
 	 */
+	@Nullable
 	public static Location getLocation(Torch torch) {
-		for(Map.Entry<Location, Torch> entry : torches.entrySet()) {
-			
-			if(entry.getValue().equals(torch)) {
-				return entry.getKey();
+		Torch registered = snapshot.get().getTorch(torch.getWorldName(), torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+		return torch.equals(registered) ? registered.getLocation() : null;
+	}
+
+	/**
+	 * @return The range of Torches which don't have their own range, the configured torchRange
+	 */
+	public static int getDefaultRange() {
+		return TorchHandler.plugin.getConfigManifest().torchRange;
+	}
+	
+	/**
+	 * @return The configured Torch tiers
+	 */
+	public static List<TorchTier> getTiers() {
+		return tiers;
+	}
+	
+	/**
+	 * @param name The name of the tier, case insensitive
+	 * @return The tier, or null if there is no tier with that name
+	 */
+	@Nullable
+	public static TorchTier getTier(String name) {
+		for(TorchTier tier : tiers) {
+			if(tier.getName().equalsIgnoreCase(name)) {
+				return tier;
 			}
 		}
 		
@@ -95,19 +205,52 @@ public class TorchHandler {
 	}
 
 	public static ItemStack getTorch(int count) {
-		
+		return getTorch(count, null, 0);
+	}
+	
+	/**
+	 * @param count The amount of Torches
+	 * @param tier The tier of the Torches
+	 * @return An ItemStack of HaroTorches of the tier
+	 */
+	public static ItemStack getTorch(int count, TorchTier tier) {
+		return getTorch(count, tier.getName(), tier.getRange());
+	}
+	
+	/**
+	 * Get the item a placed Torch drops. It keeps the tier and range of the Torch, even if the tier is no longer configured
+	 * @param torch The Torch
+	 * @return An ItemStack of one HaroTorch
+	 */
+	public static ItemStack getTorch(Torch torch) {
+		return getTorch(1, torch.getTier(), torch.getStoredRange());
+	}
+	
+	/**
+	 * @param count The amount of Torches
+	 * @param tier The name of the tier, null for the default HaroTorch
+	 * @param range The range of the Torches, 0 to use the configured torchRange. Carried on the item, so the Torch keeps it once placed
+	 * @return An ItemStack of HaroTorches
+	 */
+	private static ItemStack getTorch(int count, @Nullable String tier, int range) {
 		ItemStack stack = new ItemStack(Material.matchMaterial(TorchHandler.plugin.getConfigManifest().torchBlock));
 		ItemMeta meta = stack.getItemMeta();
 
 		List<String> lore = new ArrayList<>();
-		lore.add(LangHandler.activeLang.getLangMessages().get("torchLore").replaceAll("%TORCH_RADIUS%", String.valueOf(TorchHandler.plugin.getConfigManifest().torchRange)));
+		lore.add(LangHandler.activeLang.getLangMessages().get("torchLore").replaceAll("%TORCH_RADIUS%", String.valueOf((range > 0) ? range : getDefaultRange())));
 		
 		meta.setLore(lore);
-		meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', LangHandler.activeLang.getLangMessages().get("torchTitle")));
+		String title = ChatColor.translateAlternateColorCodes('&', LangHandler.activeLang.getLangMessages().get("torchTitle"));
+		meta.setDisplayName((tier != null) ? title + ChatColor.GRAY + " (" + tier + ")" : title);
 		
 		NamespacedKey key = new NamespacedKey(plugin, "haro_torch");
 		meta.getPersistentDataContainer().set(key, PersistentDataType.INTEGER, 1);
 		
+		if(tier != null) {
+			meta.getPersistentDataContainer().set(new NamespacedKey(plugin, "haro_torch_tier"), PersistentDataType.STRING, tier);
+			meta.getPersistentDataContainer().set(new NamespacedKey(plugin, "haro_torch_range"), PersistentDataType.INTEGER, range);
+		}
+		
 		stack.setItemMeta(meta);
 		stack.addUnsafeEnchantment(Enchantment.MENDING, 1);
 		stack.setAmount(count);
@@ -119,34 +262,87 @@ public class TorchHandler {
 		return Math.pow((locationA.getX() - locationB.getX()), 2) + Math.pow((locationA.getZ() - locationB.getZ()), 2);
 	}
 	
+	/**
+	 * Get the Torches near a Player, using the configured {@link TorchRangeShape}.
+	 * Answered from the {@link NearbyTorchCache} when the radius fits in it
+	 * @param player The Player
+	 * @param radius The radius in blocks
+	 * @return The Torches in range
+	 */
+	public static List<Torch> getTorchesNearPlayer(Player player, int radius) {
+		NearbyTorchCache cache = TorchHandler.plugin.getNearbyTorchCache();
+		if(cache != null && radius <= cache.getRadius()) {
+			return cache.getTorchesNear(player, radius);
+		}
+		
+		Location lPlayer = player.getLocation();
+		World playerWorld = lPlayer.getWorld();
+		//Issue #9
+		if(playerWorld == null) {
+			return new ArrayList<>();
+		}
+		
+		return getTorchesNear(playerWorld.getName(), lPlayer.getX(), lPlayer.getY(), lPlayer.getZ(), radius);
+	}
+	
 	public static List<Location> getTorchLocationsNearPlayer(Player player, int radius) {
 		List<Location> result = new ArrayList<>();
 		
-		for(Map.Entry<Location, Torch> entry : torches.entrySet()) {
-			Location l = entry.getKey();
+		for(Torch t : getTorchesNearPlayer(player, radius)) {
+			Location l = t.getLocation();
 			
-			World playerWorld = player.getLocation().getWorld();
 			//Issue #9
-			if(playerWorld == null || l.getWorld() == null) {
+			if(l.getWorld() == null) {
 				continue;
 			}
 			
-			if(!l.getWorld().getName().equals(playerWorld.getName())) {
-				continue;
-			}
+			result.add(l);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Get all Torches within the given radius of a position, using the configured {@link TorchRangeShape}.
+	 * Only the chunks around the position are visited.
+	 * @param worldName The name of the World
+	 * @param x The X coordinate
+	 * @param y The Y coordinate
+	 * @param z The Z coordinate
+	 * @param radius The radius in blocks
+	 * @return The Torches in range
+	 */
+	public static List<Torch> getTorchesNear(String worldName, double x, double y, double z, int radius) {
+		List<Torch> candidates = new ArrayList<>();
+		snapshot.get().getCandidates(worldName, (int) Math.floor(x), (int) Math.floor(z), radius, candidates);
+		return filterNear(candidates, x, y, z, radius);
+	}
+	
+	/**
+	 * Get the Torches within the given radius of a position, using the configured {@link TorchRangeShape}
+	 * @param candidates The Torches to check, all in the World of the position
+	 * @param x The X coordinate
+	 * @param y The Y coordinate
+	 * @param z The Z coordinate
+	 * @param radius The radius in blocks
+	 * @return The Torches in range
+	 */
+	static List<Torch> filterNear(List<Torch> candidates, double x, double y, double z, int radius) {
+		List<Torch> result = new ArrayList<>(candidates.size());
+		boolean circle = TorchHandler.plugin.getConfigManifest().getTorchRangeShape().isRound();
+		double radiusSquared = Math.pow(radius, 2);
+		
+		for(Torch t : candidates) {
+			double distanceX = t.getBlockX() - x;
+			double distanceZ = t.getBlockZ() - z;
 			
-			if(TorchHandler.plugin.getConfigManifest().getTorchRangeShape() == TorchRangeShape.CIRCLE) {
-				if(l.distanceSquared(player.getLocation()) < Math.pow(radius, 2)) {
-					result.add(l);
-				}
-			} else {
-				Location lPlayer = player.getLocation();
-				double distanceX = Math.abs(l.getX() - lPlayer.getX());
-				double distanceZ = Math.abs(l.getZ() - lPlayer.getZ());
-				
-				if(distanceX < radius && distanceZ < radius) {
-					result.add(l);
+			if(circle) {
+				double distanceY = t.getBlockY() - y;
+				if(distanceX * distanceX + distanceY * distanceY + distanceZ * distanceZ < radiusSquared) {
+					result.add(t);
 				}
+			} else if(Math.abs(distanceX) < radius && Math.abs(distanceZ) < radius) {
+				result.add(t);
 			}
 		}
 		
@@ -155,6 +351,6 @@ public class TorchHandler {
 	
 	@Nullable
 	public static Integer getTorchCountForPlayer(UUID uuid) {
-		return playerTorchCounter.get(uuid);
+		return snapshot.get().getTorchCount(uuid);
 	}
 }
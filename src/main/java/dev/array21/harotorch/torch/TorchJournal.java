@@ -0,0 +1,96 @@
+package dev.array21.harotorch.torch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * The most recent changes to the Torch registry, so caches built from an older {@link TorchSnapshot} can catch up on what changed since, instead of rebuilding.<br>
+ * A consumer remembers the {@link TorchSnapshot#getEpoch() epoch} it is up to date with and asks for the changes after it.
+ * Only the last {@link #CAPACITY} changes are kept. A consumer which fell further behind gets null, and has to rebuild from the current snapshot.<br>
+ * Written by the {@link TorchHandler} while it holds its write lock, read from any thread.
+ */
+public class TorchJournal {
+	
+	/**
+	 * How many changes are kept
+	 */
+	public static final int CAPACITY = 4096;
+	
+	private final TorchChange[] ring = new TorchChange[CAPACITY];
+	
+	/**
+	 * Where the next change is written
+	 */
+	private int head = 0;
+	private int count = 0;
+	
+	/**
+	 * Changes up to and including this epoch are no longer in the journal
+	 */
+	private long truncatedEpoch = 0;
+	
+	synchronized void record(TorchChange change) {
+		if(this.count == CAPACITY) {
+			this.truncatedEpoch = this.ring[this.head].getEpoch();
+		} else {
+			this.count++;
+		}
+		
+		this.ring[this.head] = change;
+		this.head = (this.head + 1) % CAPACITY;
+	}
+	
+	/**
+	 * Forget every change. Consumers asking for changes up to this epoch have to rebuild
+	 * @param epoch The epoch of the snapshot which replaced the registry
+	 */
+	synchronized void truncate(long epoch) {
+		for(int i = 0; i < CAPACITY; i++) {
+			this.ring[i] = null;
+		}
+		
+		this.head = 0;
+		this.count = 0;
+		this.truncatedEpoch = epoch;
+	}
+	
+	/**
+	 * Get the changes made after an epoch, oldest first
+	 * @param epoch The epoch the caller is up to date with
+	 * @return The changes, empty if there are none. Null if some of them are no longer kept, in which case the caller has to rebuild
+	 */
+	@Nullable
+	public synchronized List<TorchChange> getChangesSince(long epoch) {
+		// The oldest kept change may share its epoch with dropped ones
+		if(epoch < this.truncatedEpoch) {
+			return null;
+		}
+		
+		List<TorchChange> result = new ArrayList<>();
+		int start = (this.head - this.count + CAPACITY) % CAPACITY;
+		for(int i = 0; i < this.count; i++) {
+			TorchChange change = this.ring[(start + i) % CAPACITY];
+			if(change.getEpoch() > epoch) {
+				result.add(change);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @return The amount of changes kept
+	 */
+	public synchronized int size() {
+		return this.count;
+	}
+	
+	/**
+	 * @return The lowest epoch consumers can still catch up from
+	 */
+	public synchronized long getOldestEpoch() {
+		return this.truncatedEpoch;
+	}
+}
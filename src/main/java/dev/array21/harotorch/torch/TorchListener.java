@@ -0,0 +1,20 @@
+package dev.array21.harotorch.torch;
+
+/**
+ * Receives a callback whenever a Torch is added to or removed from the {@link TorchHandler}.
+ * Callbacks are invoked on the thread that made the change.
+ */
+public interface TorchListener {
+	
+	/**
+	 * Called after a Torch was added
+	 * @param torch The Torch
+	 */
+	public void onTorchAdded(Torch torch);
+	
+	/**
+	 * Called after a Torch was removed
+	 * @param torch The Torch
+	 */
+	public void onTorchRemoved(Torch torch);
+}
@@ -0,0 +1,155 @@
+package dev.array21.harotorch.torch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import dev.array21.harotorch.annotations.Nullable;
+
+/**
+ * An immutable view of all registered Torches at one moment. Every change to the {@link TorchHandler} publishes a new snapshot,
+ * so a snapshot can be read from any thread without locking, and multiple reads from the same snapshot are always consistent with each other.
+ */
+public final class TorchSnapshot {
+	
+	static final TorchSnapshot EMPTY = new TorchSnapshot(0L, SpatialIndex.EMPTY, Collections.emptyMap());
+	
+	/**
+	 * Incremented by every change, see {@link TorchJournal}
+	 */
+	private final long epoch;
+	private final SpatialIndex index;
+	
+	/**
+	 * K = The UUID of the Player
+	 * V = The amount of Torches owned by that Player. Players without Torches have no entry
+	 */
+	private final Map<UUID, Integer> torchCounts;
+	
+	private TorchSnapshot(long epoch, SpatialIndex index, Map<UUID, Integer> torchCounts) {
+		this.epoch = epoch;
+		this.index = index;
+		this.torchCounts = torchCounts;
+	}
+	
+	/**
+	 * Create a snapshot containing the provided Torches
+	 * @param epoch The epoch of the snapshot
+	 * @param torches The Torches
+	 * @return The snapshot
+	 */
+	static TorchSnapshot of(long epoch, List<Torch> torches) {
+		SpatialIndex index = SpatialIndex.of(torches);
+		
+		List<Torch> indexed = new ArrayList<>(index.size());
+		index.getAll(indexed);
+		
+		HashMap<UUID, Integer> counts = new HashMap<>();
+		for(Torch t : indexed) {
+			counts.merge(t.getTorchOwner(), 1, Integer::sum);
+		}
+		
+		return new TorchSnapshot(epoch, index, Collections.unmodifiableMap(counts));
+	}
+	
+	/**
+	 * @param torch The Torch to add
+	 * @return A snapshot which also contains the Torch
+	 */
+	TorchSnapshot with(Torch torch) {
+		Torch replaced = this.index.get(torch.getWorldName(), torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+		
+		HashMap<UUID, Integer> counts = new HashMap<>(this.torchCounts);
+		if(replaced != null) {
+			decrement(counts, replaced.getTorchOwner());
+		}
+		
+		counts.merge(torch.getTorchOwner(), 1, Integer::sum);
+		return new TorchSnapshot(this.epoch + 1, this.index.with(torch), Collections.unmodifiableMap(counts));
+	}
+	
+	/**
+	 * @param torch The Torch to remove
+	 * @return A snapshot without the Torch at the position of the provided Torch, or this snapshot if there is no Torch there
+	 */
+	TorchSnapshot without(Torch torch) {
+		Torch removed = this.index.get(torch.getWorldName(), torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+		if(removed == null) {
+			return this;
+		}
+		
+		HashMap<UUID, Integer> counts = new HashMap<>(this.torchCounts);
+		decrement(counts, removed.getTorchOwner());
+		return new TorchSnapshot(this.epoch + 1, this.index.without(torch), Collections.unmodifiableMap(counts));
+	}
+	
+	private static void decrement(HashMap<UUID, Integer> counts, UUID owner) {
+		counts.computeIfPresent(owner, (k, v) -> (v > 1) ? v - 1 : null);
+	}
+	
+	/**
+	 * Get the Torch at a position
+	 * @param worldName The name of the World
+	 * @param x The block X coordinate
+	 * @param y The block Y coordinate
+	 * @param z The block Z coordinate
+	 * @return The Torch, or null if there is none
+	 */
+	@Nullable
+	public Torch getTorch(String worldName, int x, int y, int z) {
+		return this.index.get(worldName, x, y, z);
+	}
+	
+	/**
+	 * @return Every Torch in this snapshot, in no particular order. The List may be modified by the caller
+	 */
+	public List<Torch> getTorches() {
+		List<Torch> result = new ArrayList<>(this.index.size());
+		this.index.getAll(result);
+		return result;
+	}
+	
+	/**
+	 * Get all Torches in the chunks which overlap with the square of the given radius around a position.
+	 * The caller is responsible for any exact distance check.
+	 * @see SpatialIndex#getCandidates(String, int, int, int, List)
+	 */
+	public void getCandidates(String worldName, int x, int z, int radius, List<Torch> out) {
+		this.index.getCandidates(worldName, x, z, radius, out);
+	}
+	
+	/**
+	 * Get all Torches whose own range may reach a position.
+	 * The caller is responsible for the exact distance check.
+	 * @see SpatialIndex#getCovering(String, int, int, List)
+	 */
+	public void getCovering(String worldName, int x, int z, List<Torch> out) {
+		this.index.getCovering(worldName, x, z, out);
+	}
+	
+	/**
+	 * @param uuid The UUID of the Player
+	 * @return The amount of Torches owned by the Player, or null if the Player owns none
+	 */
+	@Nullable
+	public Integer getTorchCount(UUID uuid) {
+		return this.torchCounts.get(uuid);
+	}
+	
+	/**
+	 * @return The epoch of this snapshot. Every change to the registry publishes a snapshot with a higher epoch
+	 */
+	public long getEpoch() {
+		return this.epoch;
+	}
+	
+	/**
+	 * @return The amount of Torches in this snapshot
+	 */
+	public int size() {
+		return this.index.size();
+	}
+}
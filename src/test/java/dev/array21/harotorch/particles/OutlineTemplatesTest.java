@@ -0,0 +1,152 @@
+package dev.array21.harotorch.particles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class OutlineTemplatesTest {
+	
+	private static final int MAX_RADIUS = 128;
+	
+	/**
+	 * The amount of points /torch aoe sampled per circle before the templates, whatever the radius
+	 */
+	private static final int SAMPLED_ANGLES = 360;
+	
+	@Test
+	public void circleHasNoDuplicates() {
+		for(int r = 1; r <= MAX_RADIUS; r++) {
+			assertNoDuplicates(OutlineTemplates.getCircle(r), "circle r=" + r);
+		}
+	}
+	
+	@Test
+	public void squareHasNoDuplicates() {
+		for(int r = 1; r <= MAX_RADIUS; r++) {
+			assertNoDuplicates(OutlineTemplates.getSquare(r), "square r=" + r);
+		}
+	}
+	
+	@Test
+	public void circleIsEightConnected() {
+		for(int r = 1; r <= MAX_RADIUS; r++) {
+			assertEightConnected(OutlineTemplates.getCircle(r), "circle r=" + r);
+		}
+	}
+	
+	@Test
+	public void squareIsEightConnected() {
+		for(int r = 1; r <= MAX_RADIUS; r++) {
+			assertEightConnected(OutlineTemplates.getSquare(r), "square r=" + r);
+		}
+	}
+	
+	@Test
+	public void circlePointsLieOnTheRadius() {
+		for(int r = 1; r <= MAX_RADIUS; r++) {
+			int[] template = OutlineTemplates.getCircle(r);
+			for(int i = 0; i < template.length; i += 2) {
+				double distance = Math.sqrt(template[i] * template[i] + template[i + 1] * template[i + 1]);
+				assertTrue(Math.abs(distance - r) < 1d, "circle r=" + r + ": (" + template[i] + ", " + template[i + 1] + ") is " + distance + " from the center");
+			}
+		}
+	}
+	
+	@Test
+	public void squarePointsLieOnTheEdge() {
+		for(int r = 1; r <= MAX_RADIUS; r++) {
+			int[] template = OutlineTemplates.getSquare(r);
+			for(int i = 0; i < template.length; i += 2) {
+				assertEquals(r, Math.max(Math.abs(template[i]), Math.abs(template[i + 1])), "square r=" + r);
+			}
+		}
+	}
+	
+	@Test
+	public void pointCountIsConstantPerRadius() {
+		for(int r = 1; r <= MAX_RADIUS; r++) {
+			int[] circle = OutlineTemplates.getCircle(r);
+			int[] square = OutlineTemplates.getSquare(r);
+			
+			// Templates are cached, so every Torch with the same range gets the same points
+			assertSame(circle, OutlineTemplates.getCircle(r), "circle r=" + r);
+			assertSame(square, OutlineTemplates.getSquare(r), "square r=" + r);
+			
+			assertEquals(0, circle.length % 2, "circle r=" + r);
+			assertEquals(8 * r, square.length / 2, "square r=" + r);
+		}
+	}
+	
+	/**
+	 * /torch aoe sends one packet per point and row. A circle template has one point per block on the outline, so it needs fewer packets than sampling
+	 * 360 angles below radius 64, and more from there on
+	 */
+	@Test
+	public void circlePacketsComparedToSampledAngles() {
+		for(int r = 1; r <= MAX_RADIUS; r++) {
+			int points = OutlineTemplates.getCircle(r).length / 2;
+			if(r < 64) {
+				assertTrue(points < SAMPLED_ANGLES, "circle r=" + r + " has " + points + " points");
+			} else {
+				assertTrue(points > SAMPLED_ANGLES, "circle r=" + r + " has " + points + " points");
+			}
+		}
+		
+		assertEquals(44, OutlineTemplates.getCircle(8).length / 2);
+		assertEquals(180, OutlineTemplates.getCircle(32).length / 2);
+		assertEquals(364, OutlineTemplates.getCircle(64).length / 2);
+		assertEquals(724, OutlineTemplates.getCircle(128).length / 2);
+	}
+	
+	@Test
+	public void circleIsSymmetric() {
+		for(int r = 1; r <= MAX_RADIUS; r++) {
+			Set<Long> points = toSet(OutlineTemplates.getCircle(r));
+			for(long p : points) {
+				int x = (int) (p >> 32);
+				int z = (int) p;
+				
+				assertTrue(points.contains(pack(-x, z)) && points.contains(pack(x, -z)) && points.contains(pack(z, x)), "circle r=" + r + " is not symmetric around (" + x + ", " + z + ")");
+			}
+			
+			// Every octant contributes the same amount of points, so the count is a multiple of 4
+			assertEquals(0, points.size() % 4, "circle r=" + r);
+		}
+	}
+	
+	private static void assertNoDuplicates(int[] template, String name) {
+		assertEquals(template.length / 2, toSet(template).size(), name + " has duplicate points");
+	}
+	
+	/**
+	 * Consecutive points, including the last and the first, must touch horizontally, vertically or diagonally
+	 */
+	private static void assertEightConnected(int[] template, String name) {
+		int points = template.length / 2;
+		for(int i = 0; i < points; i++) {
+			int j = (i + 1) % points;
+			
+			int dx = Math.abs(template[i * 2] - template[j * 2]);
+			int dz = Math.abs(template[i * 2 + 1] - template[j * 2 + 1]);
+			assertTrue(dx <= 1 && dz <= 1, name + " has a gap between (" + template[i * 2] + ", " + template[i * 2 + 1] + ") and (" + template[j * 2] + ", " + template[j * 2 + 1] + ")");
+		}
+	}
+	
+	private static Set<Long> toSet(int[] template) {
+		Set<Long> points = new HashSet<>();
+		for(int i = 0; i < template.length; i += 2) {
+			points.add(pack(template[i], template[i + 1]));
+		}
+		
+		return points;
+	}
+	
+	private static long pack(int x, int z) {
+		return ((long) x << 32) | (z & 0xFFFFFFFFL);
+	}
+}
@@ -0,0 +1,133 @@
+package dev.array21.harotorch.torch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+public class SpatialIndexTest {
+	
+	private static final World OVERWORLD = TestTorches.world("world");
+	private static final World NETHER = TestTorches.world("world_nether");
+	private static final int[] RANGES = { 8, 16, 32, 100, 600 };
+	
+	@Test
+	public void withReplacesTheTorchAtTheSamePosition() {
+		Torch first = TestTorches.torch(OVERWORLD, UUID.randomUUID(), 10, 64, 10, 16);
+		Torch second = TestTorches.torch(OVERWORLD, UUID.randomUUID(), 10, 64, 10, 32);
+		
+		SpatialIndex index = SpatialIndex.EMPTY.with(first).with(second);
+		assertEquals(1, index.size());
+		assertSame(second, index.get("world", 10, 64, 10));
+		
+		List<Torch> all = new ArrayList<>();
+		index.getAll(all);
+		assertEquals(List.of(second), all);
+	}
+	
+	@Test
+	public void withoutAnUnknownTorchReturnsTheSameIndex() {
+		SpatialIndex index = SpatialIndex.EMPTY.with(TestTorches.torch(OVERWORLD, UUID.randomUUID(), 0, 64, 0, 16));
+		assertSame(index, index.without(TestTorches.torch(OVERWORLD, UUID.randomUUID(), 1, 64, 0, 16)));
+		assertSame(index, index.without(TestTorches.torch(NETHER, UUID.randomUUID(), 0, 64, 0, 16)));
+	}
+	
+	@Test
+	public void getCoveringFindsEveryTorchInRange() {
+		Random random = new Random(1);
+		List<Torch> torches = new ArrayList<>();
+		for(int i = 0; i < 500; i++) {
+			torches.add(randomTorch(random, OVERWORLD));
+		}
+		
+		SpatialIndex index = SpatialIndex.of(torches);
+		List<Torch> indexed = new ArrayList<>();
+		index.getAll(indexed);
+		
+		for(int i = 0; i < 2000; i++) {
+			int x = random.nextInt(4000) - 2000;
+			int z = random.nextInt(4000) - 2000;
+			
+			List<Torch> covering = new ArrayList<>();
+			index.getCovering("world", x, z, covering);
+			
+			for(Torch t : indexed) {
+				if(covers(t, x, z)) {
+					assertTrue(covering.contains(t), t.getBlockX() + "," + t.getBlockZ() + " range " + t.getRange() + " covers " + x + "," + z);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void olderIndexesAreNotChangedByNewerOnes() {
+		Random random = new Random(2);
+		List<SpatialIndex> indexes = new ArrayList<>();
+		List<Map<String, Torch>> expected = new ArrayList<>();
+		
+		SpatialIndex index = SpatialIndex.EMPTY;
+		Map<String, Torch> model = new HashMap<>();
+		
+		for(int i = 0; i < 3000; i++) {
+			World world = random.nextBoolean() ? OVERWORLD : NETHER;
+			if(!model.isEmpty() && random.nextInt(3) == 0) {
+				List<Torch> present = new ArrayList<>(model.values());
+				Torch removed = present.get(random.nextInt(present.size()));
+				index = index.without(removed);
+				model.remove(key(removed));
+			} else {
+				Torch added = randomTorch(random, world);
+				index = index.with(added);
+				model.put(key(added), added);
+			}
+			
+			indexes.add(index);
+			expected.add(new HashMap<>(model));
+		}
+		
+		for(int i = 0; i < indexes.size(); i++) {
+			assertContents(expected.get(i), indexes.get(i));
+		}
+	}
+	
+	private static void assertContents(Map<String, Torch> expected, SpatialIndex index) {
+		assertEquals(expected.size(), index.size());
+		
+		List<Torch> all = new ArrayList<>();
+		index.getAll(all);
+		assertEquals(new HashSet<>(expected.values()), new HashSet<>(all));
+		assertEquals(all.size(), new HashSet<>(all).size(), "getAll returned a Torch twice");
+		
+		for(Torch t : expected.values()) {
+			assertSame(t, index.get(t.getWorldName(), t.getBlockX(), t.getBlockY(), t.getBlockZ()));
+			
+			List<Torch> covering = new ArrayList<>();
+			index.getCovering(t.getWorldName(), t.getBlockX(), t.getBlockZ(), covering);
+			assertTrue(covering.contains(t));
+		}
+	}
+	
+	private static Torch randomTorch(Random random, World world) {
+		return TestTorches.torch(world, UUID.randomUUID(), random.nextInt(4000) - 2000, random.nextInt(256), random.nextInt(4000) - 2000, RANGES[random.nextInt(RANGES.length)]);
+	}
+	
+	private static boolean covers(Torch torch, int x, int z) {
+		double dx = torch.getBlockX() - x;
+		double dz = torch.getBlockZ() - z;
+		return dx * dx + dz * dz <= (double) torch.getRange() * torch.getRange();
+	}
+	
+	private static String key(Torch torch) {
+		return torch.getWorldName() + "," + torch.getBlockX() + "," + torch.getBlockY() + "," + torch.getBlockZ();
+	}
+}
@@ -0,0 +1,43 @@
+package dev.array21.harotorch.torch;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * Creates Torches without a server. The Worlds only answer {@link World#getName()}
+ */
+final class TestTorches {
+	
+	private TestTorches() {}
+	
+	static World world(String name) {
+		return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] { World.class }, (proxy, method, args) -> {
+			switch(method.getName()) {
+			case "getName":
+				return name;
+			case "hashCode":
+				return name.hashCode();
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "World[" + name + "]";
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+	
+	/**
+	 * @param range The range of the Torch. Must be positive, the configured torchRange is not available in tests
+	 */
+	static Torch torch(World world, UUID owner, int x, int y, int z, int range) {
+		return new Torch(owner, new Location(world, x, y, z), null, range);
+	}
+	
+	static long pack(Torch torch) {
+		return TorchChange.pack(torch.getBlockX(), torch.getBlockY(), torch.getBlockZ());
+	}
+}
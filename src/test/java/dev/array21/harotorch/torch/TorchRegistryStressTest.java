@@ -0,0 +1,253 @@
+package dev.array21.harotorch.torch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Changes the registry from several threads at once, while other threads read it, like the main thread, region threads and the worker pool do on a server.
+ * Only the in-memory registry is exercised, storage and listeners need a running plugin
+ */
+public class TorchRegistryStressTest {
+	
+	private static final World WORLD = TestTorches.world("stress");
+	
+	private static final int WRITERS = 4;
+	private static final int READERS = 4;
+	
+	/**
+	 * Kept below {@link TorchJournal#CAPACITY} in total, so a journal reader never falls behind
+	 */
+	private static final int CHANGES_PER_WRITER = 800;
+	
+	@Test
+	public void readersSeeConsistentSnapshotsWhileTorchesChange() throws Exception {
+		UUID anchorOwner = UUID.randomUUID();
+		Torch anchor = TestTorches.torch(WORLD, anchorOwner, 0, 64, 0, 32);
+		TorchHandler.publishAdd(anchor);
+		
+		TorchSnapshot initial = TorchHandler.getSnapshot();
+		ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		
+		try {
+			List<Future<Set<Torch>>> writers = new ArrayList<>();
+			for(int w = 0; w < WRITERS; w++) {
+				int writer = w;
+				writers.add(executor.submit(() -> {
+					start.await();
+					return write(writer);
+				}));
+			}
+			
+			List<Future<?>> readers = new ArrayList<>();
+			for(int r = 0; r < READERS; r++) {
+				readers.add(executor.submit(() -> {
+					start.await();
+					readSnapshots(anchor, writing);
+					return null;
+				}));
+			}
+			
+			Future<?> journalReader = executor.submit(() -> {
+				start.await();
+				followJournal(initial, writing);
+				return null;
+			});
+			
+			start.countDown();
+			
+			Set<Torch> expected = new HashSet<>();
+			expected.add(anchor);
+			for(Future<Set<Torch>> writer : writers) {
+				expected.addAll(writer.get(60, TimeUnit.SECONDS));
+			}
+			
+			writing.set(false);
+			for(Future<?> reader : readers) {
+				reader.get(60, TimeUnit.SECONDS);
+			}
+			
+			journalReader.get(60, TimeUnit.SECONDS);
+			
+			TorchSnapshot result = TorchHandler.getSnapshot();
+			assertEquals(expected, new HashSet<>(result.getTorches()));
+			assertEquals(1, result.getTorchCount(anchorOwner));
+		} finally {
+			executor.shutdownNow();
+			
+			for(Torch t : TorchHandler.getSnapshot().getTorches()) {
+				TorchHandler.publishRemove(t);
+			}
+		}
+	}
+	
+	@Test
+	public void journalEpochsOnlyIncrease() {
+		long before = TorchHandler.getSnapshot().getEpoch();
+		UUID owner = UUID.randomUUID();
+		Torch first = TestTorches.torch(WORLD, owner, 1000, 64, 1000, 16);
+		
+		TorchHandler.publishAdd(first);
+		// Same position and owner, but another range, so the change is recorded as a remove and an add
+		TorchHandler.publishAdd(TestTorches.torch(WORLD, owner, 1000, 64, 1000, 24));
+		TorchHandler.publishAdd(TestTorches.torch(WORLD, UUID.randomUUID(), 1000, 64, 1000, 24));
+		TorchHandler.publishRemove(first);
+		
+		List<TorchChange> changes = TorchHandler.getJournal().getChangesSince(before);
+		assertNotNull(changes);
+		assertEquals(5, changes.size());
+		
+		assertEquals(TorchChange.Type.ADDED, changes.get(0).getType());
+		assertEquals(TorchChange.Type.REMOVED, changes.get(1).getType());
+		assertEquals(TorchChange.Type.ADDED, changes.get(2).getType());
+		assertEquals(TorchChange.Type.OWNER_CHANGED, changes.get(3).getType());
+		assertEquals(owner, changes.get(3).getPreviousOwner());
+		assertEquals(TorchChange.Type.REMOVED, changes.get(4).getType());
+		
+		// A replacement records both of its changes under the epoch of the one snapshot it published
+		assertEquals(changes.get(1).getEpoch(), changes.get(2).getEpoch());
+		assertEquals(before + 1, changes.get(0).getEpoch());
+		assertEquals(before + 4, changes.get(4).getEpoch());
+		assertEquals(before + 4, TorchHandler.getSnapshot().getEpoch());
+		
+		assertEquals(List.of(changes.get(4)), TorchHandler.getJournal().getChangesSince(before + 3));
+		assertTrue(TorchHandler.getJournal().getChangesSince(before + 4).isEmpty());
+	}
+	
+	@Test
+	public void journalDropsTheOldestChanges() {
+		TorchJournal journal = new TorchJournal();
+		Torch torch = TestTorches.torch(WORLD, UUID.randomUUID(), 0, 64, 0, 16);
+		
+		for(long epoch = 1; epoch <= TorchJournal.CAPACITY + 10; epoch++) {
+			journal.record(new TorchChange(epoch, TorchChange.Type.ADDED, torch, null));
+		}
+		
+		assertEquals(TorchJournal.CAPACITY, journal.size());
+		assertEquals(10L, journal.getOldestEpoch());
+		assertNull(journal.getChangesSince(9L), "Changes after epoch 9 are partly dropped");
+		
+		List<TorchChange> changes = journal.getChangesSince(10L);
+		assertNotNull(changes);
+		assertEquals(TorchJournal.CAPACITY, changes.size());
+		for(int i = 0; i < changes.size(); i++) {
+			assertEquals(11L + i, changes.get(i).getEpoch());
+		}
+		
+		journal.truncate(100_000L);
+		assertEquals(0, journal.size());
+		assertNull(journal.getChangesSince(99_999L));
+		assertTrue(journal.getChangesSince(100_000L).isEmpty());
+	}
+	
+	/**
+	 * Add and remove Torches in an area only this writer uses, so the expected end result is known
+	 * @return The Torches of this writer which are still registered
+	 */
+	private static Set<Torch> write(int writer) {
+		Random random = new Random(writer);
+		UUID owner = UUID.randomUUID();
+		List<Torch> placed = new ArrayList<>();
+		
+		for(int i = 0; i < CHANGES_PER_WRITER; i++) {
+			if(!placed.isEmpty() && random.nextInt(3) == 0) {
+				TorchHandler.publishRemove(placed.remove(random.nextInt(placed.size())));
+			} else {
+				// Every writer gets its own band of Z, and every position is used once, so nothing is replaced
+				Torch torch = TestTorches.torch(WORLD, owner, i * 3 - 1200, 64, 100 + writer * 50 + random.nextInt(40), 8 << random.nextInt(6));
+				TorchHandler.publishAdd(torch);
+				placed.add(torch);
+			}
+		}
+		
+		return new HashSet<>(placed);
+	}
+	
+	private static void readSnapshots(Torch anchor, AtomicBoolean writing) {
+		long lastEpoch = -1;
+		List<Torch> covering = new ArrayList<>();
+		
+		do {
+			TorchSnapshot snapshot = TorchHandler.getSnapshot();
+			assertTrue(snapshot.getEpoch() >= lastEpoch, "Epochs went backwards");
+			lastEpoch = snapshot.getEpoch();
+			
+			List<Torch> torches = snapshot.getTorches();
+			assertEquals(snapshot.size(), torches.size());
+			
+			Map<UUID, Integer> counts = new HashMap<>();
+			for(Torch t : torches) {
+				counts.merge(t.getTorchOwner(), 1, Integer::sum);
+			}
+			
+			for(Map.Entry<UUID, Integer> entry : counts.entrySet()) {
+				assertEquals(entry.getValue(), snapshot.getTorchCount(entry.getKey()));
+			}
+			
+			covering.clear();
+			snapshot.getCovering(WORLD.getName(), 5, 5, covering);
+			assertTrue(covering.contains(anchor), "The anchor Torch is always registered");
+		} while(writing.get());
+	}
+	
+	/**
+	 * Mirror the registry from the journal, as the caches do, and compare the mirror with each snapshot
+	 */
+	private static void followJournal(TorchSnapshot initial, AtomicBoolean writing) {
+		Map<Long, Torch> mirror = new HashMap<>();
+		for(Torch t : initial.getTorches()) {
+			mirror.put(TestTorches.pack(t), t);
+		}
+		
+		long epoch = initial.getEpoch();
+		boolean last;
+		do {
+			last = !writing.get();
+			
+			TorchSnapshot snapshot = TorchHandler.getSnapshot();
+			List<TorchChange> changes = TorchHandler.getJournal().getChangesSince(epoch);
+			assertNotNull(changes, "The journal reader fell behind");
+			
+			long previous = epoch;
+			for(TorchChange change : changes) {
+				assertTrue(change.getEpoch() >= previous, "Journal epochs went backwards");
+				previous = change.getEpoch();
+				
+				// Changes are recorded before their snapshot is published, so the journal may be ahead of the snapshot
+				if(change.getEpoch() > snapshot.getEpoch()) {
+					break;
+				}
+				
+				if(change.getType() == TorchChange.Type.REMOVED) {
+					mirror.remove(change.getPackedPosition());
+				} else {
+					mirror.put(change.getPackedPosition(), change.getTorch());
+				}
+			}
+			
+			epoch = snapshot.getEpoch();
+			assertEquals(new HashSet<>(snapshot.getTorches()), new HashSet<>(mirror.values()), "The journal does not match the snapshot of epoch " + epoch);
+		} while(!last);
+	}
+}
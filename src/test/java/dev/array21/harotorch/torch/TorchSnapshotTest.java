@@ -0,0 +1,112 @@
+package dev.array21.harotorch.torch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+public class TorchSnapshotTest {
+	
+	private static final World WORLD = TestTorches.world("world");
+	
+	@Test
+	public void torchCountsFollowAddsAndRemoves() {
+		UUID alice = UUID.randomUUID();
+		UUID bob = UUID.randomUUID();
+		
+		Torch a1 = TestTorches.torch(WORLD, alice, 0, 64, 0, 16);
+		Torch a2 = TestTorches.torch(WORLD, alice, 100, 64, 0, 16);
+		Torch b1 = TestTorches.torch(WORLD, bob, 200, 64, 0, 16);
+		
+		TorchSnapshot snapshot = TorchSnapshot.EMPTY.with(a1).with(a2).with(b1);
+		assertEquals(2, snapshot.getTorchCount(alice));
+		assertEquals(1, snapshot.getTorchCount(bob));
+		
+		TorchSnapshot removed = snapshot.without(a1).without(b1);
+		assertEquals(1, removed.getTorchCount(alice));
+		assertNull(removed.getTorchCount(bob), "Players without Torches have no entry");
+		
+		// The older snapshot is not affected
+		assertEquals(2, snapshot.getTorchCount(alice));
+		assertEquals(1, snapshot.getTorchCount(bob));
+	}
+	
+	@Test
+	public void replacingATorchMovesItsCount() {
+		UUID alice = UUID.randomUUID();
+		UUID bob = UUID.randomUUID();
+		
+		TorchSnapshot snapshot = TorchSnapshot.EMPTY
+				.with(TestTorches.torch(WORLD, alice, 0, 64, 0, 16))
+				.with(TestTorches.torch(WORLD, bob, 0, 64, 0, 16));
+		
+		assertEquals(1, snapshot.size());
+		assertNull(snapshot.getTorchCount(alice));
+		assertEquals(1, snapshot.getTorchCount(bob));
+	}
+	
+	@Test
+	public void removingAnUnknownTorchKeepsTheSnapshot() {
+		TorchSnapshot snapshot = TorchSnapshot.EMPTY.with(TestTorches.torch(WORLD, UUID.randomUUID(), 0, 64, 0, 16));
+		assertSame(snapshot, snapshot.without(TestTorches.torch(WORLD, UUID.randomUUID(), 0, 65, 0, 16)));
+	}
+	
+	@Test
+	public void torchCountsMatchTheTorches() {
+		Random random = new Random(3);
+		UUID[] owners = new UUID[8];
+		for(int i = 0; i < owners.length; i++) {
+			owners[i] = UUID.randomUUID();
+		}
+		
+		TorchSnapshot snapshot = TorchSnapshot.EMPTY;
+		List<Torch> placed = new ArrayList<>();
+		for(int i = 0; i < 2000; i++) {
+			if(!placed.isEmpty() && random.nextInt(3) == 0) {
+				snapshot = snapshot.without(placed.remove(random.nextInt(placed.size())));
+			} else {
+				// A small area, so Torches are regularly replaced by ones of another owner
+				Torch torch = TestTorches.torch(WORLD, owners[random.nextInt(owners.length)], random.nextInt(20), 64, random.nextInt(20), 16);
+				snapshot = snapshot.with(torch);
+				placed.add(torch);
+			}
+			
+			assertCounts(snapshot, owners);
+		}
+	}
+	
+	@Test
+	public void ofCountsEveryTorchOnce() {
+		UUID alice = UUID.randomUUID();
+		List<Torch> torches = new ArrayList<>();
+		torches.add(TestTorches.torch(WORLD, alice, 0, 64, 0, 16));
+		torches.add(TestTorches.torch(WORLD, alice, 1, 64, 0, 16));
+		torches.add(TestTorches.torch(WORLD, UUID.randomUUID(), 1, 64, 0, 16));
+		
+		// The last Torch at a position wins, so alice only keeps one
+		TorchSnapshot snapshot = TorchSnapshot.of(5L, torches);
+		assertEquals(5L, snapshot.getEpoch());
+		assertEquals(2, snapshot.size());
+		assertEquals(1, snapshot.getTorchCount(alice));
+	}
+	
+	private static void assertCounts(TorchSnapshot snapshot, UUID[] owners) {
+		Map<UUID, Integer> expected = new HashMap<>();
+		for(Torch t : snapshot.getTorches()) {
+			expected.merge(t.getTorchOwner(), 1, Integer::sum);
+		}
+		
+		for(UUID owner : owners) {
+			assertEquals(expected.get(owner), snapshot.getTorchCount(owner));
+		}
+	}
+}